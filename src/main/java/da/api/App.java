@@ -88,6 +88,16 @@ public class App {
         logger.info("初始化服務...");
 
         ExcelService excelService = new ExcelService(selectedPath);
+        // 活頁簿未改變時直接讀取上次的資料快照
+        excelService.setSnapshotCache(
+                new da.api.service.SnapshotCache(new java.io.File(AppSettings.getStoragePath("snapshots"))));
+        if (appSettings.isOffHeapStorage()) {
+            // 大型資料的列資料存於記憶體映射的暫存檔，先清除上次留下的暫存檔
+            java.io.File offHeapDirectory = new java.io.File(AppSettings.getStoragePath("offheap"));
+            da.api.model.ExcelDataset.deleteStaleOffHeapFiles(offHeapDirectory);
+            da.api.service.StreamingSheetReader.deleteStaleFiles(offHeapDirectory);
+            excelService.setOffHeapDirectory(offHeapDirectory);
+        }
 
         // 讀取 Excel 標題並讓使用者設定欄位
         java.util.List<String> headers = excelService.readHeaders();
@@ -0,0 +1,78 @@
+package da.api.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 磁碟暫存模式下存放已封存列區塊的暫存檔
+ * <p>
+ * 每個 RowStore 一個檔案，區塊依序附加到檔案結尾後以唯讀記憶體映射讀取，內容不佔用 Java heap，
+ * 由作業系統依需要載入或釋放分頁。RowStore 不再被參照時關閉並刪除檔案；
+ * 程式異常結束留下的檔案由 deleteStale 在下次啟動時清除。
+ */
+final class ChunkFile {
+    static final String PREFIX = "rows-";
+    static final String SUFFIX = ".chunks";
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final FileChannel channel;
+    private long length;
+
+    /**
+     * 在 directory 中建立新的暫存檔，owner 被回收時一併刪除
+     */
+    ChunkFile(File directory, Object owner) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("無法建立暫存目錄: " + directory.getPath());
+        }
+        File file = File.createTempFile(PREFIX, SUFFIX, directory);
+        file.deleteOnExit();
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // 清除動作不可參照 owner 或本物件，否則永遠不會被回收
+        FileChannel opened = channel;
+        CLEANER.register(owner, () -> {
+            try {
+                opened.close();
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                // 仍被映射時 (Windows) 無法刪除，結束程式或下次啟動時再刪除
+            }
+        });
+    }
+
+    /**
+     * 將 content 附加到檔案結尾，回傳對應區段的唯讀映射
+     */
+    synchronized MappedByteBuffer append(ByteBuffer content) throws IOException {
+        long position = length;
+        int size = content.remaining();
+        while (content.hasRemaining()) {
+            channel.write(content, position + (size - content.remaining()));
+        }
+        length += size;
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    /**
+     * 刪除 directory 中先前留下的暫存檔；使用中 (已映射) 的檔案在部分系統上無法刪除，會直接略過
+     */
+    static void deleteStale(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                // 其他執行中的程式仍在使用
+            }
+        }
+    }
+}
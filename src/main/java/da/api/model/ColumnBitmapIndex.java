@@ -0,0 +1,185 @@
+package da.api.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 篩選欄位的反向索引：欄位值 (去除前後空白) -> 含有該值的列編號點陣圖
+ * <p>
+ * 位元位置是 RowStore 的列編號，增刪列不會改變其他列的編號，維護時只需設定或清除單一位元。
+ * 空值與空白字串一律歸在空字串底下，供「為空」條件查詢。
+ * 點陣圖為壓縮格式，值很分散的欄位也只需約每列數個位元組。
+ * <p>
+ * 每個欄位另外保存依字串順序排列的不重複值，供篩選下拉選單使用；
+ * 增刪列時只在值第一次出現或最後一列被移除時插入或刪除一項，不必重新收集。
+ */
+public class ColumnBitmapIndex {
+    private static final RowBitmap NONE = new RowBitmap();
+
+    private final ExcelDataset.RowStore store;
+    // 欄位索引 -> 該欄位的值與點陣圖
+    private final Map<Integer, ColumnValues> columns = new HashMap<>();
+    private final Map<String, Integer> indexedColumns = new HashMap<>();
+    // 資料集中的所有列
+    private RowBitmap members = new RowBitmap();
+
+    private ColumnBitmapIndex(ExcelDataset.RowStore store) {
+        this.store = store;
+    }
+
+    ColumnBitmapIndex(ExcelDataset.RowStore store, List<String> columnNames, int[] rows, int size) {
+        this.store = store;
+        for (String name : columnNames) {
+            Integer column = store.columnIndex.get(name);
+            if (column != null) {
+                indexedColumns.put(name, column);
+                columns.put(column, new ColumnValues());
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            add(rows[i]);
+        }
+    }
+
+    /**
+     * 該欄位是否有索引
+     */
+    boolean covers(String columnName) {
+        return indexedColumns.containsKey(columnName);
+    }
+
+    /**
+     * 有索引的欄位名稱
+     */
+    List<String> columnNames() {
+        return new ArrayList<>(indexedColumns.keySet());
+    }
+
+    /**
+     * 值為 value (已去除前後空白，空字串表示空值) 的列編號，不可修改回傳的點陣圖
+     */
+    RowBitmap lookup(String columnName, String value) {
+        ColumnValues values = columns.get(indexedColumns.get(columnName));
+        RowBitmap bitmap = values != null ? values.rows.get(value) : null;
+        return bitmap != null ? bitmap : NONE;
+    }
+
+    /**
+     * 欄位中的不重複值 (含代表空值的空字串)，依字串順序排列，不可修改回傳的陣列
+     */
+    String[] sortedValues(String columnName) {
+        return columns.get(indexedColumns.get(columnName)).sorted();
+    }
+
+    /**
+     * 資料集中的所有列，不可修改回傳的點陣圖
+     */
+    RowBitmap members() {
+        return members;
+    }
+
+    void add(int row) {
+        members.add(row);
+        for (Map.Entry<Integer, ColumnValues> entry : columns.entrySet()) {
+            entry.getValue().add(keyOf(row, entry.getKey()), row);
+        }
+    }
+
+    void remove(int row) {
+        members.remove(row);
+        for (Map.Entry<Integer, ColumnValues> entry : columns.entrySet()) {
+            entry.getValue().remove(keyOf(row, entry.getKey()), row);
+        }
+    }
+
+    void clear() {
+        members = new RowBitmap();
+        for (ColumnValues values : columns.values()) {
+            values.rows.clear();
+            values.sorted = null;
+        }
+    }
+
+    /**
+     * 各自獨立的複本，修改複本不影響原本的索引
+     */
+    ColumnBitmapIndex copy() {
+        ColumnBitmapIndex copy = new ColumnBitmapIndex(store);
+        copy.indexedColumns.putAll(indexedColumns);
+        for (Map.Entry<Integer, ColumnValues> entry : columns.entrySet()) {
+            copy.columns.put(entry.getKey(), entry.getValue().copy());
+        }
+        copy.members = members.copy();
+        return copy;
+    }
+
+    private String keyOf(int row, int column) {
+        String value = store.value(row, column);
+        return value != null ? value.trim() : "";
+    }
+
+    /**
+     * 單一欄位的值 -> 點陣圖，以及排序過的不重複值
+     */
+    private static final class ColumnValues {
+        final Map<String, RowBitmap> rows = new HashMap<>();
+        // 依字串順序排列的值；null 表示尚未排序 (建立索引時一次排序，之後逐筆維護)
+        String[] sorted;
+
+        void add(String key, int row) {
+            RowBitmap bitmap = rows.get(key);
+            if (bitmap == null) {
+                bitmap = new RowBitmap();
+                rows.put(key, bitmap);
+                if (sorted != null) {
+                    int i = -Arrays.binarySearch(sorted, key) - 1;
+                    String[] grown = new String[sorted.length + 1];
+                    System.arraycopy(sorted, 0, grown, 0, i);
+                    grown[i] = key;
+                    System.arraycopy(sorted, i, grown, i + 1, sorted.length - i);
+                    sorted = grown;
+                }
+            }
+            bitmap.add(row);
+        }
+
+        void remove(String key, int row) {
+            RowBitmap bitmap = rows.get(key);
+            if (bitmap == null) {
+                return;
+            }
+            bitmap.remove(row);
+            if (bitmap.isEmpty()) {
+                rows.remove(key);
+                if (sorted != null) {
+                    int i = Arrays.binarySearch(sorted, key);
+                    String[] shrunk = new String[sorted.length - 1];
+                    System.arraycopy(sorted, 0, shrunk, 0, i);
+                    System.arraycopy(sorted, i + 1, shrunk, i, shrunk.length - i);
+                    sorted = shrunk;
+                }
+            }
+        }
+
+        String[] sorted() {
+            if (sorted == null) {
+                sorted = rows.keySet().toArray(new String[0]);
+                Arrays.sort(sorted);
+            }
+            return sorted;
+        }
+
+        ColumnValues copy() {
+            ColumnValues copy = new ColumnValues();
+            for (Map.Entry<String, RowBitmap> value : rows.entrySet()) {
+                copy.rows.put(value.getKey(), value.getValue().copy());
+            }
+            // 陣列只會整個替換，不會就地修改，可直接共用
+            copy.sorted = sorted;
+            return copy;
+        }
+    }
+}
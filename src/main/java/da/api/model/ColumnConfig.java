@@ -16,4 +16,10 @@ public class ColumnConfig {
     private String expiryDateColumn;
     private List<String> searchFilterColumns;
     private List<String> allHeaders;
+    // 辨識同一筆資料的鍵值欄位，未設定時以整列內容比對
+    private String keyColumn;
+
+    public ColumnConfig(String expiryDateColumn, List<String> searchFilterColumns, List<String> allHeaders) {
+        this(expiryDateColumn, searchFilterColumns, allHeaders, null);
+    }
 }
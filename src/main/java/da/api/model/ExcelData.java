@@ -2,37 +2,134 @@ package da.api.model;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * API KEY 資料實體
+ * <p>
+ * 可以是獨立的資料 (例如編輯對話框的結果)，也可以是 ExcelDataset 中某一列的唯讀檢視。
+ * 檢視被修改時會先複製成獨立資料，資料集本身不受影響。
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
 public class ExcelData {
+    // 檢視模式：指向資料集中的列
+    private ExcelDataset.RowStore store;
+    private int viewRow;
+
+    // 獨立模式
     private LocalDate expiryDate; // 到期日
+    private Map<String, String> attributes;
+
+    public ExcelData() {
+        this.attributes = new HashMap<>();
+    }
+
+    public ExcelData(LocalDate expiryDate, Map<String, String> attributes) {
+        this.expiryDate = expiryDate;
+        this.attributes = attributes;
+    }
+
+    ExcelData(ExcelDataset.RowStore store, int viewRow) {
+        this.store = store;
+        this.viewRow = viewRow;
+    }
+
+    boolean isViewOf(ExcelDataset.RowStore other) {
+        return store != null && store == other;
+    }
+
+    int getViewRow() {
+        return viewRow;
+    }
+
+    public LocalDate getExpiryDate() {
+        if (store != null) {
+            int day = store.expiryDay(viewRow);
+            return day != ExcelDataset.RowStore.NO_DATE ? LocalDate.ofEpochDay(day) : null;
+        }
+        return expiryDate;
+    }
+
+    public void setExpiryDate(LocalDate expiryDate) {
+        detach();
+        this.expiryDate = expiryDate;
+    }
 
-    private java.util.Map<String, String> attributes = new java.util.HashMap<>();
+    /**
+     * 取得全部屬性；檢視模式下回傳複本
+     */
+    public Map<String, String> getAttributes() {
+        return store != null ? store.attributes(viewRow) : attributes;
+    }
+
+    public void setAttributes(Map<String, String> attributes) {
+        detach();
+        this.attributes = attributes;
+    }
 
     public void setAttribute(String key, String value) {
-        attributes.put(key, value);
+        detach();
+        if (value != null) {
+            attributes.put(key, value);
+        } else {
+            attributes.remove(key);
+        }
     }
 
     public String getAttribute(String key) {
-        return attributes.get(key);
+        return store != null ? store.value(viewRow, key) : attributes.get(key);
     }
 
     public Object[] toArray(List<String> headers, int index) {
         List<Object> row = new ArrayList<>();
         row.add(index);
         for (String header : headers) {
-            row.add(attributes.getOrDefault(header, ""));
+            String value = getAttribute(header);
+            row.add(value != null ? value : "");
         }
         return row.toArray();
     }
+
+    private void detach() {
+        if (store != null) {
+            expiryDate = getExpiryDate();
+            attributes = store.attributes(viewRow);
+            store = null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ExcelData)) {
+            return false;
+        }
+        ExcelData other = (ExcelData) o;
+        if (store != null && other.store != null && store.sameLayout(other.store)) {
+            return (store == other.store && viewRow == other.viewRow)
+                    || store.rowEquals(viewRow, other.store, other.viewRow);
+        }
+        return Objects.equals(getExpiryDate(), other.getExpiryDate())
+                && Objects.equals(getAttributes(), other.getAttributes());
+    }
+
+    @Override
+    public int hashCode() {
+        int attributesHash;
+        if (store != null) {
+            attributesHash = store.attributesHash(viewRow);
+        } else {
+            attributesHash = attributes != null ? attributes.hashCode() : 0;
+        }
+        return attributesHash * 31 + Objects.hashCode(getExpiryDate());
+    }
+
+    @Override
+    public String toString() {
+        return "ExcelData(expiryDate=" + getExpiryDate() + ", attributes=" + getAttributes() + ")";
+    }
 }
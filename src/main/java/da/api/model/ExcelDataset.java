@@ -0,0 +1,1404 @@
+package da.api.model;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * 以欄為單位存放的資料集
+ * <p>
+ * 每個欄位一個字串陣列，到期日另存為 epoch day 的 int 陣列，不必為每一列建立 HashMap 與 LocalDate。
+ * 重複值多的欄位 (廠商、環境等) 自動改以字典編碼，相同的值只保存一份。
+ * 列資料放在只會附加的 RowStore 中，資料集本身只是一組列編號，
+ * 因此複製、篩選與快照都只需複製 int 陣列。get 回傳的 ExcelData 是指向某一列的輕量檢視。
+ * <p>
+ * 指定暫存目錄時 (磁碟暫存模式)，列資料每滿一個區塊就封存到記憶體映射的暫存檔，
+ * heap 中只保留列編號、字典與最後一個未滿的區塊，可瀏覽與篩選數百萬列的資料。
+ */
+public class ExcelDataset extends AbstractList<ExcelData> implements RandomAccess {
+
+    /**
+     * 列資料本體
+     * <p>
+     * 已寫入的列不會再修改 (修改一律附加新列)。每次附加結束時重新寫入 volatile 的 columns，
+     * 背景寫入執行緒讀取快照中的列時不需額外同步。
+     */
+    static final class RowStore {
+        static final int NO_DATE = Integer.MIN_VALUE;
+        // 字典超過此大小且超過列數的 1/8 時，改為直接存放字串
+        private static final int DICTIONARY_MIN_LIMIT = 256;
+        // 磁碟暫存模式下字典仍在 heap 中，另設上限
+        private static final int CHUNKED_DICTIONARY_LIMIT = 1 << 16;
+        // 磁碟暫存模式每個區塊的列數
+        static final int CHUNK_SHIFT = 16;
+        static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+        private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+
+        /**
+         * 單一欄位：重複值多的欄位以字典編碼 (代碼陣列 + 共用值表)，其餘直接存放字串
+         */
+        private static final class Column {
+            // 直接存放的字串，字典編碼時為 null
+            final String[] values;
+            // 字典編碼的代碼，null 值為 -1
+            final int[] codes;
+            final String[] dictionary;
+
+            private Column(String[] values, int[] codes, String[] dictionary) {
+                this.values = values;
+                this.codes = codes;
+                this.dictionary = dictionary;
+            }
+
+            static Column plain(String[] values) {
+                return new Column(values, null, null);
+            }
+
+            static Column encoded(int[] codes, String[] dictionary) {
+                return new Column(null, codes, dictionary);
+            }
+
+            String get(int row) {
+                if (codes == null) {
+                    return values[row];
+                }
+                int code = codes[row];
+                return code >= 0 ? dictionary[code] : null;
+            }
+        }
+
+        /**
+         * 欄位內容：列編號小於 base 的列已封存在 chunks (每個區塊 CHUNK_ROWS 列)，
+         * 其餘的列在 data 與 expiryDays 中，位置為列編號 - base。未使用暫存檔時 base 為 0
+         */
+        private static final class Columns {
+            final Column[] data;
+            final int[] expiryDays;
+            final Chunk[] chunks;
+            final int base;
+
+            Columns(Column[] data, int[] expiryDays) {
+                this(data, expiryDays, new Chunk[0], 0);
+            }
+
+            Columns(Column[] data, int[] expiryDays, Chunk[] chunks, int base) {
+                this.data = data;
+                this.expiryDays = expiryDays;
+                this.chunks = chunks;
+                this.base = base;
+            }
+
+            /**
+             * 實際保存的欄位值 (與到期日相同的日期文字未另外保存)
+             */
+            String raw(int row, int column) {
+                if (row < base) {
+                    return chunks[row >>> CHUNK_SHIFT].get(row & CHUNK_MASK, column);
+                }
+                return data[column].get(row - base);
+            }
+
+            int expiryDay(int row) {
+                if (row < base) {
+                    return chunks[row >>> CHUNK_SHIFT].expiryDay(row & CHUNK_MASK);
+                }
+                return expiryDays[row - base];
+            }
+        }
+
+        /**
+         * 已封存到暫存檔的 CHUNK_ROWS 列，以唯讀記憶體映射讀取 (多個執行緒可同時讀取)
+         * <p>
+         * 格式：列數、欄數、各欄的存放方式與起始位置 | 各列到期日 | 各欄內容。
+         * 字典編碼的欄位只存代碼，字典仍在 heap 中 (沿用封存當時的字典)；
+         * 其餘欄位存各列 UTF-8 內容的結束位置 (空值存為 ~結束位置) 與內容本身。
+         */
+        private static final class Chunk {
+            private static final int PLAIN = 0;
+            private static final int ENCODED = 1;
+
+            private final IntBuffer expiryDays;
+            // 字典編碼欄位的代碼與字典，其餘欄位為 null
+            private final IntBuffer[] codes;
+            private final String[][] dictionaries;
+            // 直接存放欄位的內容結束位置與內容，字典編碼欄位為 null
+            private final IntBuffer[] ends;
+            private final ByteBuffer[] text;
+
+            private Chunk(ByteBuffer buffer, Column[] source) {
+                int count = buffer.getInt(0);
+                int columnCount = buffer.getInt(4);
+                expiryDays = buffer.slice(8 + columnCount * 8, count * 4).asIntBuffer();
+                codes = new IntBuffer[columnCount];
+                dictionaries = new String[columnCount][];
+                ends = new IntBuffer[columnCount];
+                text = new ByteBuffer[columnCount];
+                for (int c = 0; c < columnCount; c++) {
+                    int position = buffer.getInt(12 + c * 8);
+                    if (buffer.getInt(8 + c * 8) == ENCODED) {
+                        codes[c] = buffer.slice(position, count * 4).asIntBuffer();
+                        dictionaries[c] = source[c].dictionary;
+                    } else {
+                        ends[c] = buffer.slice(position, (count + 1) * 4).asIntBuffer();
+                        int length = textEnd(ends[c].get(count));
+                        text[c] = buffer.slice(position + (count + 1) * 4, length);
+                    }
+                }
+            }
+
+            /**
+             * 將附加區的前 count 列寫入暫存檔並映射
+             */
+            static Chunk write(ChunkFile file, Columns current, int count) throws IOException {
+                Column[] data = current.data;
+                byte[][] sections = new byte[data.length][];
+                int position = 8 + data.length * 8 + count * 4;
+                int length = position;
+                for (int c = 0; c < data.length; c++) {
+                    sections[c] = data[c].codes != null ? encodeCodes(data[c].codes, count)
+                            : encodeText(data[c].values, count);
+                    length += sections[c].length;
+                }
+                ByteBuffer content = ByteBuffer.allocate(length);
+                content.putInt(count).putInt(data.length);
+                for (int c = 0; c < data.length; c++) {
+                    content.putInt(data[c].codes != null ? ENCODED : PLAIN).putInt(position);
+                    position += sections[c].length;
+                }
+                content.asIntBuffer().put(current.expiryDays, 0, count);
+                content.position(content.position() + count * 4);
+                for (byte[] section : sections) {
+                    content.put(section);
+                }
+                content.flip();
+                return new Chunk(file.append(content), data);
+            }
+
+            private static byte[] encodeCodes(int[] codes, int count) {
+                ByteBuffer section = ByteBuffer.allocate(count * 4);
+                section.asIntBuffer().put(codes, 0, count);
+                return section.array();
+            }
+
+            private static byte[] encodeText(String[] values, int count) {
+                byte[][] encoded = new byte[count][];
+                int length = 0;
+                for (int i = 0; i < count; i++) {
+                    if (values[i] != null) {
+                        encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+                        length += encoded[i].length;
+                    }
+                }
+                // 補齊到 4 的倍數，下一欄的 int 陣列保持對齊
+                ByteBuffer section = ByteBuffer.allocate((count + 1) * 4 + ((length + 3) & ~3));
+                int end = 0;
+                section.putInt(end);
+                for (int i = 0; i < count; i++) {
+                    if (encoded[i] != null) {
+                        end += encoded[i].length;
+                        section.putInt(end);
+                    } else {
+                        section.putInt(~end);
+                    }
+                }
+                for (byte[] bytes : encoded) {
+                    if (bytes != null) {
+                        section.put(bytes);
+                    }
+                }
+                return section.array();
+            }
+
+            private static int textEnd(int end) {
+                return end < 0 ? ~end : end;
+            }
+
+            String get(int slot, int column) {
+                IntBuffer columnCodes = codes[column];
+                if (columnCodes != null) {
+                    int code = columnCodes.get(slot);
+                    return code >= 0 ? dictionaries[column][code] : null;
+                }
+                int end = ends[column].get(slot + 1);
+                if (end < 0) {
+                    return null;
+                }
+                byte[] bytes = new byte[end - textEnd(ends[column].get(slot))];
+                text[column].get(end - bytes.length, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int expiryDay(int slot) {
+                return expiryDays.get(slot);
+            }
+
+            /**
+             * 區塊內的條件 (參數為區塊內的位置)；字典編碼欄位共用同一份字典的判斷結果
+             */
+            IntPredicate matcher(int column, Predicate<String> test, boolean acceptNull,
+                    Map<String[], boolean[]> acceptedByDictionary) {
+                IntBuffer columnCodes = codes[column];
+                if (columnCodes == null) {
+                    return slot -> test.test(get(slot, column));
+                }
+                boolean[] accepted = acceptedByDictionary.computeIfAbsent(dictionaries[column],
+                        dictionary -> accepted(dictionary, test));
+                return slot -> {
+                    int code = columnCodes.get(slot);
+                    return code < 0 ? acceptNull : accepted[code];
+                };
+            }
+        }
+
+        final List<String> columnNames;
+        final Map<String, Integer> columnIndex;
+        // 到期日欄位的索引，沒有時為 -1
+        final int expiryColumn;
+
+        private volatile Columns columns;
+        // 全文搜尋索引，在背景建立完成後才設定
+        volatile FullTextIndex fullText;
+        // 到期狀態表，classifyExpiry 建立
+        volatile ExpiryStatus expiryStatus;
+        private int size;
+        // 只在附加時使用：各欄字典的值 -> 代碼，未編碼的欄位為 null
+        private final List<Map<String, Integer>> lookups = new ArrayList<>();
+        // 磁碟暫存目錄，未使用時為 null；暫存檔在第一次封存時才建立
+        private File chunkDirectory;
+        private ChunkFile chunkFile;
+        // 暫存檔寫入失敗的原因，之後的列改存於 heap
+        private IOException chunkFailure;
+
+        RowStore(List<String> headers, String expiryColumnName, File chunkDirectory) {
+            this(headers, expiryColumnName);
+            this.chunkDirectory = chunkDirectory;
+        }
+
+        RowStore(List<String> headers, String expiryColumnName) {
+            List<String> names = new ArrayList<>(headers);
+            // 到期日欄位不在標題中時仍需保存其文字
+            if (expiryColumnName != null && !names.contains(expiryColumnName)) {
+                names.add(expiryColumnName);
+            }
+            this.columnNames = Collections.unmodifiableList(names);
+            this.columnIndex = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                columnIndex.putIfAbsent(names.get(i), i);
+            }
+            this.expiryColumn = expiryColumnName != null ? columnIndex.get(expiryColumnName) : -1;
+
+            // 一開始全部以字典編碼，值太分散時再改為直接存放
+            Column[] data = new Column[names.size()];
+            for (int c = 0; c < data.length; c++) {
+                data[c] = Column.encoded(new int[16], new String[16]);
+                lookups.add(new HashMap<>());
+            }
+            this.columns = new Columns(data, new int[16]);
+        }
+
+        /**
+         * 附加一列，values 依 columnNames 順序排列，回傳列編號
+         */
+        synchronized int append(String[] values, LocalDate expiryDate) {
+            Columns current = columns;
+            int slot = size - current.base;
+            if (slot == current.expiryDays.length) {
+                int capacity = slot + (slot >> 1) + 1;
+                current = resize(current, chunkDirectory != null ? Math.min(capacity, CHUNK_ROWS) : capacity);
+            }
+            int row = size;
+            for (int c = 0; c < current.data.length; c++) {
+                String value = c < values.length ? values[c] : null;
+                // 與到期日相同的日期文字可由 epoch day 還原，不另外保存
+                if (c == expiryColumn && expiryDate != null && expiryDate.toString().equals(value)) {
+                    value = null;
+                }
+                store(current.data, c, slot, value);
+            }
+            current.expiryDays[slot] = expiryDate != null ? (int) expiryDate.toEpochDay() : NO_DATE;
+            size++;
+            if (chunkDirectory != null && slot + 1 == CHUNK_ROWS) {
+                current = seal(current);
+            }
+            // 發布本列的寫入
+            columns = current;
+            return row;
+        }
+
+        /**
+         * 將已滿的附加區封存到暫存檔，之後的列從新的附加區開始 (沿用各欄的字典)；
+         * 寫入失敗時停止使用暫存檔，其餘的列留在 heap 中
+         */
+        private Columns seal(Columns current) {
+            Chunk chunk;
+            try {
+                if (chunkFile == null) {
+                    chunkFile = new ChunkFile(chunkDirectory, this);
+                }
+                chunk = Chunk.write(chunkFile, current, CHUNK_ROWS);
+            } catch (IOException e) {
+                chunkFailure = e;
+                chunkDirectory = null;
+                return current;
+            }
+            Chunk[] chunks = Arrays.copyOf(current.chunks, current.chunks.length + 1);
+            chunks[chunks.length - 1] = chunk;
+            Column[] data = new Column[current.data.length];
+            for (int c = 0; c < data.length; c++) {
+                Column column = current.data[c];
+                data[c] = column.codes == null ? Column.plain(new String[16])
+                        : Column.encoded(new int[16], column.dictionary);
+            }
+            return new Columns(data, new int[16], chunks, current.base + CHUNK_ROWS);
+        }
+
+        /**
+         * 欄位配置與暫存目錄相同的空 RowStore (重建列資料時使用)
+         */
+        synchronized RowStore emptyCopy() {
+            return new RowStore(columnNames, expiryColumn >= 0 ? columnNames.get(expiryColumn) : null,
+                    chunkDirectory);
+        }
+
+        /**
+         * 附加 source 第 row 列的內容，回傳列編號
+         */
+        int append(RowStore source, int row) {
+            String[] values = new String[columnNames.size()];
+            for (int c = 0; c < values.length; c++) {
+                values[c] = source.value(row, c);
+            }
+            int day = source.expiryDay(row);
+            return append(values, day != NO_DATE ? LocalDate.ofEpochDay(day) : null);
+        }
+
+        synchronized int append(ExcelData data) {
+            String[] values = new String[columnNames.size()];
+            for (int c = 0; c < values.length; c++) {
+                values[c] = data.getAttribute(columnNames.get(c));
+            }
+            return append(values, data.getExpiryDate());
+        }
+
+        /**
+         * 寫入附加區第 slot 個位置 (列編號為 size)
+         */
+        private void store(Column[] data, int c, int slot, String value) {
+            Column column = data[c];
+            if (column.codes == null) {
+                column.values[slot] = value;
+                return;
+            }
+            if (value == null) {
+                column.codes[slot] = -1;
+                return;
+            }
+            Map<String, Integer> lookup = lookups.get(c);
+            Integer code = lookup.get(value);
+            if (code == null) {
+                code = lookup.size();
+                if (code >= DICTIONARY_MIN_LIMIT
+                        && (code > (size >> 3) || chunkDirectory != null && code >= CHUNKED_DICTIONARY_LIMIT)) {
+                    // 值太分散，字典沒有效益
+                    data[c] = decode(column, column.codes.length, slot);
+                    lookups.set(c, null);
+                    data[c].values[slot] = value;
+                    return;
+                }
+                lookup.put(value, code);
+                if (code == column.dictionary.length) {
+                    column = Column.encoded(column.codes, Arrays.copyOf(column.dictionary, code + (code >> 1) + 1));
+                    data[c] = column;
+                }
+                column.dictionary[code] = value;
+            }
+            column.codes[slot] = code;
+        }
+
+        private Column decode(Column column, int capacity, int count) {
+            String[] values = new String[capacity];
+            for (int slot = 0; slot < count; slot++) {
+                values[slot] = column.get(slot);
+            }
+            return Column.plain(values);
+        }
+
+        /**
+         * 釋放擴充時預留的空間，並依整份資料的重複程度重新選擇各欄的存放方式
+         */
+        synchronized void trimToSize() {
+            int count = size - columns.base;
+            Columns current = resize(columns, count);
+            for (int c = 0; c < current.data.length; c++) {
+                if (current.data[c].codes == null) {
+                    encodeIfRepetitive(current.data, c, count);
+                }
+            }
+            columns = current;
+        }
+
+        /**
+         * 附加區的前 count 列重複值夠多時改以字典編碼 (已封存的區塊不變)
+         */
+        private void encodeIfRepetitive(Column[] data, int c, int count) {
+            Column column = data[c];
+            int limit = Math.max(DICTIONARY_MIN_LIMIT, size >> 3);
+            if (chunkDirectory != null) {
+                limit = Math.min(limit, CHUNKED_DICTIONARY_LIMIT);
+            }
+            Map<String, Integer> lookup = new HashMap<>();
+            int[] codes = new int[count];
+            for (int slot = 0; slot < count; slot++) {
+                String value = column.values[slot];
+                if (value == null) {
+                    codes[slot] = -1;
+                    continue;
+                }
+                Integer code = lookup.get(value);
+                if (code == null) {
+                    if (lookup.size() >= limit) {
+                        return;
+                    }
+                    code = lookup.size();
+                    lookup.put(value, code);
+                }
+                codes[slot] = code;
+            }
+            String[] dictionary = new String[lookup.size()];
+            for (Map.Entry<String, Integer> entry : lookup.entrySet()) {
+                dictionary[entry.getValue()] = entry.getKey();
+            }
+            data[c] = Column.encoded(codes, dictionary);
+            lookups.set(c, lookup);
+        }
+
+        /**
+         * 依 rows 的順序寫出列資料：欄位名稱、到期日欄位、各列到期日，以及各欄的字典與代碼或字串。
+         * 讀回時列編號依序為 0 ~ count - 1
+         */
+        synchronized void write(DataOutputStream out, int[] rows, int count) throws IOException {
+            Columns current = columns;
+            if (current.base > 0) {
+                throw new IllegalStateException("已封存到暫存檔的列不寫出");
+            }
+            out.writeInt(columnNames.size());
+            for (String name : columnNames) {
+                writeString(out, name);
+            }
+            out.writeInt(expiryColumn);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeInt(current.expiryDays[rows[i]]);
+            }
+            for (int c = 0; c < current.data.length; c++) {
+                Column column = current.data[c];
+                if (column.codes == null) {
+                    out.writeByte(0);
+                    for (int i = 0; i < count; i++) {
+                        writeString(out, column.values[rows[i]]);
+                    }
+                } else {
+                    // 字典陣列含預留空間，只寫出已使用的部分
+                    int dictionarySize = lookups.get(c).size();
+                    out.writeByte(1);
+                    out.writeInt(dictionarySize);
+                    for (int code = 0; code < dictionarySize; code++) {
+                        writeString(out, column.dictionary[code]);
+                    }
+                    for (int i = 0; i < count; i++) {
+                        out.writeInt(column.codes[rows[i]]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 讀回 write 寫出的列資料，欄位的存放方式與字典都直接沿用，不必重新判斷
+         *
+         * @throws IllegalArgumentException 內容不符合格式時
+         */
+        static RowStore read(ByteBuffer in) {
+            int columnCount = readCount(in, 4);
+            List<String> names = new ArrayList<>(columnCount);
+            for (int c = 0; c < columnCount; c++) {
+                names.add(readString(in));
+            }
+            int expiryColumn = in.getInt();
+            if (expiryColumn < -1 || expiryColumn >= columnCount) {
+                throw new IllegalArgumentException("到期日欄位錯誤: " + expiryColumn);
+            }
+            RowStore store = new RowStore(names, expiryColumn >= 0 ? names.get(expiryColumn) : null);
+            if (store.columnNames.size() != columnCount || store.expiryColumn != expiryColumn) {
+                throw new IllegalArgumentException("欄位名稱重複");
+            }
+
+            int count = readCount(in, 4);
+            int[] expiryDays = new int[count];
+            in.asIntBuffer().get(expiryDays);
+            in.position(in.position() + count * 4);
+            Column[] data = new Column[columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                byte kind = in.get();
+                if (kind == 0) {
+                    String[] values = new String[count];
+                    for (int i = 0; i < count; i++) {
+                        values[i] = readString(in);
+                    }
+                    data[c] = Column.plain(values);
+                    store.lookups.set(c, null);
+                } else if (kind == 1) {
+                    String[] dictionary = new String[readCount(in, 4)];
+                    Map<String, Integer> lookup = new HashMap<>();
+                    for (int code = 0; code < dictionary.length; code++) {
+                        dictionary[code] = readString(in);
+                        lookup.put(dictionary[code], code);
+                    }
+                    int[] codes = new int[checkLength(in, count, 4)];
+                    in.asIntBuffer().get(codes);
+                    in.position(in.position() + count * 4);
+                    for (int code : codes) {
+                        if (code < -1 || code >= dictionary.length) {
+                            throw new IllegalArgumentException("字典代碼錯誤: " + code);
+                        }
+                    }
+                    data[c] = Column.encoded(codes, dictionary);
+                    store.lookups.set(c, lookup);
+                } else {
+                    throw new IllegalArgumentException("未知的欄位格式: " + kind);
+                }
+            }
+            store.size = count;
+            store.columns = new Columns(data, expiryDays);
+            return store;
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(ByteBuffer in) {
+            int length = in.getInt();
+            if (length == -1) {
+                return null;
+            }
+            byte[] bytes = new byte[checkLength(in, length, 1)];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * 讀取筆數，並確認剩餘內容足以容納每筆至少 unit 位元組
+         */
+        private static int readCount(ByteBuffer in, int unit) {
+            return checkLength(in, in.getInt(), unit);
+        }
+
+        private static int checkLength(ByteBuffer in, int length, int unit) {
+            if (length < 0 || (long) length * unit > in.remaining()) {
+                throw new IllegalArgumentException("長度錯誤: " + length);
+            }
+            return length;
+        }
+
+        private Columns resize(Columns current, int capacity) {
+            Column[] data = new Column[current.data.length];
+            for (int c = 0; c < data.length; c++) {
+                Column column = current.data[c];
+                data[c] = column.codes == null
+                        ? Column.plain(Arrays.copyOf(column.values, capacity))
+                        : Column.encoded(Arrays.copyOf(column.codes, capacity), column.dictionary);
+            }
+            return new Columns(data, Arrays.copyOf(current.expiryDays, capacity), current.chunks, current.base);
+        }
+
+        String value(int row, int column) {
+            Columns current = columns;
+            String value = current.raw(row, column);
+            if (value == null && column == expiryColumn) {
+                int day = current.expiryDay(row);
+                if (day != NO_DATE) {
+                    return LocalDate.ofEpochDay(day).toString();
+                }
+            }
+            return value;
+        }
+
+        /**
+         * 欄位值 (忽略前後空白，空值視為空字串) 等於 target 的列；字典編碼欄位先比對值表，逐列只比較代碼
+         */
+        IntPredicate valueEquals(int column, String target) {
+            return valueMatches(column, value -> trimmedEquals(value, target));
+        }
+
+        /**
+         * 欄位值符合 test 的條件 (參數為列編號)；代碼欄位只需對字典中的每個值判斷一次
+         *
+         * @param test 參數為原始欄位值，空值為 null
+         */
+        IntPredicate valueMatches(int column, Predicate<String> test) {
+            // 先取列數再取欄位內容，內容至少包含這些列
+            int count = size();
+            Columns current = columns;
+            if (column == expiryColumn) {
+                return row -> test.test(value(row, column));
+            }
+            IntPredicate tail = tailMatcher(current, count - current.base, column, test);
+            if (current.base == 0) {
+                return tail;
+            }
+            boolean acceptNull = test.test(null);
+            Map<String[], boolean[]> acceptedByDictionary = new IdentityHashMap<>();
+            IntPredicate[] sealed = new IntPredicate[current.chunks.length];
+            for (int k = 0; k < sealed.length; k++) {
+                sealed[k] = current.chunks[k].matcher(column, test, acceptNull, acceptedByDictionary);
+            }
+            int base = current.base;
+            return row -> row < base ? sealed[row >>> CHUNK_SHIFT].test(row & CHUNK_MASK) : tail.test(row);
+        }
+
+        /**
+         * 附加區中前 count 列的條件，之後才附加的列逐列讀值判斷
+         */
+        private IntPredicate tailMatcher(Columns current, int count, int column, Predicate<String> test) {
+            Column snapshot = current.data[column];
+            if (snapshot.codes == null) {
+                return row -> test.test(value(row, column));
+            }
+            int base = current.base;
+            int[] codes = snapshot.codes;
+            boolean[] accepted = accepted(snapshot.dictionary, test);
+            boolean acceptNull = test.test(null);
+            return row -> {
+                int slot = row - base;
+                if (slot < count) {
+                    int code = codes[slot];
+                    if (code < 0) {
+                        return acceptNull;
+                    }
+                    if (code < accepted.length) {
+                        return accepted[code];
+                    }
+                }
+                // 建立條件之後才新增的列或值
+                return test.test(value(row, column));
+            };
+        }
+
+        /**
+         * 字典中每個值是否符合 test (預留的空位為 false)
+         */
+        private static boolean[] accepted(String[] dictionary, Predicate<String> test) {
+            boolean[] accepted = new boolean[dictionary.length];
+            for (int code = 0; code < accepted.length; code++) {
+                accepted[code] = dictionary[code] != null && test.test(dictionary[code]);
+            }
+            return accepted;
+        }
+
+        private static boolean trimmedEquals(String value, String target) {
+            return value != null ? value.trim().equals(target) : target.isEmpty();
+        }
+
+        String value(int row, String columnName) {
+            Integer column = columnIndex.get(columnName);
+            return column != null ? value(row, column) : null;
+        }
+
+        /**
+         * 該欄位目前是否以字典編碼 (相同的值共用同一個字串)
+         */
+        boolean isEncoded(int column) {
+            return columns.data[column].codes != null;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        int expiryDay(int row) {
+            return columns.expiryDay(row);
+        }
+
+        /**
+         * 是否已有列封存在暫存檔中
+         */
+        boolean isChunked() {
+            return columns.base > 0;
+        }
+
+        /**
+         * 仍存於 heap 中的列數 (含舊版本)
+         */
+        synchronized int heapRowCount() {
+            return size - columns.base;
+        }
+
+        synchronized IOException chunkFailure() {
+            return chunkFailure;
+        }
+
+        /**
+         * 欄位配置相同時可直接逐欄比較
+         */
+        boolean sameLayout(RowStore other) {
+            return this == other || (expiryColumn == other.expiryColumn && columnNames.equals(other.columnNames));
+        }
+
+        boolean rowEquals(int row, RowStore other, int otherRow) {
+            Columns mine = columns;
+            Columns theirs = other.columns;
+            if (mine.expiryDay(row) != theirs.expiryDay(otherRow)) {
+                return false;
+            }
+            for (int c = 0; c < mine.data.length; c++) {
+                if (!Objects.equals(mine.raw(row, c), theirs.raw(otherRow, c))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 與 HashMap.hashCode 相同的計算方式，讓檢視與獨立資料的 hashCode 一致
+         */
+        int attributesHash(int row) {
+            int hash = 0;
+            for (int c = 0; c < columnNames.size(); c++) {
+                String value = value(row, c);
+                if (value != null) {
+                    hash += columnNames.get(c).hashCode() ^ value.hashCode();
+                }
+            }
+            return hash;
+        }
+
+        Map<String, String> attributes(int row) {
+            Map<String, String> attributes = new HashMap<>();
+            for (int c = 0; c < columnNames.size(); c++) {
+                String value = value(row, c);
+                if (value != null) {
+                    attributes.put(columnNames.get(c), value);
+                }
+            }
+            return attributes;
+        }
+    }
+
+    // 舊版本列至少這麼多時才考慮重建列資料，避免小資料集頻繁重建
+    private static final int COMPACT_MIN_DEAD_ROWS = 4096;
+
+    // compact 時改用新的列資料
+    private RowStore store;
+    private int[] rows;
+    private int size;
+    // 列編號是否依序遞增 (讀取後未編輯過時成立)，成立時可直接依點陣圖順序取出查詢結果
+    private boolean ascending = true;
+    // 篩選欄位索引，只在完整資料集上建立
+    private ColumnBitmapIndex index;
+    // 列索引陣列與索引是否與快照共用，修改前須先複製
+    private boolean shared;
+
+    /**
+     * @param headers      欄位名稱
+     * @param expiryColumn 到期日欄位，可為 null
+     */
+    public ExcelDataset(List<String> headers, String expiryColumn) {
+        this(new RowStore(headers, expiryColumn), new int[16], 0, true);
+    }
+
+    /**
+     * 磁碟暫存模式的資料集：每 65536 列封存到 offHeapDirectory 中記憶體映射的暫存檔
+     *
+     * @param offHeapDirectory 暫存檔目錄，為 null 時與一般資料集相同
+     */
+    public ExcelDataset(List<String> headers, String expiryColumn, File offHeapDirectory) {
+        this(new RowStore(headers, expiryColumn, offHeapDirectory), new int[16], 0, true);
+    }
+
+    /**
+     * 刪除先前執行留在 directory 中的暫存檔
+     */
+    public static void deleteStaleOffHeapFiles(File directory) {
+        ChunkFile.deleteStale(directory);
+    }
+
+    private ExcelDataset(RowStore store, int[] rows, int size, boolean ascending) {
+        this.store = store;
+        this.rows = rows;
+        this.size = size;
+        this.ascending = ascending;
+    }
+
+    public List<String> getHeaders() {
+        return store.columnNames;
+    }
+
+    /**
+     * 到期日欄位名稱，沒有時為 null
+     */
+    public String getExpiryColumn() {
+        return store.expiryColumn >= 0 ? store.columnNames.get(store.expiryColumn) : null;
+    }
+
+    /**
+     * 是否已有列資料封存在暫存檔中 (不在 heap 中)
+     */
+    public boolean isOffHeap() {
+        return store.isChunked();
+    }
+
+    /**
+     * 仍存於 heap 中的列數，其餘已封存在暫存檔
+     */
+    int heapRowCount() {
+        return store.heapRowCount();
+    }
+
+    /**
+     * 欄位是否以字典編碼 (相同的值共用同一個字串)
+     */
+    boolean isEncoded(String header) {
+        int column = columnOf(header);
+        return column >= 0 && store.isEncoded(column);
+    }
+
+    /**
+     * 暫存檔寫入失敗的原因 (之後的列改存於 heap)，沒有失敗時為 null
+     */
+    public IOException getOffHeapFailure() {
+        return store.chunkFailure();
+    }
+
+    /**
+     * 以二進位格式寫出目前的列 (依資料集順序)，之後可用 read 快速還原，不必重新解析活頁簿；
+     * 不適用於已封存到暫存檔的資料
+     */
+    public void write(DataOutputStream out) throws IOException {
+        store.write(out, rows, size);
+    }
+
+    /**
+     * 讀回 write 寫出的資料集，讀取後 in 的位置在資料結尾
+     *
+     * @throws IllegalArgumentException           內容不符合格式時
+     * @throws java.nio.BufferUnderflowException 內容被截斷時
+     */
+    public static ExcelDataset read(ByteBuffer in) {
+        RowStore store = RowStore.read(in);
+        int count = store.size();
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = i;
+        }
+        return new ExcelDataset(store, rows, count, true);
+    }
+
+    /**
+     * 直接以欄位值附加一列 (讀取檔案時使用，不必先建立 ExcelData)
+     *
+     * @param values 依 getHeaders 順序排列，缺少的欄位為 null
+     */
+    public void addRow(String[] values, LocalDate expiryDate) {
+        addId(size, store.append(values, expiryDate));
+    }
+
+    public String getValue(int index, String header) {
+        return store.value(rowId(index), header);
+    }
+
+    /**
+     * 欄位在列資料中的位置，不存在時為 -1；逐格讀取時先查一次，再以 getValue(int, int) 取值
+     */
+    public int columnOf(String header) {
+        Integer column = store.columnIndex.get(header);
+        return column != null ? column : -1;
+    }
+
+    /**
+     * 依 columnOf 取得的欄位位置讀值，不建立列的檢視物件；column 為 -1 時為 null
+     */
+    public String getValue(int index, int column) {
+        return column >= 0 ? store.value(rowId(index), column) : null;
+    }
+
+    public LocalDate getExpiryDate(int index) {
+        int day = store.expiryDay(rowId(index));
+        return day != RowStore.NO_DATE ? LocalDate.ofEpochDay(day) : null;
+    }
+
+    /**
+     * 依 today 與提醒天數計算每列的到期狀態，共用列資料的資料集 (篩選結果、快照) 一併適用；
+     * 基準與上次相同時不重新計算
+     */
+    public void classifyExpiry(LocalDate today, int reminderDays) {
+        ExpiryStatus current = store.expiryStatus;
+        if (current == null || !current.isFor(today.toEpochDay(), reminderDays)) {
+            store.expiryStatus = ExpiryStatus.classify(store, today.toEpochDay(), reminderDays);
+        }
+    }
+
+    /**
+     * 第 index 列的到期狀態 (ExpiryStatus 的常數)，尚未呼叫 classifyExpiry 時為 NONE
+     */
+    public byte getExpiryStatus(int index) {
+        ExpiryStatus status = store.expiryStatus;
+        return status != null ? status.of(rowId(index)) : ExpiryStatus.NONE;
+    }
+
+    /**
+     * 欄位值 (忽略前後空白) 等於 value 的條件，參數為本資料集的列索引
+     */
+    public IntPredicate valueEquals(String header, String value) {
+        Integer column = store.columnIndex.get(header);
+        if (column == null) {
+            return index -> false;
+        }
+        IntPredicate rowMatcher = store.valueEquals(column, value.trim());
+        return index -> rowMatcher.test(rows[index]);
+    }
+
+    /**
+     * 符合條件的列組成的新資料集 (共用列資料)
+     */
+    public ExcelDataset filter(IntPredicate predicate) {
+        int[] matched = new int[Math.max(size, 16)];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            checkCancelled(i);
+            if (predicate.test(i)) {
+                matched[count++] = rows[i];
+            }
+        }
+        return new ExcelDataset(store, matched, count, ascending);
+    }
+
+    /**
+     * 為篩選欄位建立反向索引，之後的增刪會同步維護
+     */
+    public void indexColumns(List<String> columns) {
+        ensureExclusive();
+        index = new ColumnBitmapIndex(store, columns, rows, size);
+    }
+
+    /**
+     * 欄位值 (去除前後空白) 等於 value 的列編號；value 為空白時表示欄位為空
+     * <p>
+     * 有索引的欄位直接取得點陣圖 (不可修改)，其餘逐列比對
+     */
+    public RowBitmap rowsWithValue(String header, String value) {
+        String target = value != null ? value.trim() : "";
+        if (index != null && index.covers(header)) {
+            return index.lookup(header, target);
+        }
+        return rowsMatching(header, actual -> RowStore.trimmedEquals(actual, target));
+    }
+
+    /**
+     * 欄位值符合 test 的列編號，逐列比對 (代碼欄位只對字典中的值判斷)
+     *
+     * @param test 參數為原始欄位值，空值為 null
+     */
+    public RowBitmap rowsMatching(String header, Predicate<String> test) {
+        Integer column = store.columnIndex.get(header);
+        if (column == null) {
+            // 不存在的欄位視為空值
+            return test.test(null) ? allRows() : new RowBitmap();
+        }
+        IntPredicate rowMatcher = store.valueMatches(column, test);
+        RowBitmap result = new RowBitmap();
+        for (int i = 0; i < size; i++) {
+            checkCancelled(i);
+            if (rowMatcher.test(rows[i])) {
+                result.add(rows[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 欄位中不重複的非空值 (去除前後空白)，依字串順序排列
+     * <p>
+     * 有索引的欄位回傳唯讀檢視，直接讀取索引中排序好的值，之後的增刪會立即反映；
+     * 其餘欄位逐列收集一次。
+     */
+    public List<String> distinctValues(String header) {
+        if (index == null || !index.covers(header)) {
+            TreeSet<String> values = new TreeSet<>();
+            for (int i = 0; i < size; i++) {
+                String value = store.value(rows[i], header);
+                if (value != null && !value.trim().isEmpty()) {
+                    values.add(value.trim());
+                }
+            }
+            return Collections.unmodifiableList(new ArrayList<>(values));
+        }
+        return new DistinctValues(header);
+    }
+
+    /**
+     * 索引中排序好的值，略過代表空值的空字串 (排在最前面)
+     */
+    private final class DistinctValues extends AbstractList<String> implements RandomAccess {
+        private final String header;
+
+        DistinctValues(String header) {
+            this.header = header;
+        }
+
+        @Override
+        public String get(int i) {
+            String[] sorted = index.sortedValues(header);
+            return sorted[i + emptyOffset(sorted)];
+        }
+
+        @Override
+        public int size() {
+            String[] sorted = index.sortedValues(header);
+            return sorted.length - emptyOffset(sorted);
+        }
+
+        private int emptyOffset(String[] sorted) {
+            return sorted.length > 0 && sorted[0].isEmpty() ? 1 : 0;
+        }
+    }
+
+    /**
+     * 為所有欄位建立全文搜尋索引，完成後共用同一份列資料的資料集 (複本、快照、查詢結果) 都會使用
+     * <p>
+     * 資料量大時耗時較長，應在背景執行緒上呼叫；只讀取列資料本體，不影響 UI 執行緒上的編輯。
+     * 執行緒被中斷時拋出 CancellationException，不會套用未完成的索引
+     */
+    public void buildFullTextIndex() {
+        // 建立期間 compact 可能換成新的列資料，索引只能套用到建立時讀取的那一份
+        RowStore target = store;
+        int[] columns = new int[target.columnNames.size()];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = c;
+        }
+        FullTextIndex fullText = new FullTextIndex(target, columns);
+        fullText.update();
+        target.fullText = fullText;
+    }
+
+    /**
+     * 目前的列資料是否已建立全文索引
+     */
+    boolean hasFullTextIndex() {
+        return store.fullText != null;
+    }
+
+    /**
+     * 任一欄位包含 text (不分大小寫) 的列編號
+     * <p>
+     * 已建立全文索引且字串夠長時只確認三字元交集後的候選列，否則逐欄比對
+     */
+    public RowBitmap rowsContainingText(String text) {
+        String key = text != null ? text.trim().toLowerCase() : "";
+        if (key.isEmpty()) {
+            return allRows();
+        }
+        FullTextIndex fullText = store.fullText;
+        if (fullText == null || key.length() < FullTextIndex.MIN_QUERY_LENGTH) {
+            RowBitmap matched = new RowBitmap();
+            for (String header : store.columnNames) {
+                matched = matched.or(rowsMatching(header, value -> value != null && value.toLowerCase().contains(key)));
+            }
+            return matched;
+        }
+        RowBitmap candidates = fullText.candidates(key).and(allRows());
+        if (FullTextIndex.isExact(key)) {
+            return candidates;
+        }
+        IntPredicate rowMatcher = fullText.rowMatcher(key);
+        RowBitmap result = new RowBitmap();
+        int[] checked = { 0 };
+        candidates.forEach(row -> {
+            checkCancelled(checked[0]++);
+            if (rowMatcher.test(row)) {
+                result.add(row);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 資料集中所有列的列編號 (不可修改)
+     */
+    public RowBitmap allRows() {
+        if (index != null) {
+            return index.members();
+        }
+        RowBitmap result = new RowBitmap();
+        for (int i = 0; i < size; i++) {
+            checkCancelled(i);
+            result.add(rows[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 依本資料集的順序取出點陣圖中的列 (共用列資料)
+     */
+    public ExcelDataset select(RowBitmap selected) {
+        int[] result = new int[Math.max(selected.cardinality(), 16)];
+        if (ascending) {
+            // 列編號與資料集順序一致，直接依位元順序取出
+            int[] count = { 0 };
+            selected.forEach(row -> result[count[0]++] = row);
+            return new ExcelDataset(store, result, count[0], true);
+        }
+        // 順序不一致時先展開成一般點陣圖，再依資料集順序逐列檢查
+        long[] words = new long[(store.size() >> 6) + 1];
+        selected.forEach(row -> words[row >>> 6] |= 1L << row);
+        int count = 0;
+        for (int i = 0; i < size && count < result.length; i++) {
+            checkCancelled(i);
+            int row = rows[i];
+            if ((words[row >>> 6] & (1L << row)) != 0) {
+                result[count++] = row;
+            }
+        }
+        return new ExcelDataset(store, result, count, false);
+    }
+
+    /**
+     * 共用同一份列資料的複本，之後各自增刪不互相影響
+     */
+    public ExcelDataset copy() {
+        return new ExcelDataset(store, Arrays.copyOf(rows, Math.max(size, 16)), size, ascending);
+    }
+
+    /**
+     * 目前內容的唯讀快照，供背景查詢使用
+     * <p>
+     * 快照與本資料集共用列索引陣列與篩選索引，任一方修改時才複製，
+     * 因此建立快照不必複製整份資料，之後的編輯也不會影響進行中的查詢。
+     * 本資料集仍只能在原本的執行緒上修改，其他執行緒只讀取快照。
+     */
+    public ExcelDataset snapshot() {
+        shared = true;
+        ExcelDataset snapshot = new ExcelDataset(store, rows, size, ascending);
+        snapshot.index = index;
+        snapshot.shared = true;
+        return snapshot;
+    }
+
+    /**
+     * 共用同一份列資料的空資料集，加入本資料集的列時不會複製內容
+     */
+    public ExcelDataset emptyCopy() {
+        return new ExcelDataset(store, new int[16], 0, true);
+    }
+
+    /**
+     * 修改與刪除留下的舊版本列是否已多於目前的列數 (至少 COMPACT_MIN_DEAD_ROWS 列)，成立時應呼叫 compact
+     */
+    public boolean needsCompaction() {
+        int dead = store.size() - size;
+        return dead >= COMPACT_MIN_DEAD_ROWS && dead > size;
+    }
+
+    /**
+     * 將列資料重建為只含本資料集的列，釋放修改與刪除留下的舊版本
+     * <p>
+     * 列資料只會附加，舊版本可能仍被快照或查詢結果使用，無法個別移除，因此改為建立新的 RowStore。
+     * views 是與本資料集共用列資料、須一併改用新列資料的資料集 (例如篩選結果)，
+     * 其中不在本資料集的列也會複製過去。其他快照與已取得的 ExcelData 仍指向原本的列資料，內容不變，
+     * 都不再被參照後原本的列資料即可回收。篩選欄位索引一併重建，全文索引與到期狀態需重新建立。
+     */
+    public void compact(ExcelDataset... views) {
+        RowStore compacted = store.emptyCopy();
+        int[] relocated = new int[store.size()];
+        Arrays.fill(relocated, -1);
+        RowStore previous = store;
+        rebase(compacted, relocated);
+        for (ExcelDataset view : views) {
+            if (view != this && view.store == previous) {
+                view.rebase(compacted, relocated);
+            }
+        }
+        compacted.trimToSize();
+    }
+
+    /**
+     * 改用 compacted 中的列，relocated 為原列編號 -> 新列編號 (尚未複製的為 -1)
+     */
+    private void rebase(RowStore compacted, int[] relocated) {
+        int[] moved = new int[Math.max(size, 16)];
+        boolean inOrder = true;
+        for (int i = 0; i < size; i++) {
+            int id = relocated[rows[i]];
+            if (id < 0) {
+                id = compacted.append(store, rows[i]);
+                relocated[rows[i]] = id;
+            }
+            moved[i] = id;
+            inOrder = inOrder && (i == 0 || moved[i - 1] < id);
+        }
+        List<String> indexed = index != null ? index.columnNames() : null;
+        store = compacted;
+        rows = moved;
+        ascending = inOrder;
+        shared = false;
+        index = indexed != null ? new ColumnBitmapIndex(compacted, indexed, rows, size) : null;
+        modCount++;
+    }
+
+    /**
+     * 讀取完成後釋放預留空間
+     */
+    public void trimToSize() {
+        store.trimToSize();
+        if (rows.length > size) {
+            ensureExclusive();
+            rows = Arrays.copyOf(rows, size);
+        }
+    }
+
+    @Override
+    public ExcelData get(int index) {
+        return new ExcelData(store, rowId(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(int index, ExcelData data) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        addId(index, idOf(data));
+    }
+
+    @Override
+    public ExcelData set(int position, ExcelData data) {
+        ExcelData previous = get(position);
+        int id = idOf(data);
+        ensureExclusive();
+        if (index != null) {
+            index.remove(rows[position]);
+            index.add(id);
+        }
+        rows[position] = id;
+        ascending = ascending && isInOrder(position, id);
+        return previous;
+    }
+
+    @Override
+    public ExcelData remove(int position) {
+        ExcelData previous = get(position);
+        ensureExclusive();
+        if (index != null) {
+            index.remove(rows[position]);
+        }
+        System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        ensureExclusive();
+        if (index != null) {
+            index.clear();
+        }
+        size = 0;
+        ascending = true;
+        modCount++;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        // 同一份列資料的檢視直接比對列編號，不必逐列建立檢視
+        if (o instanceof ExcelData && ((ExcelData) o).isViewOf(store)) {
+            int id = ((ExcelData) o).getViewRow();
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == id) {
+                    return i;
+                }
+            }
+        }
+        return super.indexOf(o);
+    }
+
+    private int rowId(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return rows[index];
+    }
+
+    private int idOf(ExcelData data) {
+        return data.isViewOf(store) ? data.getViewRow() : store.append(data);
+    }
+
+    private void addId(int position, int id) {
+        ensureExclusive();
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size + (size >> 1) + 1);
+        }
+        System.arraycopy(rows, position, rows, position + 1, size - position);
+        rows[position] = id;
+        size++;
+        modCount++;
+        ascending = ascending && isInOrder(position, id);
+        if (index != null) {
+            index.add(id);
+        }
+    }
+
+    /**
+     * 與快照共用時先複製列索引陣列與索引
+     */
+    private void ensureExclusive() {
+        if (shared) {
+            rows = rows.clone();
+            if (index != null) {
+                index = index.copy();
+            }
+            shared = false;
+        }
+    }
+
+    /**
+     * 背景查詢被取消時中斷逐列掃描，每隔一段才檢查一次以免拖慢迴圈
+     */
+    static void checkCancelled(int i) {
+        if ((i & 0xFFFF) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("查詢已取消");
+        }
+    }
+
+    private boolean isInOrder(int position, int id) {
+        return (position == 0 || rows[position - 1] < id) && (position + 1 >= size || id < rows[position + 1]);
+    }
+}
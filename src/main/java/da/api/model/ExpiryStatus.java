@@ -0,0 +1,61 @@
+package da.api.model;
+
+/**
+ * 每列的到期狀態表 (以 RowStore 列編號為索引，每列一個 byte)
+ * <p>
+ * 依「今天」與提醒天數計算一次，表格繪製時只需查表，不必每格重新計算日期差與讀取設定。
+ * 已寫入的列不會改變，建立之後才附加的列在查詢時以相同的基準即時計算；
+ * 日期或提醒天數改變時 (跨過午夜、修改設定) 需重新建立。建立後不再修改。
+ */
+public final class ExpiryStatus {
+    // 沒有到期日
+    public static final byte NONE = 0;
+    // 尚未進入提醒期間
+    public static final byte VALID = 1;
+    // 提醒天數內即將到期 (含今天)
+    public static final byte EXPIRING = 2;
+    // 已經過期
+    public static final byte EXPIRED = 3;
+
+    private final ExcelDataset.RowStore store;
+    private final byte[] statuses;
+    // 計算基準：今天 (epoch day) 與提醒天數
+    private final long today;
+    private final int reminderDays;
+
+    private ExpiryStatus(ExcelDataset.RowStore store, long today, int reminderDays) {
+        this.store = store;
+        this.today = today;
+        this.reminderDays = reminderDays;
+        this.statuses = new byte[store.size()];
+        for (int row = 0; row < statuses.length; row++) {
+            statuses[row] = classify(store.expiryDay(row));
+        }
+    }
+
+    static ExpiryStatus classify(ExcelDataset.RowStore store, long today, int reminderDays) {
+        return new ExpiryStatus(store, today, reminderDays);
+    }
+
+    /**
+     * 是否以相同的基準計算 (相同時不必重新建立)
+     */
+    boolean isFor(long today, int reminderDays) {
+        return this.today == today && this.reminderDays == reminderDays;
+    }
+
+    byte of(int row) {
+        return row < statuses.length ? statuses[row] : classify(store.expiryDay(row));
+    }
+
+    private byte classify(int expiryDay) {
+        if (expiryDay == ExcelDataset.RowStore.NO_DATE) {
+            return NONE;
+        }
+        long days = expiryDay - today;
+        if (days < 0) {
+            return EXPIRED;
+        }
+        return days <= reminderDays ? EXPIRING : VALID;
+    }
+}
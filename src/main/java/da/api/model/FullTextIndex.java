@@ -0,0 +1,134 @@
+package da.api.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * 全文搜尋用的三字元 (trigram) 索引：小寫的連續三個字元 -> 任一欄位含有它的列編號點陣圖
+ * <p>
+ * 位元位置是 RowStore 的列編號。已寫入的列不會再改變，因此索引只需補上建立之後新附加的列，
+ * 被刪除的列則在查詢時與資料集的列取交集排除，同一份索引可供共用列資料的所有資料集使用。
+ * 查詢時取各個三字元點陣圖的交集作為候選，再逐列確認是否真的包含整個查詢字串。
+ * <p>
+ * 建立與查詢都可能在背景執行緒上進行，存取三字元表的方法皆已同步。
+ */
+public class FullTextIndex {
+    // 查詢字串至少需要的長度，較短時改為逐欄比對
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private final ExcelDataset.RowStore store;
+    private final int[] columns;
+    private final Map<Long, RowBitmap> trigrams = new HashMap<>();
+    // 已建立索引的列數 (列編號 0 ~ indexedRows - 1)
+    private int indexedRows;
+
+    FullTextIndex(ExcelDataset.RowStore store, int[] columns) {
+        this.store = store;
+        this.columns = columns;
+    }
+
+    /**
+     * 為目前所有列建立索引，也用於補上之後新附加的列；資料量大時應在背景執行緒上呼叫
+     */
+    public synchronized void update() {
+        int size = store.size();
+        // 字典編碼的欄位中相同的值只拆解一次
+        Map<String, long[]> shared = new HashMap<>();
+        for (int row = indexedRows; row < size; row++) {
+            ExcelDataset.checkCancelled(row);
+            for (int column : columns) {
+                String value = store.value(row, column);
+                if (value == null || value.length() < MIN_QUERY_LENGTH) {
+                    continue;
+                }
+                long[] grams = store.isEncoded(column) ? shared.computeIfAbsent(value, FullTextIndex::trigramsOf)
+                        : trigramsOf(value);
+                for (long gram : grams) {
+                    trigrams.computeIfAbsent(gram, g -> new RowBitmap()).add(row);
+                }
+            }
+            indexedRows = row + 1;
+        }
+    }
+
+    /**
+     * 可能包含 key (已轉為小寫，長度至少 MIN_QUERY_LENGTH) 的列編號，需再逐列確認
+     */
+    synchronized RowBitmap candidates(String key) {
+        update();
+        List<RowBitmap> bitmaps = new ArrayList<>();
+        for (long gram : trigramsOf(key)) {
+            RowBitmap bitmap = trigrams.get(gram);
+            if (bitmap == null) {
+                return new RowBitmap();
+            }
+            bitmaps.add(bitmap);
+        }
+        // 由最少的開始取交集，結果很快就會變小
+        bitmaps.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        RowBitmap result = bitmaps.get(0).copy();
+        for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+            result = result.and(bitmaps.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 列中是否有任一索引欄位包含 key (已轉為小寫) 的條件，參數為列編號
+     * <p>
+     * 字典編碼的欄位先判斷 (每個值只比對一次，之後查表)，其餘欄位才逐列轉小寫比對
+     */
+    IntPredicate rowMatcher(String key) {
+        List<IntPredicate> encoded = new ArrayList<>();
+        List<IntPredicate> plain = new ArrayList<>();
+        for (int column : columns) {
+            IntPredicate matcher = store.valueMatches(column,
+                    value -> value != null && value.toLowerCase().contains(key));
+            (store.isEncoded(column) ? encoded : plain).add(matcher);
+        }
+        encoded.addAll(plain);
+        IntPredicate[] matchers = encoded.toArray(new IntPredicate[0]);
+        return row -> {
+            for (IntPredicate matcher : matchers) {
+                if (matcher.test(row)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * 查詢字串剛好是一個三字元時，候選列就是結果，不必再確認
+     */
+    static boolean isExact(String key) {
+        return key.length() == MIN_QUERY_LENGTH;
+    }
+
+    /**
+     * 值 (轉為小寫後) 中不重複的三字元
+     */
+    private static long[] trigramsOf(String value) {
+        String key = value.toLowerCase();
+        int count = key.length() - 2;
+        if (count <= 0) {
+            return new long[0];
+        }
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = ((long) key.charAt(i) << 32) | ((long) key.charAt(i + 1) << 16) | key.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+}
@@ -0,0 +1,83 @@
+package da.api.service;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * 以字元數估算欄寬，取代逐格量測字型的 Sheet.autoSizeColumn
+ * <p>
+ * 寫入時記錄每欄最大的顯示寬度，全形字元 (中日韓文字、全形符號) 以兩個字元寬計算，
+ * 寫完後一次設定欄寬。不需要 AWT 字型，在 headless 環境與 SXSSF 下皆可使用。
+ */
+public class ColumnWidthEstimator {
+    // Excel 欄寬上限為 255 個字元
+    private static final int MAX_CHARS = 255;
+    // 左右留白
+    private static final int PADDING_CHARS = 2;
+
+    private final int[] maxWidths;
+
+    public ColumnWidthEstimator(int columnCount) {
+        this.maxWidths = new int[columnCount];
+    }
+
+    /**
+     * 記錄一個儲存格的內容
+     */
+    public void track(int column, String value) {
+        if (value == null || column < 0 || column >= maxWidths.length) {
+            return;
+        }
+        // 已達上限或字串長度不可能超過目前最大值時略過計算
+        int current = maxWidths[column];
+        if (current >= MAX_CHARS || value.length() * 2 <= current) {
+            return;
+        }
+        maxWidths[column] = Math.max(current, displayWidth(value));
+    }
+
+    /**
+     * 將估算結果套用到工作表
+     */
+    public void apply(Sheet sheet) {
+        for (int i = 0; i < maxWidths.length; i++) {
+            int chars = Math.min(maxWidths[i] + PADDING_CHARS, MAX_CHARS);
+            sheet.setColumnWidth(i, chars * 256);
+        }
+    }
+
+    public int getDisplayWidth(int column) {
+        return maxWidths[column];
+    }
+
+    /**
+     * 計算字串的顯示寬度 (半形字元為 1，全形字元為 2)
+     */
+    public static int displayWidth(String value) {
+        int width = 0;
+        for (int i = 0; i < value.length();) {
+            int codePoint = value.codePointAt(i);
+            width += isWide(codePoint) ? 2 : 1;
+            i += Character.charCount(codePoint);
+        }
+        return width;
+    }
+
+    /**
+     * 依 Unicode East Asian Width 的寬字元 (W/F) 範圍判斷
+     */
+    static boolean isWide(int cp) {
+        return (cp >= 0x1100 && cp <= 0x115F) // 韓文字母
+                || (cp >= 0x2E80 && cp <= 0x303E) // 中日韓部首、標點
+                || (cp >= 0x3041 && cp <= 0x33FF) // 假名、注音、中日韓相容字元
+                || (cp >= 0x3400 && cp <= 0x4DBF) // 中日韓擴充 A
+                || (cp >= 0x4E00 && cp <= 0x9FFF) // 中日韓統一表意文字
+                || (cp >= 0xA000 && cp <= 0xA4CF) // 彝文
+                || (cp >= 0xAC00 && cp <= 0xD7A3) // 韓文音節
+                || (cp >= 0xF900 && cp <= 0xFAFF) // 中日韓相容表意文字
+                || (cp >= 0xFE30 && cp <= 0xFE4F) // 中日韓相容形式
+                || (cp >= 0xFF00 && cp <= 0xFF60) // 全形 ASCII
+                || (cp >= 0xFFE0 && cp <= 0xFFE6) // 全形符號
+                || (cp >= 0x1F300 && cp <= 0x1F64F) // 表情符號
+                || (cp >= 0x20000 && cp <= 0x3FFFD); // 中日韓擴充 B 以後
+    }
+}
@@ -0,0 +1,225 @@
+package da.api.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * 存放在暫存檔中的共用字串表
+ * <p>
+ * 讀取時把每個字串依序寫入暫存檔，heap 中只保留每個字串的檔案位置 (8 bytes)，
+ * 查詢時從記憶體映射讀回。內容與 ReadOnlySharedStringsTable (不含注音) 相同，
+ * 供磁碟暫存模式讀取共用字串數量龐大的活頁簿。暫存檔在 close 時刪除。
+ */
+final class DiskSharedStrings implements AutoCloseable {
+    static final String PREFIX = "strings-";
+    static final String SUFFIX = ".sst";
+
+    private final File file;
+    private final FileChannel channel;
+    private final long[] offsets;
+    private final int count;
+    // 檔案不超過 2GB 時整個映射，否則逐次讀取
+    private final MappedByteBuffer mapped;
+
+    private DiskSharedStrings(File file, long[] offsets, int count) throws IOException {
+        this.file = file;
+        this.offsets = offsets;
+        this.count = count;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        long length = channel.size();
+        this.mapped = length > 0 && length <= Integer.MAX_VALUE
+                ? channel.map(FileChannel.MapMode.READ_ONLY, 0, length)
+                : null;
+    }
+
+    /**
+     * 讀取活頁簿的共用字串表，寫入 directory 中的暫存檔
+     */
+    static DiskSharedStrings read(OPCPackage pkg, File directory) throws Exception {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("無法建立暫存目錄: " + directory.getPath());
+        }
+        File file = File.createTempFile(PREFIX, SUFFIX, directory);
+        file.deleteOnExit();
+        try {
+            StringsHandler handler;
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+                handler = new StringsHandler(out);
+                List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+                if (!parts.isEmpty()) {
+                    try (InputStream in = parts.get(0).getInputStream()) {
+                        XMLReader parser = XMLHelper.newXMLReader();
+                        parser.setContentHandler(handler);
+                        parser.parse(new InputSource(in));
+                    }
+                }
+            }
+            return new DiskSharedStrings(file, handler.offsets, handler.count);
+        } catch (Exception e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * 對應 ReadOnlySharedStringsTable.getItemAt(index).getString()
+     */
+    String get(int index) throws IOException {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("共用字串索引超出範圍: " + index);
+        }
+        long offset = offsets[index];
+        byte[] bytes;
+        if (mapped != null) {
+            ByteBuffer view = mapped.duplicate();
+            view.position((int) offset);
+            bytes = new byte[view.getInt()];
+            view.get(bytes);
+        } else {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            readFully(length, offset);
+            ByteBuffer content = ByteBuffer.allocate(length.getInt(0));
+            readFully(content, offset + 4);
+            bytes = content.array();
+        }
+        // 與 POI 相同，解開 _xHHHH_ 跳脫字元
+        return new XSSFRichTextString(new String(bytes, StandardCharsets.UTF_8)).getString();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("共用字串暫存檔內容不完整");
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            // 仍被映射時 (Windows) 無法刪除，結束程式或下次啟動時再刪除
+        }
+    }
+
+    /**
+     * 刪除 directory 中先前留下的暫存檔
+     */
+    static void deleteStale(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        for (File stale : files) {
+            try {
+                Files.deleteIfExists(stale.toPath());
+            } catch (IOException e) {
+                // 其他執行中的程式仍在使用
+            }
+        }
+    }
+
+    /**
+     * 解析 sharedStrings.xml，每個 si 的文字 (rich text 片段合併，略過注音) 依序寫出
+     */
+    private static class StringsHandler extends DefaultHandler {
+        private final DataOutputStream out;
+        private final StringBuilder text = new StringBuilder();
+        private long[] offsets = new long[1024];
+        private int count = 0;
+        private boolean inText;
+        private boolean inPhonetic;
+        // DataOutputStream.size() 超過 2GB 後不再準確，自行累計
+        private long written = 0;
+
+        StringsHandler(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "si":
+                    text.setLength(0);
+                    break;
+                case "t":
+                    inText = true;
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText && !inPhonetic) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "t":
+                    inText = false;
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "si":
+                    write();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void write() throws SAXException {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = written;
+            byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new SAXException("寫入共用字串暫存檔失敗", e);
+            }
+            written += 4 + bytes.length;
+        }
+    }
+}
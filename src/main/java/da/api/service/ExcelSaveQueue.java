@@ -0,0 +1,170 @@
+package da.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import da.api.model.ExcelData;
+import da.api.util.LogManager;
+
+/**
+ * 背景寫入佇列
+ * <p>
+ * 儲存請求在專用的寫入執行緒上依序執行，不阻塞 UI。
+ * 寫入進行中累積的多筆請求會合併為一次完整儲存 (以最後一筆的資料快照為準)，
+ * 每筆請求的結果再透過 callbackExecutor 回報。
+ */
+public class ExcelSaveQueue implements AutoCloseable {
+
+    private static class SaveRequest {
+        final List<ExcelData> snapshot;
+        final Predicate<ExcelService> write;
+        final Consumer<Boolean> callback;
+
+        SaveRequest(List<ExcelData> snapshot, Predicate<ExcelService> write, Consumer<Boolean> callback) {
+            this.snapshot = snapshot;
+            this.write = write;
+            this.callback = callback;
+        }
+    }
+
+    // 關閉時等待未完成寫入的時間上限
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final ExcelService excelService;
+    private final Executor callbackExecutor;
+    private final ExecutorService writer;
+    private final List<SaveRequest> pending = new ArrayList<>();
+
+    /**
+     * @param callbackExecutor 執行結果回呼的執行器 (UI 使用 SwingUtilities::invokeLater)
+     */
+    public ExcelSaveQueue(ExcelService excelService, Executor callbackExecutor) {
+        this.excelService = excelService;
+        this.callbackExecutor = callbackExecutor;
+        // 非 daemon 執行緒，確保視窗關閉後仍會寫完已排入的資料
+        this.writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "ExcelWriter"));
+    }
+
+    /**
+     * 排入一筆儲存請求
+     *
+     * @param snapshot 變更後的完整資料快照，合併寫入時使用
+     * @param write    單獨執行時的寫入方式 (例如 appendRow)
+     * @param callback 寫入結果
+     */
+    public void submit(List<ExcelData> snapshot, Predicate<ExcelService> write, Consumer<Boolean> callback) {
+        synchronized (pending) {
+            pending.add(new SaveRequest(snapshot, write, callback));
+            // 佇列由空變為非空時才排程，之後的請求會由同一次 drain 一併處理
+            if (pending.size() == 1) {
+                writer.execute(this::drain);
+            }
+        }
+    }
+
+    /**
+     * 等待目前已排入的請求全部寫完
+     */
+    public void flush() {
+        try {
+            writer.submit(() -> {
+            }).get();
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // 已關閉
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LogManager.getInstance().error("等待背景寫入完成時發生錯誤: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 已排入的請求全部寫完後，在寫入執行緒上執行 task，不等待完成
+     * <p>
+     * 須與寫入依序進行的操作 (例如變更欄位) 由此排入，UI 不必以 flush 等待；
+     * task 需要更新畫面時自行切回 UI 執行緒
+     */
+    public void execute(Runnable task) {
+        try {
+            writer.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    LogManager.getInstance().error("背景工作發生未預期錯誤: " + e.getMessage());
+                }
+            });
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // 已關閉
+        }
+    }
+
+    /**
+     * 寫完已排入的請求後停止寫入執行緒
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LogManager.getInstance().error("背景寫入逾時，部分變更可能未儲存");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 在另一個執行緒上 close，不阻塞呼叫端 (例如 UI 執行緒)；寫完後以 callbackExecutor 執行 done
+     *
+     * @param done 關閉完成後執行，可為 null
+     */
+    public void closeAsync(Runnable done) {
+        // 非 daemon 執行緒，程式結束前仍會等待寫完
+        Thread closer = new Thread(() -> {
+            close();
+            if (done != null) {
+                callbackExecutor.execute(done);
+            }
+        }, "ExcelWriterClose");
+        closer.start();
+    }
+
+    private void drain() {
+        List<SaveRequest> batch;
+        synchronized (pending) {
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        boolean success = false;
+        try {
+            if (batch.size() == 1) {
+                success = batch.get(0).write.test(excelService);
+            } else {
+                // 多筆變更合併為一次完整儲存
+                LogManager.getInstance().info("合併 " + batch.size() + " 筆變更為一次儲存");
+                success = excelService.saveAllData(batch.get(batch.size() - 1).snapshot);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            LogManager.getInstance().error("背景寫入時發生未預期錯誤: " + e.getMessage());
+        }
+
+        boolean result = success;
+        for (SaveRequest request : batch) {
+            if (request.callback != null) {
+                callbackExecutor.execute(() -> request.callback.accept(result));
+            }
+        }
+    }
+}
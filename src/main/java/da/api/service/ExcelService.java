@@ -1,36 +1,77 @@
 package da.api.service;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.CreationHelper;
 import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import da.api.model.ColumnConfig;
 import da.api.model.ExcelData;
+import da.api.model.ExcelDataset;
+import da.api.util.AtomicFileWriter;
 import da.api.util.LogManager;
 
 public class ExcelService {
 
+    /**
+     * 儲存時的欄寬調整方式
+     */
+    public enum ColumnWidthMode {
+        // 以 AWT 字型量測每個儲存格 (Sheet.autoSizeColumn)，精確但很慢
+        EXACT,
+        // 寫入時依字元數估算，全形字元算兩格
+        ESTIMATED
+    }
+
+    // SXSSF 寫入時保留在記憶體中的列數
+    private static final int WRITE_ROW_WINDOW = 200;
+
     private String filePath;
     private ColumnConfig columnConfig;
+    // 預設以 SAX 串流模式讀取，關閉時改用 XSSFWorkbook 完整載入
+    private boolean streamingRead = true;
+    private ColumnWidthMode columnWidthMode = ColumnWidthMode.ESTIMATED;
+    // 已載入資料的二進位快照，活頁簿未改變時不必重新解析
+    private SnapshotCache snapshotCache;
+    // 磁碟暫存模式的暫存目錄，為 null 時資料全部放在 heap 中
+    private File offHeapDirectory;
+
+    // 寫檔與記錄指紋須一起完成，檢查外部變更時才不會看到寫到一半的狀態
+    private final Object fileLock = new Object();
+    private volatile FileFingerprint lastWrittenFingerprint;
 
     public ExcelService(String filePath) {
         this.filePath = filePath;
@@ -53,12 +94,71 @@ public class ExcelService {
         return columnConfig;
     }
 
+    public boolean isStreamingRead() {
+        return streamingRead;
+    }
+
+    public void setStreamingRead(boolean streamingRead) {
+        this.streamingRead = streamingRead;
+    }
+
+    public ColumnWidthMode getColumnWidthMode() {
+        return columnWidthMode;
+    }
+
+    public void setColumnWidthMode(ColumnWidthMode columnWidthMode) {
+        this.columnWidthMode = columnWidthMode;
+    }
+
+    /**
+     * 設定資料快照快取；未設定時每次讀取都解析活頁簿
+     */
+    public void setSnapshotCache(SnapshotCache snapshotCache) {
+        this.snapshotCache = snapshotCache;
+    }
+
+    /**
+     * 設定磁碟暫存目錄：讀取的列資料與共用字串表存放到其中記憶體映射的暫存檔，供數百萬列的檔案使用。
+     * 磁碟暫存模式不使用資料快照 (快照會把資料讀回 heap)
+     */
+    public void setOffHeapDirectory(File offHeapDirectory) {
+        this.offHeapDirectory = offHeapDirectory;
+    }
+
+    private boolean usesSnapshots() {
+        return snapshotCache != null && offHeapDirectory == null;
+    }
+
+    /**
+     * 目前檔案內容的指紋 (寫入進行中時會等待寫完)
+     */
+    public FileFingerprint currentFingerprint() {
+        synchronized (fileLock) {
+            return FileFingerprint.of(filePath);
+        }
+    }
+
+    /**
+     * 本服務最近一次寫入後的檔案指紋
+     */
+    public FileFingerprint getLastWrittenFingerprint() {
+        return lastWrittenFingerprint;
+    }
+
+    /**
+     * 以原子方式寫入檔案並記錄寫入後的指紋
+     */
+    private void writeFile(AtomicFileWriter.StreamWriter writer) throws IOException {
+        synchronized (fileLock) {
+            AtomicFileWriter.write(filePath, writer);
+            lastWrittenFingerprint = FileFingerprint.of(filePath);
+        }
+    }
+
     public void createEmptyExcelFile() {
         try (Workbook wb = new XSSFWorkbook()) {
             wb.createSheet("API Keys");
-            try (FileOutputStream fos = new FileOutputStream(filePath)) {
-                wb.write(fos);
-            }
+            writeFile(wb::write);
         } catch (IOException e) {
             e.printStackTrace();
             LogManager.getInstance().error("無法建立空白檔案: " + filePath);
@@ -72,6 +172,26 @@ public class ExcelService {
             return headers;
         }
 
+        if (streamingRead) {
+            try {
+                // 只解析第一列即停止，不需載入整個工作表
+                new StreamingSheetReader(filePath, offHeapDirectory).read((rowIndex, cells) -> {
+                    if (rowIndex == 0) {
+                        for (StreamingSheetReader.SheetCell cell : cells) {
+                            if (cell != null) {
+                                headers.add(getCellValue(cell));
+                            }
+                        }
+                    }
+                    return false;
+                });
+                return headers;
+            } catch (IOException e) {
+                LogManager.getInstance().warn("串流讀取標題失敗，改用完整載入: " + e.getMessage());
+                headers.clear();
+            }
+        }
+
         try (FileInputStream file = new FileInputStream(filePath); Workbook wb = new XSSFWorkbook(file)) {
             // 檢查是否有 Sheet
             if (wb.getNumberOfSheets() == 0)
@@ -91,23 +211,259 @@ public class ExcelService {
         return headers;
     }
 
-    public List<ExcelData> readAllData() {
+    /**
+     * 讀取一列後的欄位值，依資料集欄位順序排列，檔案中沒有的欄位為 null
+     */
+    private interface RowSink {
+        void accept(String[] values, LocalDate expiryDate);
+    }
+
+    /**
+     * 讀取全部資料到欄式資料集
+     *
+     * @throws CancellationException 執行緒在讀取途中被中斷時 (只讀到一部分)
+     */
+    public ExcelDataset readAllData() {
         if (columnConfig != null) {
-            return readDataWithConfig();
+            FileFingerprint fingerprint = usesSnapshots() ? currentFingerprint() : null;
+            ExcelDataset cached = readSnapshot(fingerprint);
+            if (cached != null) {
+                return cached;
+            }
+            if (streamingRead) {
+                ExcelDataset dataset = newDataset();
+                boolean streamed = readRows(dataset.getHeaders(), dataset::addRow);
+                // 被中斷時只讀到一部分，不可當成完整資料回傳
+                checkCancelled();
+                if (streamed) {
+                    return finishLoad(dataset, fingerprint);
+                }
+                LogManager.getInstance().warn("串流讀取失敗，改用完整載入: " + filePath);
+            }
+            ExcelDataset dataset = newDataset();
+            readDataWithConfig(dataset.getHeaders(), dataset::addRow);
+            checkCancelled();
+            return finishLoad(dataset, fingerprint);
         }
         // 如果沒有配置但有檔案，也許可讀取原始數據，但既然 ExcelData 依賴 header，這裡可能返回空或拋錯
         // 基於之前的邏輯，直接返回空
-        return new ArrayList<>();
+        return new ExcelDataset(new ArrayList<>(), null);
     }
 
-    private List<ExcelData> readDataWithConfig() {
-        List<ExcelData> dataList = new ArrayList<>();
-        List<String> headers = columnConfig.getAllHeaders();
+    /**
+     * 在背景讀取全部資料：每讀完 interval 列以目前已讀的列 (共用列資料的快照) 呼叫 progress，
+     * 讓畫面能先顯示部分資料。執行緒被中斷時停止讀取並丟出 CancellationException，已讀的列隨之釋放。
+     *
+     * @param progress 在讀取執行緒上呼叫，快照可交給其他執行緒讀取
+     */
+    public ExcelDataset loadAllData(int interval, Consumer<ExcelDataset> progress) {
+        if (columnConfig == null) {
+            return new ExcelDataset(new ArrayList<>(), null);
+        }
+        // 活頁簿與上次讀取時相同，直接還原快照
+        FileFingerprint fingerprint = usesSnapshots() ? currentFingerprint() : null;
+        ExcelDataset cached = readSnapshot(fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+        if (streamingRead) {
+            ExcelDataset dataset = newDataset();
+            boolean streamed = readRows(dataset.getHeaders(), progressSink(dataset, interval, progress));
+            checkCancelled();
+            if (streamed) {
+                return finishLoad(dataset, fingerprint);
+            }
+            LogManager.getInstance().warn("串流讀取失敗，改用完整載入: " + filePath);
+        }
+        ExcelDataset dataset = newDataset();
+        // 清除串流讀取失敗前已顯示的部分資料
+        progress.accept(dataset.snapshot());
+        readDataWithConfig(dataset.getHeaders(), progressSink(dataset, interval, progress));
+        checkCancelled();
+        return finishLoad(dataset, fingerprint);
+    }
+
+    private static RowSink progressSink(ExcelDataset dataset, int interval, Consumer<ExcelDataset> progress) {
+        return (values, expiryDate) -> {
+            dataset.addRow(values, expiryDate);
+            if (dataset.size() % interval == 0) {
+                progress.accept(dataset.snapshot());
+            }
+        };
+    }
+
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("讀取已取消");
+        }
+    }
+
+    /**
+     * 以 SAX 串流方式讀取資料，每解析完一列即交給 consumer
+     *
+     * @return 是否完整讀取成功 (被中斷時為 false)
+     */
+    public boolean readAllData(Consumer<ExcelData> consumer) {
+        if (columnConfig == null) {
+            return false;
+        }
+        List<String> columns = newDataset().getHeaders();
+        return readRows(columns, (values, expiryDate) -> {
+            ExcelData data = new ExcelData();
+            for (int c = 0; c < values.length; c++) {
+                if (values[c] != null) {
+                    data.setAttribute(columns.get(c), values[c]);
+                }
+            }
+            data.setExpiryDate(expiryDate);
+            consumer.accept(data);
+        });
+    }
+
+    /**
+     * 完整讀取後：釋放預留空間並為篩選欄位建立索引
+     * <p>
+     * 呼叫端須確認已讀到工作表結尾；快照只在讀取期間檔案未改變時寫入，
+     * 避免以整份檔案的指紋標記不完整或不一致的內容
+     */
+    private ExcelDataset finishLoad(ExcelDataset dataset, FileFingerprint fingerprint) {
+        checkCancelled();
+        dataset.trimToSize();
+        if (dataset.getOffHeapFailure() != null) {
+            LogManager.getInstance().warn("無法寫入磁碟暫存檔，部分資料改存於記憶體: " + dataset.getOffHeapFailure().getMessage());
+        }
+        if (usesSnapshots() && fingerprint != null && fingerprint.equals(currentFingerprint())) {
+            // 下次開啟時若活頁簿未改變，直接讀取快照
+            snapshotCache.write(filePath, fingerprint, dataset);
+        }
+        indexFilterColumns(dataset);
+        return dataset;
+    }
+
+    /**
+     * 與 fingerprint 相符且欄位設定相同的快照，沒有時回傳 null
+     */
+    private ExcelDataset readSnapshot(FileFingerprint fingerprint) {
+        if (!usesSnapshots() || fingerprint == null) {
+            return null;
+        }
+        ExcelDataset cached = snapshotCache.read(filePath, fingerprint);
+        if (cached == null) {
+            return null;
+        }
+        ExcelDataset expected = newDataset();
+        if (!cached.getHeaders().equals(expected.getHeaders())
+                || !java.util.Objects.equals(cached.getExpiryColumn(), expected.getExpiryColumn())) {
+            // 欄位設定已改變，重新解析
+            return null;
+        }
+        indexFilterColumns(cached);
+        return cached;
+    }
+
+    private void indexFilterColumns(ExcelDataset dataset) {
+        if (columnConfig.getSearchFilterColumns() != null) {
+            dataset.indexColumns(columnConfig.getSearchFilterColumns());
+        }
+    }
+
+    private ExcelDataset newDataset() {
+        return new ExcelDataset(columnConfig.getAllHeaders(), columnConfig.getExpiryDateColumn(), offHeapDirectory);
+    }
+
+    /**
+     * 以串流方式讀取所有資料列
+     *
+     * @return 是否讀到工作表結尾；發生錯誤或執行緒被中斷而提前結束時為 false
+     */
+    private boolean readRows(List<String> columns, RowSink sink) {
+        String expiryCol = columnConfig.getExpiryDateColumn();
+        int expiryIndex = expiryCol != null ? columns.indexOf(expiryCol) : -1;
+        // 資料集欄位 -> 檔案欄位索引，讀到標題列後建立；缺少標題列時全部視為不存在
+        int[] fileColumns = new int[columns.size()];
+        Arrays.fill(fileColumns, -1);
+
+        try {
+            return new StreamingSheetReader(filePath, offHeapDirectory).read((rowIndex, cells) -> {
+                // 讀取標題列映射 (名稱 -> 索引)
+                if (rowIndex == 0) {
+                    Map<String, Integer> headerMap = new HashMap<>();
+                    for (int i = 0; i < cells.length; i++) {
+                        if (cells[i] != null) {
+                            headerMap.put(getCellValue(cells[i]), i);
+                        }
+                    }
+                    mapColumns(columns, headerMap, fileColumns);
+                    return true;
+                }
+
+                // 填入動態屬性
+                String[] values = new String[columns.size()];
+                for (int c = 0; c < values.length; c++) {
+                    if (fileColumns[c] >= 0) {
+                        values[c] = getCellValue(cellAt(cells, fileColumns[c]));
+                    }
+                }
+
+                // 填入到期日
+                LocalDate expiryDate = null;
+                if (expiryIndex >= 0 && fileColumns[expiryIndex] >= 0) {
+                    StreamingSheetReader.SheetCell dateCell = cellAt(cells, fileColumns[expiryIndex]);
+                    if (dateCell != null) {
+                        try {
+                            if (dateCell.isDateFormatted()) {
+                                expiryDate = dateCell.getDateValue().toInstant()
+                                        .atZone(ZoneId.systemDefault()).toLocalDate();
+                                values[expiryIndex] = expiryDate.toString();
+                            } else if (dateCell.getCellType() == CellType.STRING) {
+                                String dateStr = dateCell.getStringValue().trim();
+                                if (!dateStr.isEmpty() && !dateStr.equals("無")) {
+                                    expiryDate = parseDateString(dateStr);
+                                    if (expiryDate != null) {
+                                        values[expiryIndex] = expiryDate.toString();
+                                    }
+                                }
+                            }
+                        } catch (Exception e) {
+                            LogManager.getInstance()
+                                    .error("無法解析日期: " + getCellValue(dateCell) + ", 列: " + (rowIndex + 1));
+                        }
+                    }
+                }
+
+                sink.accept(values, expiryDate);
+                // 背景讀取被取消時停止解析
+                return !Thread.currentThread().isInterrupted();
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+            LogManager.getInstance().error("串流讀取 Excel 資料時發生 IO 錯誤: " + e.getMessage());
+            return false;
+        } catch (Exception e) {
+            e.printStackTrace();
+            LogManager.getInstance().error("串流讀取 Excel 資料時發生未預期錯誤: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void mapColumns(List<String> columns, Map<String, Integer> headerMap, int[] fileColumns) {
+        for (int c = 0; c < fileColumns.length; c++) {
+            Integer colIndex = headerMap.get(columns.get(c));
+            fileColumns[c] = colIndex != null ? colIndex : -1;
+        }
+    }
+
+    private StreamingSheetReader.SheetCell cellAt(StreamingSheetReader.SheetCell[] cells, int index) {
+        return index < cells.length ? cells[index] : null;
+    }
+
+    private void readDataWithConfig(List<String> columns, RowSink sink) {
         String expiryCol = columnConfig.getExpiryDateColumn();
+        int expiryIndex = expiryCol != null ? columns.indexOf(expiryCol) : -1;
 
         try (FileInputStream file = new FileInputStream(filePath); Workbook wb = new XSSFWorkbook(file)) {
             if (wb.getNumberOfSheets() == 0)
-                return dataList;
+                return;
 
             Sheet ws = wb.getSheetAt(0);
 
@@ -119,56 +475,51 @@ public class ExcelService {
                     headerMap.put(getCellValue(cell), cell.getColumnIndex());
                 }
             }
+            int[] fileColumns = new int[columns.size()];
+            mapColumns(columns, headerMap, fileColumns);
 
-            for (int i = 1; i <= ws.getLastRowNum(); i++) {
+            for (int i = 1; i <= ws.getLastRowNum() && !Thread.currentThread().isInterrupted(); i++) {
                 Row row = ws.getRow(i);
                 if (row == null)
                     continue;
 
-                ExcelData data = new ExcelData();
-
                 // 填入動態屬性
-                for (String header : headers) {
-                    Integer colIndex = headerMap.get(header);
-                    if (colIndex != null) {
-                        String value = getCellValue(row.getCell(colIndex));
-                        data.setAttribute(header, value);
+                String[] values = new String[columns.size()];
+                for (int c = 0; c < values.length; c++) {
+                    if (fileColumns[c] >= 0) {
+                        values[c] = getCellValue(row.getCell(fileColumns[c]));
                     }
                 }
 
                 // 填入到期日
-                if (expiryCol != null) {
-                    Integer colIndex = headerMap.get(expiryCol);
-                    if (colIndex != null) {
-                        Cell dateCell = row.getCell(colIndex);
-                        if (dateCell != null) {
-                            try {
-                                if (dateCell.getCellType() == CellType.NUMERIC
-                                        && DateUtil.isCellDateFormatted(dateCell)) {
-                                    Date date = dateCell.getDateCellValue();
-                                    LocalDate localDate = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-                                    data.setExpiryDate(localDate);
-                                    // 同時將格式化的日期字串存入 attributes，以便顯示
-                                    data.setAttribute(expiryCol, localDate.toString());
-                                } else if (dateCell.getCellType() == CellType.STRING) {
-                                    String dateStr = dateCell.getStringCellValue().trim();
-                                    if (!dateStr.isEmpty() && !dateStr.equals("無")) {
-                                        LocalDate localDate = parseDateString(dateStr);
-                                        data.setExpiryDate(localDate);
-                                        // 同時將格式化的日期字串存入 attributes，以便顯示
-                                        if (localDate != null) {
-                                            data.setAttribute(expiryCol, localDate.toString());
-                                        }
+                LocalDate expiryDate = null;
+                if (expiryIndex >= 0 && fileColumns[expiryIndex] >= 0) {
+                    Cell dateCell = row.getCell(fileColumns[expiryIndex]);
+                    if (dateCell != null) {
+                        try {
+                            if (dateCell.getCellType() == CellType.NUMERIC
+                                    && DateUtil.isCellDateFormatted(dateCell)) {
+                                Date date = dateCell.getDateCellValue();
+                                expiryDate = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+                                // 同時將格式化的日期字串存入欄位，以便顯示
+                                values[expiryIndex] = expiryDate.toString();
+                            } else if (dateCell.getCellType() == CellType.STRING) {
+                                String dateStr = dateCell.getStringCellValue().trim();
+                                if (!dateStr.isEmpty() && !dateStr.equals("無")) {
+                                    expiryDate = parseDateString(dateStr);
+                                    // 同時將格式化的日期字串存入欄位，以便顯示
+                                    if (expiryDate != null) {
+                                        values[expiryIndex] = expiryDate.toString();
                                     }
                                 }
-                            } catch (Exception e) {
-                                LogManager.getInstance().error("無法解析日期: " + getCellValue(dateCell) + ", 列: " + (i + 1));
                             }
+                        } catch (Exception e) {
+                            LogManager.getInstance().error("無法解析日期: " + getCellValue(dateCell) + ", 列: " + (i + 1));
                         }
                     }
                 }
 
-                dataList.add(data);
+                sink.accept(values, expiryDate);
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -177,7 +528,6 @@ public class ExcelService {
             e.printStackTrace();
             LogManager.getInstance().error("讀取 Excel 資料時發生未預期錯誤: " + e.getMessage());
         }
-        return dataList;
     }
 
     public boolean saveAllData(List<ExcelData> dataList) {
@@ -191,15 +541,27 @@ public class ExcelService {
     }
 
     private boolean saveAllDataWithConfig(List<ExcelData> dataList) {
-        try (Workbook wb = new XSSFWorkbook()) {
-            Sheet ws = wb.createSheet("API Keys");
+        // 只在記憶體中保留固定列數，其餘列寫入暫存檔，儲存大量資料時記憶體用量固定
+        SXSSFWorkbook wb = new SXSSFWorkbook(WRITE_ROW_WINDOW);
+        wb.setCompressTempFiles(true);
+        try {
+            SXSSFSheet ws = wb.createSheet("API Keys");
+            ExcelStyleRegistry styles = new ExcelStyleRegistry(wb);
+            List<String> headers = columnConfig.getAllHeaders();
+
+            boolean exactWidth = columnWidthMode == ColumnWidthMode.EXACT;
+            ColumnWidthEstimator widths = new ColumnWidthEstimator(headers.size());
+            if (exactWidth) {
+                // 列被寫出暫存檔前先記錄欄寬，autoSizeColumn 才能涵蓋所有列
+                ws.trackAllColumnsForAutoSizing();
+            }
 
             // 寫入標題列
             Row headerRow = ws.createRow(0);
-            List<String> headers = columnConfig.getAllHeaders();
             for (int i = 0; i < headers.size(); i++) {
                 Cell cell = headerRow.createCell(i);
                 cell.setCellValue(headers.get(i));
+                widths.track(i, headers.get(i));
             }
 
             String expiryCol = columnConfig.getExpiryDateColumn();
@@ -219,29 +581,30 @@ public class ExcelService {
                             Date date = Date
                                     .from(data.getExpiryDate().atStartOfDay(ZoneId.systemDefault()).toInstant());
                             cell.setCellValue(date);
-
-                            CellStyle dateCellStyle = wb.createCellStyle();
-                            CreationHelper createHelper = wb.getCreationHelper();
-                            dateCellStyle.setDataFormat(createHelper.createDataFormat().getFormat("yyyy-mm-dd"));
-                            cell.setCellStyle(dateCellStyle);
+                            // 所有日期儲存格共用同一個樣式
+                            cell.setCellStyle(styles.getDateStyle());
+                            widths.track(j, ExcelStyleRegistry.DATE_FORMAT);
                         }
                     } else {
                         // 處理動態屬性
                         String value = data.getAttribute(header);
                         cell.setCellValue(value != null ? value : "");
+                        widths.track(j, value);
                     }
                 }
             }
 
-            // 自動調整欄寬
-            for (int i = 0; i < headers.size(); i++) {
-                ws.autoSizeColumn(i);
+            // 調整欄寬
+            if (exactWidth) {
+                for (int i = 0; i < headers.size(); i++) {
+                    ws.autoSizeColumn(i);
+                }
+            } else {
+                widths.apply(ws);
             }
 
-            // 寫入檔案
-            try (FileOutputStream fos = new FileOutputStream(filePath)) {
-                wb.write(fos);
-            }
+            // 寫入暫存檔後再取代原檔
+            writeFile(wb::write);
 
             return true;
         } catch (IOException e) {
@@ -252,6 +615,239 @@ public class ExcelService {
             e.printStackTrace();
             LogManager.getInstance().error("儲存 Excel 資料時發生未預期錯誤: " + e.getMessage());
             return false;
+        } finally {
+            // 刪除 SXSSF 產生的暫存檔
+            wb.dispose();
+            try {
+                wb.close();
+            } catch (IOException e) {
+                // 忽略關閉錯誤
+            }
+        }
+    }
+
+    /**
+     * 在檔案尾端新增一列，只改寫工作表 XML 而不重寫整個活頁簿
+     *
+     * @param dataList 新增後的完整資料，無法增量寫入時用來完整儲存
+     */
+    public boolean appendRow(List<ExcelData> dataList, ExcelData data) {
+        return patchRow(SheetRowPatcher.Operation.APPEND, -1, data, dataList);
+    }
+
+    /**
+     * 更新指定資料列
+     *
+     * @param index    資料列索引 (不含標題列)
+     * @param dataList 更新後的完整資料，無法增量寫入時用來完整儲存
+     */
+    public boolean updateRow(List<ExcelData> dataList, int index, ExcelData data) {
+        return patchRow(SheetRowPatcher.Operation.UPDATE, index, data, dataList);
+    }
+
+    /**
+     * 刪除指定資料列
+     *
+     * @param index    資料列索引 (不含標題列)
+     * @param dataList 刪除後的完整資料，無法增量寫入時用來完整儲存
+     */
+    public boolean deleteRow(List<ExcelData> dataList, int index) {
+        return patchRow(SheetRowPatcher.Operation.DELETE, index, null, dataList);
+    }
+
+    /**
+     * 以 SheetRowPatcher 改寫單一列，遇到無法安全改寫的情況時退回完整儲存
+     */
+    private boolean patchRow(SheetRowPatcher.Operation operation, int index, ExcelData data,
+            List<ExcelData> dataList) {
+        File file = new File(filePath);
+        if (columnConfig == null || columnConfig.getAllHeaders() == null || !file.exists()
+                || !columnConfig.getAllHeaders().equals(readHeaders())) {
+            return saveAllData(dataList);
+        }
+
+        try {
+            SheetPatchTarget target = findPatchTarget(operation);
+            if (target == null) {
+                return saveAllData(dataList);
+            }
+
+            SheetRowPatcher patcher = new SheetRowPatcher(operation, index,
+                    (prefix, rowNumber) -> buildRowXml(prefix, rowNumber, data, target));
+
+            // 原檔須在更名前關閉 (Windows 無法取代開啟中的檔案)，因此在寫入回呼內開啟與關閉
+            writeFile(fileOut -> {
+                try (ZipFile zip = new ZipFile(file)) {
+                    ZipOutputStream out = new ZipOutputStream(fileOut);
+                    Enumeration<? extends ZipEntry> entries = zip.entries();
+                    while (entries.hasMoreElements()) {
+                        ZipEntry entry = entries.nextElement();
+                        out.putNextEntry(new ZipEntry(entry.getName()));
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            if (entry.getName().equals(target.sheetEntry)) {
+                                // 合併小片段寫入，減少壓縮呼叫次數
+                                BufferedOutputStream sheetOut = new BufferedOutputStream(out,
+                                        64 * 1024);
+                                if (!patcher.patch(in, sheetOut)) {
+                                    // 中止寫入，原檔維持不變
+                                    throw new RowPatchException();
+                                }
+                                sheetOut.flush();
+                            } else {
+                                in.transferTo(out);
+                            }
+                        }
+                        out.closeEntry();
+                    }
+                    // 只結束 zip，實際檔案由 AtomicFileWriter 同步與關閉
+                    out.finish();
+                }
+            });
+            return true;
+        } catch (RowPatchException e) {
+            LogManager.getInstance().warn("無法增量更新工作表，改為完整儲存");
+            return saveAllData(dataList);
+        } catch (Exception e) {
+            e.printStackTrace();
+            LogManager.getInstance().error("增量儲存 Excel 資料時發生錯誤: " + e.getMessage());
+            return saveAllData(dataList);
+        }
+    }
+
+    /**
+     * 工作表無法增量改寫，需改為完整儲存
+     */
+    private static class RowPatchException extends IOException {
+        RowPatchException() {
+            super("row patch not applicable");
+        }
+    }
+
+    /**
+     * 增量改寫所需的工作表資訊
+     */
+    private static class SheetPatchTarget {
+        // 第一個工作表在 zip 中的路徑
+        String sheetEntry;
+        // 日期樣式索引，找不到時為 -1
+        int dateStyleIndex = -1;
+        boolean date1904;
+    }
+
+    /**
+     * @return 無法增量改寫時回傳 null
+     */
+    private SheetPatchTarget findPatchTarget(SheetRowPatcher.Operation operation) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(filePath, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return null;
+            }
+            sheets.next().close();
+
+            // 名稱定義 (列印範圍、篩選範圍等) 存於 workbook.xml，新增或刪除列後範圍不會跟著調整
+            if (operation != SheetRowPatcher.Operation.UPDATE && hasDefinedNames(reader)) {
+                return null;
+            }
+
+            SheetPatchTarget target = new SheetPatchTarget();
+            target.sheetEntry = sheets.getSheetPart().getPartName().getName().substring(1);
+            target.date1904 = StreamingSheetReader.isDate1904(reader);
+
+            // 優先使用本程式寫入的 yyyy-mm-dd 樣式，其次為任何日期格式
+            StylesTable stylesTable = reader.getStylesTable();
+            for (int i = 0; stylesTable != null && i < stylesTable.getNumCellStyles(); i++) {
+                XSSFCellStyle style = stylesTable.getStyleAt(i);
+                if (style == null) {
+                    continue;
+                }
+                if (ExcelStyleRegistry.DATE_FORMAT.equals(style.getDataFormatString())) {
+                    target.dateStyleIndex = i;
+                    break;
+                }
+                if (target.dateStyleIndex < 0
+                        && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())) {
+                    target.dateStyleIndex = i;
+                }
+            }
+            return target;
+        }
+    }
+
+    private static boolean hasDefinedNames(XSSFReader reader) throws Exception {
+        try (InputStream in = reader.getWorkbookData()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).contains("definedName");
+        }
+    }
+
+    /**
+     * 產生與 saveAllDataWithConfig 相同內容的列 XML
+     */
+    private String buildRowXml(String prefix, int rowNumber, ExcelData data, SheetPatchTarget target) {
+        List<String> headers = columnConfig.getAllHeaders();
+        String expiryCol = columnConfig.getExpiryDateColumn();
+        StringBuilder xml = new StringBuilder(64 * headers.size());
+        xml.append('<').append(prefix).append("row r=\"").append(rowNumber).append("\">");
+
+        for (int j = 0; j < headers.size(); j++) {
+            String header = headers.get(j);
+            String ref = CellReference.convertNumToColString(j) + rowNumber;
+
+            if (header.equals(expiryCol)) {
+                if (data.getExpiryDate() != null) {
+                    if (target.dateStyleIndex < 0) {
+                        throw new IllegalStateException("工作表中沒有日期樣式");
+                    }
+                    xml.append('<').append(prefix).append("c r=\"").append(ref).append("\" s=\"")
+                            .append(target.dateStyleIndex).append("\" t=\"n\"><").append(prefix).append("v>")
+                            .append(DateUtil.getExcelDate(data.getExpiryDate(), target.date1904))
+                            .append("</").append(prefix).append("v></").append(prefix).append("c>");
+                }
+            } else {
+                String value = data.getAttribute(header);
+                xml.append('<').append(prefix).append("c r=\"").append(ref).append("\" t=\"inlineStr\"><")
+                        .append(prefix).append("is><").append(prefix).append('t');
+                if (value != null && !value.isEmpty()
+                        && (Character.isWhitespace(value.charAt(0))
+                                || Character.isWhitespace(value.charAt(value.length() - 1)))) {
+                    xml.append(" xml:space=\"preserve\"");
+                }
+                xml.append('>');
+                appendEscaped(xml, value != null ? value : "");
+                xml.append("</").append(prefix).append("t></").append(prefix).append("is></").append(prefix)
+                        .append("c>");
+            }
+        }
+        return xml.append("</").append(prefix).append("row>").toString();
+    }
+
+    /**
+     * XML 跳脫，XML 1.0 不允許的控制字元與 SXSSF 一樣以 '?' 取代
+     */
+    private static void appendEscaped(StringBuilder xml, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    xml.append("&lt;");
+                    break;
+                case '>':
+                    xml.append("&gt;");
+                    break;
+                case '&':
+                    xml.append("&amp;");
+                    break;
+                case '"':
+                    xml.append("&quot;");
+                    break;
+                default:
+                    if (c < 0x20 && c != '\t' && c != '\n' && c != '\r') {
+                        xml.append('?');
+                    } else {
+                        xml.append(c);
+                    }
+            }
         }
     }
 
@@ -275,6 +871,28 @@ public class ExcelService {
         }
     }
 
+    /**
+     * 與 getCellValue(Cell) 相同規則，供串流讀取使用
+     */
+    private String getCellValue(StreamingSheetReader.SheetCell cell) {
+        if (cell == null)
+            return "";
+
+        switch (cell.getCellType()) {
+            case STRING:
+                return cell.getStringValue();
+            case NUMERIC:
+                if (cell.isDateFormatted()) {
+                    return cell.getDateValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toString();
+                }
+                return String.valueOf((long) cell.getNumericValue());
+            case BOOLEAN:
+                return String.valueOf(cell.getBooleanValue());
+            default:
+                return "";
+        }
+    }
+
     /**
      * 解析日期字串,支援多種格式
      */
@@ -316,6 +934,8 @@ public class ExcelService {
 
         try (FileInputStream fis = new FileInputStream(new File(filePath));
                 Workbook workbook = WorkbookFactory.create(fis)) {
+            // 內容已完整讀入記憶體，先釋放原檔以便之後替換
+            fis.close();
 
             Sheet sheet = workbook.getSheetAt(0);
             if (sheet == null) {
@@ -333,16 +953,21 @@ public class ExcelService {
                 newColumnIndex = 0;
             }
 
-            // 創建新的標題欄位
+            // 創建新的標題欄位，沿用前一個標題欄位的樣式
+            ExcelStyleRegistry styles = new ExcelStyleRegistry(workbook);
             Cell newHeaderCell = headerRow.createCell(newColumnIndex);
             newHeaderCell.setCellValue(columnName);
+            if (newColumnIndex > 0 && headerRow.getCell(newColumnIndex - 1) != null) {
+                newHeaderCell.setCellStyle(styles.canonicalize(headerRow.getCell(newColumnIndex - 1).getCellStyle()));
+            }
+
+            // 舊版本儲存時產生的重複樣式改指向同一個 (重複項仍留在樣式表，下次完整儲存時清除)
+            styles.canonicalizeSheet(sheet);
 
             // 寫回檔案
-            try (FileOutputStream fos = new FileOutputStream(new File(filePath))) {
-                workbook.write(fos);
-                LogManager.getInstance().info("成功添加欄位到 Excel：" + columnName);
-                return true;
-            }
+            writeFile(workbook::write);
+            LogManager.getInstance().info("成功添加欄位到 Excel：" + columnName);
+            return true;
 
         } catch (Exception e) {
             LogManager.getInstance().error("添加欄位到 Excel 失敗：" + e.getMessage());
@@ -361,12 +986,16 @@ public class ExcelService {
 
         try (FileInputStream fis = new FileInputStream(new File(filePath));
                 Workbook workbook = WorkbookFactory.create(fis)) {
+            // 內容已完整讀入記憶體，先釋放原檔以便之後替換
+            fis.close();
 
             Sheet sheet = workbook.getSheetAt(0);
             if (sheet == null) {
                 return false;
             }
 
+            ExcelStyleRegistry styles = new ExcelStyleRegistry(workbook);
+
             // 遍歷所有列，刪除指定索引的儲存格
             for (Row row : sheet) {
                 if (row != null) {
@@ -382,18 +1011,21 @@ public class ExcelService {
                         if (cell != null) {
                             Cell newCell = row.createCell(i - 1, cell.getCellType());
                             copyCellValue(cell, newCell);
+                            // 保留原格式 (例如日期)，並共用相同內容的樣式
+                            newCell.setCellStyle(styles.canonicalize(cell.getCellStyle()));
                             row.removeCell(cell);
                         }
                     }
                 }
             }
 
+            // 舊版本儲存時產生的重複樣式改指向同一個 (重複項仍留在樣式表，下次完整儲存時清除)
+            styles.canonicalizeSheet(sheet);
+
             // 寫回檔案
-            try (FileOutputStream fos = new FileOutputStream(new File(filePath))) {
-                workbook.write(fos);
-                LogManager.getInstance().info("成功從 Excel 刪除欄位，索引：" + columnIndex);
-                return true;
-            }
+            writeFile(workbook::write);
+            LogManager.getInstance().info("成功從 Excel 刪除欄位，索引：" + columnIndex);
+            return true;
 
         } catch (Exception e) {
             LogManager.getInstance().error("從 Excel 刪除欄位失敗：" + e.getMessage());
@@ -0,0 +1,95 @@
+package da.api.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * 單一 Workbook 的儲存格樣式快取
+ * <p>
+ * Excel 樣式表上限約 64000 筆，相同格式只建立一次 CellStyle 供所有儲存格共用，
+ * 並可讓既有檔案中的儲存格改用內容相同的第一個樣式。
+ * <p>
+ * POI 無法從 .xlsx 的樣式表移除樣式，被取代的重複樣式仍留在 styles.xml 中，
+ * 不再被任何儲存格使用；完整儲存 (saveAllData) 會建立新的活頁簿，屆時才一併清除。
+ */
+public class ExcelStyleRegistry {
+    public static final String DATE_FORMAT = "yyyy-mm-dd";
+
+    private final Workbook workbook;
+    private final DataFormat dataFormat;
+
+    // 格式字串 -> 共用樣式
+    private final Map<String, CellStyle> formatStyles = new HashMap<>();
+    // 樣式內容 -> 第一個出現的樣式
+    private final Map<CellStyle, CellStyle> canonicalStyles = new HashMap<>();
+    // 樣式索引 -> 整併後的樣式 (避免重複比對樣式 XML)
+    private final Map<Integer, CellStyle> canonicalByIndex = new HashMap<>();
+
+    public ExcelStyleRegistry(Workbook workbook) {
+        this.workbook = workbook;
+        this.dataFormat = workbook.createDataFormat();
+    }
+
+    /**
+     * 取得到期日使用的日期樣式
+     */
+    public CellStyle getDateStyle() {
+        return getFormatStyle(DATE_FORMAT);
+    }
+
+    /**
+     * 取得指定資料格式的共用樣式，第一次使用時才建立
+     */
+    public CellStyle getFormatStyle(String format) {
+        return formatStyles.computeIfAbsent(format, f -> {
+            CellStyle style = workbook.createCellStyle();
+            style.setDataFormat(dataFormat.getFormat(f));
+            return style;
+        });
+    }
+
+    /**
+     * 回傳與指定樣式內容相同的共用樣式
+     */
+    public CellStyle canonicalize(CellStyle style) {
+        if (style == null) {
+            return null;
+        }
+        return canonicalByIndex.computeIfAbsent((int) style.getIndex(),
+                index -> canonicalStyles.computeIfAbsent(style, s -> s));
+    }
+
+    /**
+     * 將工作表中所有儲存格改用內容相同的第一個樣式；只更換儲存格參照，不縮減樣式表
+     *
+     * @return 更換樣式的儲存格數
+     */
+    public int canonicalizeSheet(Sheet sheet) {
+        int changed = 0;
+        for (Row row : sheet) {
+            for (Cell cell : row) {
+                CellStyle style = cell.getCellStyle();
+                CellStyle shared = canonicalize(style);
+                if (shared != null && shared.getIndex() != style.getIndex()) {
+                    cell.setCellStyle(shared);
+                    changed++;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 目前由此快取建立的樣式數
+     */
+    public int size() {
+        return formatStyles.size();
+    }
+}
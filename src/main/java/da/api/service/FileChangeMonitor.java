@@ -0,0 +1,227 @@
+package da.api.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import da.api.util.AtomicFileWriter;
+import da.api.util.LogManager;
+
+/**
+ * 監控單一檔案的變更
+ * <p>
+ * 以 WatchService 監看所在目錄，事件發生後等待一段靜止時間才通知，
+ * 讓分多次寫入的編輯器只觸發一次。檔案系統不支援監看 (或 JDK 只提供輪詢實作) 時，
+ * 改為定期比對修改時間與檔案大小。
+ */
+public class FileChangeMonitor implements AutoCloseable {
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 2000;
+
+    private static final String THREAD_NAME = "FileMonitor";
+
+    private final Path file;
+    private final Runnable onChange;
+    private final long debounceMillis;
+    private final long pollIntervalMillis;
+    private final boolean forcePolling;
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private ScheduledExecutorService pollExecutor;
+    private volatile boolean running = false;
+
+    // 輪詢模式上一次看到的檔案狀態
+    private long lastModified;
+    private long lastSize;
+
+    public FileChangeMonitor(Path file, Runnable onChange) {
+        this(file, onChange, DEFAULT_DEBOUNCE_MILLIS, DEFAULT_POLL_INTERVAL_MILLIS, false);
+    }
+
+    /**
+     * @param forcePolling 不使用 WatchService，直接以輪詢方式監控
+     */
+    public FileChangeMonitor(Path file, Runnable onChange, long debounceMillis, long pollIntervalMillis,
+            boolean forcePolling) {
+        this.file = file.toAbsolutePath();
+        this.onChange = onChange;
+        this.debounceMillis = debounceMillis;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.forcePolling = forcePolling;
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (forcePolling || !startWatching()) {
+            startPolling();
+        }
+    }
+
+    /**
+     * 是否以輪詢方式監控
+     */
+    public boolean isPolling() {
+        return pollExecutor != null;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // 忽略關閉錯誤
+            }
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        if (pollExecutor != null) {
+            pollExecutor.shutdownNow();
+        }
+    }
+
+    private boolean startWatching() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            // JDK 在不支援原生通知的平台以輪詢模擬 (間隔約 10 秒)，此時改用自己的輪詢
+            if (watchService.getClass().getName().contains("Polling")) {
+                watchService.close();
+                watchService = null;
+                return false;
+            }
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            LogManager.getInstance().warn("無法使用檔案系統通知監控，改為輪詢: " + e.getMessage());
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                    // 忽略關閉錯誤
+                }
+                watchService = null;
+            }
+            return false;
+        }
+
+        watchThread = new Thread(this::watchLoop, THREAD_NAME);
+        watchThread.setDaemon(true);
+        watchThread.start();
+        return true;
+    }
+
+    private void watchLoop() {
+        // 0 表示沒有等待中的通知
+        long deadline = 0;
+        try {
+            while (running) {
+                WatchKey key;
+                if (deadline == 0) {
+                    key = watchService.take();
+                } else {
+                    long remaining = deadline - System.currentTimeMillis();
+                    key = remaining > 0 ? watchService.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                }
+
+                if (key != null) {
+                    if (isTargetChanged(key)) {
+                        // 每次事件都重新計算靜止時間
+                        deadline = System.currentTimeMillis() + debounceMillis;
+                    }
+                    if (!key.reset()) {
+                        LogManager.getInstance().warn("監控目錄已失效，改為輪詢: " + file.getParent());
+                        startPolling();
+                        return;
+                    }
+                }
+
+                if (deadline != 0 && System.currentTimeMillis() >= deadline) {
+                    deadline = 0;
+                    notifyChange();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 監控已停止
+        }
+    }
+
+    private boolean isTargetChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // 事件遺失，無法確定是否包含目標檔案
+                changed = true;
+                continue;
+            }
+            Path name = (Path) event.context();
+            if (AtomicFileWriter.isTempFile(name)) {
+                continue;
+            }
+            if (file.getFileName().equals(name)) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void startPolling() {
+        if (!running) {
+            return;
+        }
+        lastModified = currentModified();
+        lastSize = currentSize();
+        pollExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, THREAD_NAME);
+            t.setDaemon(true);
+            return t;
+        });
+        pollExecutor.scheduleWithFixedDelay(() -> {
+            long modified = currentModified();
+            long size = currentSize();
+            if (modified != lastModified || size != lastSize) {
+                lastModified = modified;
+                lastSize = size;
+                notifyChange();
+            }
+        }, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private long currentModified() {
+        return file.toFile().lastModified();
+    }
+
+    private long currentSize() {
+        try {
+            return Files.exists(file) ? Files.size(file) : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private void notifyChange() {
+        if (!running) {
+            return;
+        }
+        try {
+            onChange.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            LogManager.getInstance().error("處理檔案變更通知時發生錯誤: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package da.api.service;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 活頁簿內容指紋
+ * <p>
+ * 由 zip 中央目錄記錄的各資料項目 (xl/ 底下的工作表、共用字串、樣式等) 名稱、CRC 與大小組成，
+ * 只需讀取中央目錄，不必解壓縮。docProps 內含儲存時間，不列入計算，
+ * 因此單純 touch 或以相同內容重新儲存都會得到相同的指紋。
+ */
+public final class FileFingerprint {
+    private static final String DATA_PREFIX = "xl/";
+
+    private final long dataSize;
+    private final long hash;
+
+    private FileFingerprint(long dataSize, long hash) {
+        this.dataSize = dataSize;
+        this.hash = hash;
+    }
+
+    /**
+     * 計算檔案指紋，檔案不存在時回傳 null
+     */
+    public static FileFingerprint of(String filePath) {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            return null;
+        }
+        try (ZipFile zip = new ZipFile(file)) {
+            long size = 0;
+            long hash = 1125899906842597L;
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.getName().startsWith(DATA_PREFIX)) {
+                    continue;
+                }
+                // 項目順序不影響結果
+                long entryHash = entry.getName().hashCode();
+                entryHash = entryHash * 31 + entry.getCrc();
+                entryHash = entryHash * 31 + entry.getSize();
+                hash += mix(entryHash);
+                size += entry.getSize();
+            }
+            return new FileFingerprint(size, hash);
+        } catch (IOException e) {
+            // 不是有效的 zip (例如正在被其他程式寫入)，改以整個檔案內容計算
+            return ofContent(file);
+        }
+    }
+
+    /**
+     * 還原 dataSize 與 hash 記錄的指紋 (資料快照使用)
+     */
+    static FileFingerprint of(long dataSize, long hash) {
+        return new FileFingerprint(dataSize, hash);
+    }
+
+    long dataSize() {
+        return dataSize;
+    }
+
+    long hash() {
+        return hash;
+    }
+
+    private static FileFingerprint ofContent(File file) {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return new FileFingerprint(-file.length(), crc.getValue());
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FileFingerprint)) {
+            return false;
+        }
+        FileFingerprint other = (FileFingerprint) o;
+        return dataSize == other.dataSize && hash == other.hash;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash) * 31 + Long.hashCode(dataSize);
+    }
+
+    @Override
+    public String toString() {
+        return "FileFingerprint(" + dataSize + ", " + Long.toHexString(hash) + ")";
+    }
+}
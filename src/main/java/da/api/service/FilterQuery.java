@@ -0,0 +1,333 @@
+package da.api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import da.api.model.ExcelData;
+import da.api.model.ExcelDataset;
+import da.api.model.RowBitmap;
+
+/**
+ * 篩選條件樹
+ * <p>
+ * 以「等於」、「為空」、「包含」與「相近」為葉節點，用 AND / OR / NOT 組合。對整份資料集查詢時在壓縮點陣圖上運算
+ * (篩選欄位有索引時不必逐列比對)，判斷單筆資料時則直接比對欄位值，兩者結果一致。
+ * 欄位值一律去除前後空白後比較，空值與空白字串都視為「空」。
+ */
+public abstract class FilterQuery {
+
+    private static final FilterQuery ALL = new FilterQuery() {
+        @Override
+        public boolean matches(ExcelData data) {
+            return true;
+        }
+
+        @Override
+        RowBitmap evaluate(ExcelDataset dataset) {
+            return dataset.allRows();
+        }
+
+        @Override
+        public String toString() {
+            return "ALL";
+        }
+    };
+
+    FilterQuery() {
+    }
+
+    /**
+     * 不篩選
+     */
+    public static FilterQuery all() {
+        return ALL;
+    }
+
+    /**
+     * 欄位值等於 value；value 為空白時等同 isEmpty
+     */
+    public static FilterQuery equalTo(String column, String value) {
+        return new Equals(column, value != null ? value.trim() : "");
+    }
+
+    public static FilterQuery isEmpty(String column) {
+        return new Equals(column, "");
+    }
+
+    /**
+     * 欄位值包含 text (不分大小寫)；text 為空白時不篩選
+     */
+    public static FilterQuery contains(String column, String text) {
+        String needle = text != null ? text.trim().toLowerCase() : "";
+        return needle.isEmpty() ? ALL : new Contains(column, needle);
+    }
+
+    /**
+     * 任一欄位包含 text (不分大小寫)；text 為空白時不篩選
+     */
+    public static FilterQuery containsText(String text) {
+        String needle = text != null ? text.trim().toLowerCase() : "";
+        return needle.isEmpty() ? ALL : new TextContains(needle);
+    }
+
+    /**
+     * 欄位值與 text 相近 (不分大小寫，容許少數打錯的字元，見 FuzzyIndex.maxDistance)
+     */
+    public static FilterQuery similarTo(String column, String text) {
+        String key = text != null ? text.trim().toLowerCase() : "";
+        return key.isEmpty() ? ALL : new Similar(column, key);
+    }
+
+    /**
+     * 任一欄位包含 text，或 columns 中任一欄位的值與 text 相近；text 太短不容許打錯時等同 containsText
+     */
+    public static FilterQuery fuzzyText(String text, List<String> columns) {
+        FilterQuery contains = containsText(text);
+        if (contains == ALL || FuzzyIndex.maxDistance(text) == 0 || columns.isEmpty()) {
+            return contains;
+        }
+        List<FilterQuery> queries = new ArrayList<>();
+        queries.add(contains);
+        for (String column : columns) {
+            queries.add(similarTo(column, text));
+        }
+        return new Combination(false, queries);
+    }
+
+    public static FilterQuery and(FilterQuery... queries) {
+        return new Combination(true, Arrays.asList(queries));
+    }
+
+    public static FilterQuery or(FilterQuery... queries) {
+        return new Combination(false, Arrays.asList(queries));
+    }
+
+    public static FilterQuery not(FilterQuery query) {
+        return new Not(query);
+    }
+
+    /**
+     * 篩選下拉選單的條件 (欄位 -> 選取值)，全部符合才成立
+     */
+    public static FilterQuery allOf(Map<String, String> conditions) {
+        if (conditions.isEmpty()) {
+            return ALL;
+        }
+        List<FilterQuery> queries = new ArrayList<>();
+        for (Map.Entry<String, String> condition : conditions.entrySet()) {
+            queries.add(equalTo(condition.getKey(), condition.getValue()));
+        }
+        return queries.size() == 1 ? queries.get(0) : new Combination(true, queries);
+    }
+
+    /**
+     * 查詢整份資料集，結果依資料集原本的順序排列並共用列資料
+     */
+    public ExcelDataset apply(ExcelDataset dataset) {
+        return dataset.select(evaluate(dataset));
+    }
+
+    /**
+     * 單筆資料是否符合
+     */
+    public abstract boolean matches(ExcelData data);
+
+    /**
+     * 符合條件的列編號；可能直接回傳索引中的點陣圖，呼叫端不可修改
+     */
+    abstract RowBitmap evaluate(ExcelDataset dataset);
+
+    private static final class Equals extends FilterQuery {
+        private final String column;
+        private final String value;
+
+        Equals(String column, String value) {
+            this.column = column;
+            this.value = value;
+        }
+
+        @Override
+        public boolean matches(ExcelData data) {
+            String actual = data.getAttribute(column);
+            return (actual != null ? actual.trim() : "").equals(value);
+        }
+
+        @Override
+        RowBitmap evaluate(ExcelDataset dataset) {
+            return dataset.rowsWithValue(column, value);
+        }
+
+        @Override
+        public String toString() {
+            return value.isEmpty() ? column + " 為空" : column + " = " + value;
+        }
+    }
+
+    private static final class Contains extends FilterQuery {
+        private final String column;
+        private final String needle;
+
+        Contains(String column, String needle) {
+            this.column = column;
+            this.needle = needle;
+        }
+
+        @Override
+        public boolean matches(ExcelData data) {
+            return test(data.getAttribute(column));
+        }
+
+        @Override
+        RowBitmap evaluate(ExcelDataset dataset) {
+            return dataset.rowsMatching(column, this::test);
+        }
+
+        private boolean test(String actual) {
+            return actual != null && actual.toLowerCase().contains(needle);
+        }
+
+        @Override
+        public String toString() {
+            return column + " 包含 " + needle;
+        }
+    }
+
+    private static final class TextContains extends FilterQuery {
+        private final String needle;
+
+        TextContains(String needle) {
+            this.needle = needle;
+        }
+
+        @Override
+        public boolean matches(ExcelData data) {
+            for (String value : data.getAttributes().values()) {
+                if (value != null && value.toLowerCase().contains(needle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        RowBitmap evaluate(ExcelDataset dataset) {
+            return dataset.rowsContainingText(needle);
+        }
+
+        @Override
+        public String toString() {
+            return "任一欄位包含 " + needle;
+        }
+    }
+
+    private static final class Similar extends FilterQuery {
+        private final String column;
+        private final String key;
+        private final int maxDistance;
+
+        Similar(String column, String key) {
+            this.column = column;
+            this.key = key;
+            this.maxDistance = FuzzyIndex.maxDistance(key);
+        }
+
+        @Override
+        public boolean matches(ExcelData data) {
+            return test(data.getAttribute(column));
+        }
+
+        @Override
+        RowBitmap evaluate(ExcelDataset dataset) {
+            // 字典編碼的欄位每個不重複的值只計算一次編輯距離
+            return dataset.rowsMatching(column, this::test);
+        }
+
+        private boolean test(String actual) {
+            return actual != null && FuzzyIndex.distance(key, actual.trim().toLowerCase(), maxDistance) <= maxDistance;
+        }
+
+        @Override
+        public String toString() {
+            return column + " 近似 " + key;
+        }
+    }
+
+    private static final class Combination extends FilterQuery {
+        private final boolean and;
+        private final List<FilterQuery> queries;
+
+        Combination(boolean and, List<FilterQuery> queries) {
+            this.and = and;
+            this.queries = new ArrayList<>(queries);
+        }
+
+        @Override
+        public boolean matches(ExcelData data) {
+            for (FilterQuery query : queries) {
+                if (query.matches(data) != and) {
+                    return !and;
+                }
+            }
+            return and;
+        }
+
+        @Override
+        RowBitmap evaluate(ExcelDataset dataset) {
+            if (queries.isEmpty()) {
+                return and ? dataset.allRows() : new RowBitmap();
+            }
+            RowBitmap result = null;
+            for (FilterQuery query : queries) {
+                // 背景查詢被取消時不再計算其餘條件
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("查詢已取消");
+                }
+                RowBitmap rows = query.evaluate(dataset);
+                result = result == null ? rows : (and ? result.and(rows) : result.or(rows));
+                // 交集為空時不必再算其餘條件
+                if (and && result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("(");
+            for (int i = 0; i < queries.size(); i++) {
+                if (i > 0) {
+                    sb.append(and ? " AND " : " OR ");
+                }
+                sb.append(queries.get(i));
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+    private static final class Not extends FilterQuery {
+        private final FilterQuery query;
+
+        Not(FilterQuery query) {
+            this.query = query;
+        }
+
+        @Override
+        public boolean matches(ExcelData data) {
+            return !query.matches(data);
+        }
+
+        @Override
+        RowBitmap evaluate(ExcelDataset dataset) {
+            return dataset.allRows().andNot(query.evaluate(dataset));
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + query;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package da.api.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 容許打錯字的模糊比對索引 (BK-tree)
+ * <p>
+ * 以編輯距離 (Levenshtein) 組織項目：每個節點的子節點依與該節點的距離分組，
+ * 查詢時依三角不等式只需走訪距離落在 [d - k, d + k] 的子樹，不必與每個項目比較。
+ * 項目一律去除前後空白並轉為小寫後比較，"Microsoft"、"microsoft " 與 "Mircosoft" 彼此都很接近。
+ * <p>
+ * 建立後不再修改，可在多個執行緒上同時查詢。
+ */
+public class FuzzyIndex {
+
+    private final String[] items;
+    private final Node root;
+
+    public FuzzyIndex(List<String> items) {
+        this.items = items.toArray(new String[0]);
+        Node tree = null;
+        for (int i = 0; i < this.items.length; i++) {
+            String key = normalize(this.items[i]);
+            if (tree == null) {
+                tree = new Node(key, i);
+            } else {
+                tree.insert(key, i);
+            }
+        }
+        this.root = tree;
+    }
+
+    /**
+     * 查詢字串可容許的編輯距離：太短的字串容許打錯時幾乎什麼都會符合
+     */
+    public static int maxDistance(String query) {
+        int length = normalize(query).length();
+        if (length <= 3) {
+            return 0;
+        }
+        return length <= 6 ? 1 : 2;
+    }
+
+    /**
+     * 與 query 的編輯距離不超過 maxDistance(query) 的項目，依距離由近到遠排列 (同距離依項目順序)
+     */
+    public List<String> search(String query, int limit) {
+        String key = normalize(query);
+        int max = maxDistance(query);
+        List<long[]> matches = new ArrayList<>();
+        if (root != null && !key.isEmpty()) {
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                int d = distance(key, node.key, Integer.MAX_VALUE);
+                if (d <= max) {
+                    for (int item : node.items) {
+                        matches.add(new long[] { d, item });
+                    }
+                }
+                for (int c = 0; c < node.childCount; c++) {
+                    if (Math.abs(node.childDistances[c] - d) <= max) {
+                        pending.push(node.children[c]);
+                    }
+                }
+            }
+        }
+        matches.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        List<String> result = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && result.size() < limit; i++) {
+            result.add(items[(int) matches.get(i)[1]]);
+        }
+        return result;
+    }
+
+    /**
+     * 去除前後空白並轉為小寫後，value 與 query 的編輯距離是否不超過 maxDistance(query)
+     */
+    public static boolean isSimilar(String query, String value) {
+        if (value == null) {
+            return false;
+        }
+        int max = maxDistance(query);
+        return distance(normalize(query), normalize(value), max) <= max;
+    }
+
+    /**
+     * 編輯距離 (插入、刪除、取代各算一次)；確定超過 max 時提早結束並回傳 max + 1
+     */
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m] > max ? max + 1 : previous[m];
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value.trim().toLowerCase() : "";
+    }
+
+    private static final class Node {
+        final String key;
+        // 正規化後相同的項目 (例如只差大小寫或空白)
+        int[] items;
+        int[] childDistances = new int[0];
+        Node[] children = new Node[0];
+        int childCount;
+
+        Node(String key, int item) {
+            this.key = key;
+            this.items = new int[] { item };
+        }
+
+        void insert(String key, int item) {
+            Node node = this;
+            while (true) {
+                int d = distance(key, node.key, Integer.MAX_VALUE);
+                if (d == 0) {
+                    node.items = Arrays.copyOf(node.items, node.items.length + 1);
+                    node.items[node.items.length - 1] = item;
+                    return;
+                }
+                Node child = node.child(d);
+                if (child == null) {
+                    node.addChild(d, new Node(key, item));
+                    return;
+                }
+                node = child;
+            }
+        }
+
+        Node child(int distance) {
+            for (int c = 0; c < childCount; c++) {
+                if (childDistances[c] == distance) {
+                    return children[c];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (childCount == children.length) {
+                childDistances = Arrays.copyOf(childDistances, Math.max(2, childCount * 2));
+                children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+            }
+            childDistances[childCount] = distance;
+            children[childCount++] = child;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package da.api.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import da.api.model.ExcelDataset;
+
+/**
+ * 即時篩選 (邊輸入邊查詢) 的條件與上次結果
+ * <p>
+ * 每個欄位的輸入文字以「包含 (不分大小寫)」比對，鍵為 ANY_COLUMN 的條件則比對所有欄位。新條件只比上次更嚴格時
+ * (各欄位的文字都包含上次的文字，且沒有移除任何欄位)，符合新條件的列必定在上次結果中，
+ * 因此只需在上次結果裡再篩選，不必重新掃描整份資料。
+ * <p>
+ * 只在 UI 執行緒上使用；資料變更時須呼叫 reset，避免以過時的結果繼續篩選。
+ */
+public class LiveFilter {
+    // 全文搜尋 (任一欄位包含) 條件使用的鍵，不會與欄位名稱重複
+    public static final String ANY_COLUMN = "\u0000任一欄位";
+
+    private Map<String, String> lastConditions;
+    private ExcelDataset lastResult;
+
+    /**
+     * 條件 (欄位 -> 輸入文字) 對應的查詢，全部符合才成立
+     */
+    public static FilterQuery query(Map<String, String> conditions) {
+        List<FilterQuery> queries = new ArrayList<>();
+        for (Map.Entry<String, String> condition : conditions.entrySet()) {
+            FilterQuery query = ANY_COLUMN.equals(condition.getKey())
+                    ? FilterQuery.containsText(condition.getValue())
+                    : FilterQuery.contains(condition.getKey(), condition.getValue());
+            if (query != FilterQuery.all()) {
+                queries.add(query);
+            }
+        }
+        if (queries.isEmpty()) {
+            return FilterQuery.all();
+        }
+        return queries.size() == 1 ? queries.get(0) : FilterQuery.and(queries.toArray(new FilterQuery[0]));
+    }
+
+    /**
+     * 條件與上次查詢相同，結果不會改變
+     */
+    public boolean isCurrent(Map<String, String> conditions) {
+        return lastResult != null && normalize(conditions).equals(lastConditions);
+    }
+
+    /**
+     * 這次查詢的範圍：條件更嚴格時為上次結果，否則為完整資料
+     */
+    public ExcelDataset scope(Map<String, String> conditions, ExcelDataset allData) {
+        return lastResult != null && narrows(lastConditions, normalize(conditions)) ? lastResult : allData;
+    }
+
+    /**
+     * 記錄查詢結果，供下一次更嚴格的條件使用
+     */
+    public void accept(Map<String, String> conditions, ExcelDataset result) {
+        lastConditions = normalize(conditions);
+        lastResult = result;
+    }
+
+    public void reset() {
+        lastConditions = null;
+        lastResult = null;
+    }
+
+    /**
+     * next 的結果是否必定是 previous 結果的子集
+     */
+    static boolean narrows(Map<String, String> previous, Map<String, String> next) {
+        for (Map.Entry<String, String> condition : previous.entrySet()) {
+            String text = next.get(condition.getKey());
+            if (text == null || !text.contains(condition.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 去除空白條件並統一為小寫，與 FilterQuery.contains 的比對方式相同
+     */
+    private static Map<String, String> normalize(Map<String, String> conditions) {
+        Map<String, String> normalized = new LinkedHashMap<>();
+        for (Map.Entry<String, String> condition : conditions.entrySet()) {
+            String text = condition.getValue() != null ? condition.getValue().trim().toLowerCase() : "";
+            if (!text.isEmpty()) {
+                normalized.put(condition.getKey(), text);
+            }
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,203 @@
+package da.api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import da.api.model.ExcelData;
+
+/**
+ * 比對新舊兩份資料列，產生把舊列表轉成新列表的新增 / 更新 / 刪除步驟
+ * <p>
+ * 以鍵值欄位辨識同一筆資料；未設定鍵值欄位時以整列內容 (雜湊) 辨識，此時修改會表示為刪除加新增。
+ * 先略過相同的開頭與結尾，中間區段以鍵值配對後取最長遞增子序列保留原順序，
+ * 整體為 O(n log n)，少量修改時接近 O(n)。
+ */
+public class RowDiffEngine {
+
+    public enum ChangeType {
+        INSERT, UPDATE, DELETE
+    }
+
+    /**
+     * 單一步驟；index 為依序套用前面步驟後的列索引
+     */
+    public static class RowChange {
+        private final ChangeType type;
+        private final int index;
+        private final ExcelData row;
+
+        RowChange(ChangeType type, int index, ExcelData row) {
+            this.type = type;
+            this.index = index;
+            this.row = row;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * 新增或更新後的資料，刪除時為 null
+         */
+        public ExcelData getRow() {
+            return row;
+        }
+
+        @Override
+        public String toString() {
+            return type + "@" + index;
+        }
+    }
+
+    private RowDiffEngine() {
+    }
+
+    /**
+     * @param keyColumn 鍵值欄位，null 或空字串表示以整列內容辨識
+     */
+    public static List<RowChange> diff(List<ExcelData> oldRows, List<ExcelData> newRows, String keyColumn) {
+        List<RowChange> changes = new ArrayList<>();
+
+        // 相同的開頭與結尾
+        int prefix = 0;
+        int minSize = Math.min(oldRows.size(), newRows.size());
+        while (prefix < minSize && Objects.equals(oldRows.get(prefix), newRows.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < minSize - prefix && Objects.equals(oldRows.get(oldRows.size() - 1 - suffix),
+                newRows.get(newRows.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        int oldEnd = oldRows.size() - suffix;
+        int newEnd = newRows.size() - suffix;
+        if (prefix == oldEnd && prefix == newEnd) {
+            return changes;
+        }
+
+        // 中間區段以鍵值配對 (重複鍵值依出現順序配對)
+        int oldCount = oldEnd - prefix;
+        Map<Object, Integer> firstPosition = new HashMap<>(oldCount * 2);
+        // 同鍵值的下一個舊列位置，-1 表示沒有
+        int[] nextSameKey = new int[oldCount];
+        for (int i = oldCount - 1; i >= 0; i--) {
+            Integer next = firstPosition.put(keyOf(oldRows.get(prefix + i), keyColumn), i);
+            nextSameKey[i] = next != null ? next : -1;
+        }
+        int[] match = new int[newEnd - prefix];
+        for (int j = prefix; j < newEnd; j++) {
+            Object key = keyOf(newRows.get(j), keyColumn);
+            Integer position = firstPosition.get(key);
+            if (position == null || position < 0) {
+                match[j - prefix] = -1;
+                continue;
+            }
+            match[j - prefix] = prefix + position;
+            int next = nextSameKey[position];
+            // 已配對的位置移除，下一個同鍵值的舊列遞補
+            firstPosition.put(key, next >= 0 ? next : -1);
+        }
+
+        // 保留配對結果中順序一致的最大集合，其餘視為刪除後重新插入
+        boolean[] kept = longestIncreasing(match);
+        boolean[] oldKept = new boolean[oldEnd - prefix];
+        for (int k = 0; k < match.length; k++) {
+            if (kept[k]) {
+                oldKept[match[k] - prefix] = true;
+            }
+        }
+
+        // 由後往前刪除，前面的索引不受影響
+        for (int i = oldEnd - 1; i >= prefix; i--) {
+            if (!oldKept[i - prefix]) {
+                changes.add(new RowChange(ChangeType.DELETE, i, null));
+            }
+        }
+        // 由前往後插入或更新，目前位置之前都已與新列表相同
+        for (int j = prefix; j < newEnd; j++) {
+            int k = j - prefix;
+            ExcelData row = newRows.get(j);
+            if (!kept[k]) {
+                changes.add(new RowChange(ChangeType.INSERT, j, row));
+            } else if (!Objects.equals(oldRows.get(match[k]), row)) {
+                changes.add(new RowChange(ChangeType.UPDATE, j, row));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 將步驟套用到列表
+     */
+    public static void apply(List<ExcelData> rows, List<RowChange> changes) {
+        for (RowChange change : changes) {
+            switch (change.getType()) {
+                case INSERT:
+                    rows.add(change.getIndex(), change.getRow());
+                    break;
+                case UPDATE:
+                    rows.set(change.getIndex(), change.getRow());
+                    break;
+                case DELETE:
+                    rows.remove(change.getIndex());
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static Object keyOf(ExcelData row, String keyColumn) {
+        if (keyColumn == null || keyColumn.isEmpty()) {
+            return row;
+        }
+        String key = row.getAttribute(keyColumn);
+        return key != null ? key.trim() : "";
+    }
+
+    /**
+     * 最長遞增子序列 (忽略 -1)，回傳每個位置是否在子序列中
+     */
+    private static boolean[] longestIncreasing(int[] values) {
+        int n = values.length;
+        int[] tailValues = new int[n];
+        int[] tailIndexes = new int[n];
+        int[] previous = new int[n];
+        Arrays.fill(previous, -1);
+        int length = 0;
+
+        for (int i = 0; i < n; i++) {
+            int v = values[i];
+            if (v < 0) {
+                continue;
+            }
+            int pos = Arrays.binarySearch(tailValues, 0, length, v);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            tailValues[pos] = v;
+            tailIndexes[pos] = i;
+            previous[i] = pos > 0 ? tailIndexes[pos - 1] : -1;
+            if (pos == length) {
+                length++;
+            }
+        }
+
+        boolean[] result = new boolean[n];
+        int i = length > 0 ? tailIndexes[length - 1] : -1;
+        while (i >= 0) {
+            result[i] = true;
+            i = previous[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,158 @@
+package da.api.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import da.api.util.LogManager;
+
+/**
+ * 背景查詢執行器
+ * <p>
+ * 查詢在專用的背景執行緒上執行，不阻塞 UI。送出新查詢時會中斷仍在執行的舊查詢，
+ * 舊查詢的結果即使已算完也不會回報，只有最新一次查詢的結果會透過 callbackExecutor 交給呼叫端。
+ * 查詢超過 progressDelayMillis 仍未完成時才通知顯示進度，快速的查詢不會閃爍進度提示。
+ * <p>
+ * callbackExecutor 須依序執行回呼 (UI 使用 SwingUtilities::invokeLater)。
+ */
+public class SearchRunner implements AutoCloseable {
+
+    private final Executor callbackExecutor;
+    private final long progressDelayMillis;
+    private final Consumer<Boolean> progressListener;
+    private final ExecutorService worker;
+    private final ScheduledExecutorService progressTimer;
+    // 每次送出或取消查詢時遞增，回報前比對是否仍是最新一次查詢
+    private final AtomicLong generation = new AtomicLong();
+
+    private Future<?> running;
+    private ScheduledFuture<?> pendingProgress;
+
+    // 以下只在 callbackExecutor 上存取
+    private boolean progressShown;
+    private long finishedGeneration;
+
+    /**
+     * @param callbackExecutor    執行結果回呼的執行器
+     * @param progressDelayMillis 查詢超過此時間才顯示進度
+     * @param progressListener    true 顯示進度、false 隱藏進度，可為 null
+     */
+    public SearchRunner(Executor callbackExecutor, long progressDelayMillis, Consumer<Boolean> progressListener) {
+        this.callbackExecutor = callbackExecutor;
+        this.progressDelayMillis = progressDelayMillis;
+        this.progressListener = progressListener;
+        this.worker = Executors.newSingleThreadExecutor(r -> daemon(r, "SearchWorker"));
+        this.progressTimer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "SearchProgress"));
+    }
+
+    /**
+     * 送出查詢並取消仍在執行的舊查詢
+     *
+     * @param search   在背景執行緒上執行的查詢，應定期檢查中斷狀態
+     * @param onResult 查詢結果，只在這次查詢仍是最新一次時呼叫
+     */
+    public synchronized <T> void submit(Callable<T> search, Consumer<T> onResult) {
+        long current = generation.incrementAndGet();
+        cancelRunning();
+        try {
+            pendingProgress = progressTimer.schedule(
+                    () -> callbackExecutor.execute(() -> showProgress(current)),
+                    progressDelayMillis, TimeUnit.MILLISECONDS);
+            running = worker.submit(() -> run(current, search, onResult));
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // 已關閉
+        }
+    }
+
+    /**
+     * 取消進行中的查詢，不回報結果
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        cancelRunning();
+        callbackExecutor.execute(this::hideProgress);
+    }
+
+    @Override
+    public synchronized void close() {
+        generation.incrementAndGet();
+        cancelRunning();
+        worker.shutdownNow();
+        progressTimer.shutdownNow();
+    }
+
+    private <T> void run(long current, Callable<T> search, Consumer<T> onResult) {
+        T result;
+        try {
+            result = search.call();
+        } catch (CancellationException | InterruptedException e) {
+            // 已被新的查詢取代
+            return;
+        } catch (Exception e) {
+            e.printStackTrace();
+            LogManager.getInstance().error("背景查詢時發生錯誤: " + e.getMessage());
+            callbackExecutor.execute(() -> finish(current));
+            return;
+        }
+        callbackExecutor.execute(() -> {
+            if (finish(current)) {
+                onResult.accept(result);
+            }
+        });
+    }
+
+    private void cancelRunning() {
+        if (running != null) {
+            running.cancel(true);
+            running = null;
+        }
+        if (pendingProgress != null) {
+            pendingProgress.cancel(false);
+            pendingProgress = null;
+        }
+    }
+
+    /**
+     * 查詢結束時隱藏進度，回傳這次查詢是否仍是最新一次
+     */
+    private boolean finish(long current) {
+        if (generation.get() != current) {
+            return false;
+        }
+        finishedGeneration = current;
+        hideProgress();
+        return true;
+    }
+
+    private void showProgress(long current) {
+        if (generation.get() == current && finishedGeneration != current && !progressShown) {
+            progressShown = true;
+            if (progressListener != null) {
+                progressListener.accept(true);
+            }
+        }
+    }
+
+    private void hideProgress() {
+        if (progressShown) {
+            progressShown = false;
+            if (progressListener != null) {
+                progressListener.accept(false);
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+}
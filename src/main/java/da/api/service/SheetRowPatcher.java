@@ -0,0 +1,460 @@
+package da.api.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 以位元組層級串流改寫工作表 XML 中的單一列
+ * <p>
+ * 除了目標列 (以及刪除時後續列的列號) 之外，其餘內容原樣複製，
+ * 不需要解析成 DOM，也不會動到共用字串表與樣式表。
+ */
+public class SheetRowPatcher {
+
+    public enum Operation {
+        APPEND, UPDATE, DELETE
+    }
+
+    /**
+     * 產生新列的 XML
+     */
+    public interface RowXmlWriter {
+        /**
+         * @param prefix    工作表元素使用的命名空間前綴 (含冒號，可能為空字串)
+         * @param rowNumber Excel 列號 (從 1 開始)
+         */
+        String write(String prefix, int rowNumber);
+    }
+
+    private static final Pattern DIMENSION_REF = Pattern
+            .compile("(\\sref\\s*=\\s*)([\"'])([A-Za-z]+\\d+:[A-Za-z]+)(\\d+)\\2");
+
+    private final Operation operation;
+    private final int dataIndex;
+    private final RowXmlWriter rowWriter;
+
+    private String prefix = "";
+    private int lastRowNumber = 0;
+    private int dataRowCounter = 0;
+    private boolean targetFound = false;
+    private boolean skipping = false;
+    private boolean shifting = false;
+    private boolean unsupported = false;
+
+    /**
+     * @param dataIndex 資料列索引 (不含標題列)，APPEND 時忽略
+     */
+    public SheetRowPatcher(Operation operation, int dataIndex, RowXmlWriter rowWriter) {
+        this.operation = operation;
+        this.dataIndex = dataIndex;
+        this.rowWriter = rowWriter;
+    }
+
+    /**
+     * 改寫工作表
+     *
+     * @return 是否成功套用；找不到目標列或遇到無法安全改寫的內容時回傳 false，輸出內容應捨棄
+     */
+    public boolean patch(InputStream in, OutputStream out) throws IOException {
+        ByteScanner scanner = new ByteScanner(in);
+        int b;
+        while ((b = scanner.read()) != -1) {
+            if (b != '<') {
+                if (!skipping) {
+                    out.write(b);
+                    scanner.copyUntilTag(out);
+                } else {
+                    scanner.skipUntilTag();
+                }
+                continue;
+            }
+
+            scanner.readMarkup();
+            String output = handleTag(scanner);
+            if (unsupported) {
+                return false;
+            }
+            if (output == VERBATIM) {
+                scanner.writeMarkup(out);
+            } else if (output != null) {
+                out.write(output.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return targetFound;
+    }
+
+    // 表示原樣輸出標記 (以參照比較，避免為每個標記建立字串)
+    private static final String VERBATIM = new String("verbatim");
+
+    /**
+     * 處理一個標記，回傳要輸出的內容 (null 表示不輸出)
+     */
+    private String handleTag(ByteScanner tag) {
+        // 註解、CDATA、處理指令直接複製
+        if (tag.isSpecial()) {
+            return skipping ? null : VERBATIM;
+        }
+
+        boolean endTag = tag.isEndTag();
+
+        if (skipping) {
+            if (endTag && tag.localNameIs("row")) {
+                skipping = false;
+            }
+            return null;
+        }
+
+        if (endTag) {
+            if (operation == Operation.APPEND && tag.localNameIs("sheetData")) {
+                targetFound = true;
+                return rowWriter.write(prefix, lastRowNumber + 1) + tag.text();
+            }
+            return VERBATIM;
+        }
+
+        if (tag.localNameIs("c")) {
+            if (shifting) {
+                tag.decrementRowNumber();
+            }
+            return VERBATIM;
+        }
+        if (tag.localNameIs("row")) {
+            return handleRow(tag);
+        }
+        if (tag.localNameIs("dimension")) {
+            return adjustDimension(tag.text());
+        }
+        if (tag.localNameIs("sheetData")) {
+            String qName = tag.qName();
+            prefix = qName.substring(0, qName.indexOf(':') + 1);
+            if (tag.isSelfClosing() && operation == Operation.APPEND) {
+                // 空白工作表 <sheetData/>
+                targetFound = true;
+                return "<" + qName + ">" + rowWriter.write(prefix, lastRowNumber + 1) + "</" + qName + ">";
+            }
+            return VERBATIM;
+        }
+        if (operation == Operation.DELETE && (tag.localNameIs("f") || tag.localNameIs("mergeCell")
+                || tag.localNameIs("hyperlink") || tag.localNameIs("conditionalFormatting")
+                || tag.localNameIs("dataValidation"))) {
+            // 刪除列後這些參照需要一併位移；被刪除列之前的公式也可能參照之後的列，
+            // 因此整個工作表只要出現就交由完整重寫處理
+            unsupported = true;
+        }
+        if (operation != Operation.UPDATE && (tag.localNameIs("autoFilter") || tag.localNameIs("tablePart"))) {
+            // 篩選與表格範圍涵蓋資料列，新增或刪除列後範圍須一併調整 (表格定義另存於 table 檔)，交由完整重寫處理
+            unsupported = true;
+        }
+        return VERBATIM;
+    }
+
+    private String handleRow(ByteScanner tag) {
+        int r = tag.rowNumber();
+        int rowNumber = r > 0 ? r : lastRowNumber + 1;
+        lastRowNumber = rowNumber;
+
+        // 第一列為標題列，之後才是資料列
+        if (rowNumber < 2) {
+            return VERBATIM;
+        }
+
+        int index = dataRowCounter++;
+        if (index == dataIndex && operation != Operation.APPEND) {
+            targetFound = true;
+            skipping = !tag.isSelfClosing();
+            if (operation == Operation.UPDATE) {
+                return rowWriter.write(prefix, rowNumber);
+            }
+            shifting = true;
+            return null;
+        }
+        if (shifting) {
+            tag.decrementRowNumber();
+        }
+        return VERBATIM;
+    }
+
+    private String adjustDimension(String tag) {
+        int delta = operation == Operation.APPEND ? 1 : operation == Operation.DELETE ? -1 : 0;
+        Matcher m = DIMENSION_REF.matcher(tag);
+        if (delta == 0 || !m.find()) {
+            return tag;
+        }
+        int lastRow = Math.max(1, Integer.parseInt(m.group(4)) + delta);
+        return tag.substring(0, m.start()) + m.group(1) + m.group(2) + m.group(3) + lastRow + m.group(2)
+                + tag.substring(m.end());
+    }
+
+    /**
+     * 具緩衝的位元組掃描器
+     */
+    private static class ByteScanner {
+        private final InputStream in;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int pos = 0;
+        private int limit = 0;
+
+        // 目前標記的內容與標籤名稱位置
+        private byte[] markup = new byte[256];
+        private int length = 0;
+        private int nameStart = 0;
+        private int localStart = 0;
+        private int nameEnd = 0;
+
+        ByteScanner(InputStream in) {
+            this.in = in;
+        }
+
+        private boolean fill() throws IOException {
+            if (pos < limit) {
+                return true;
+            }
+            limit = in.read(buffer);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return false;
+            }
+            return true;
+        }
+
+        int read() throws IOException {
+            return fill() ? buffer[pos++] & 0xFF : -1;
+        }
+
+        /**
+         * 複製文字內容直到下一個 '<' (不含)
+         */
+        void copyUntilTag(OutputStream out) throws IOException {
+            while (fill()) {
+                int start = pos;
+                while (pos < limit && buffer[pos] != '<') {
+                    pos++;
+                }
+                out.write(buffer, start, pos - start);
+                if (pos < limit) {
+                    return;
+                }
+            }
+        }
+
+        void skipUntilTag() throws IOException {
+            while (fill()) {
+                while (pos < limit && buffer[pos] != '<') {
+                    pos++;
+                }
+                if (pos < limit) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 讀取一個完整標記 (開頭的 '<' 已讀取)，屬性值中的 '>' 不視為結尾
+         */
+        void readMarkup() throws IOException {
+            length = 0;
+            append('<');
+            byte[] terminator = null;
+            byte quote = 0;
+            int b;
+            while ((b = read()) != -1) {
+                append(b);
+                if (length == 2 && b == '?') {
+                    terminator = PI_END;
+                } else if (length == 4 && startsWith(COMMENT_START)) {
+                    terminator = COMMENT_END;
+                } else if (length == 9 && startsWith(CDATA_START)) {
+                    terminator = CDATA_END;
+                }
+
+                if (terminator != null) {
+                    if (b == '>' && endsWith(terminator)) {
+                        break;
+                    }
+                    continue;
+                }
+                if (quote != 0) {
+                    if (b == quote) {
+                        quote = 0;
+                    }
+                } else if (b == '"' || b == '\'') {
+                    quote = (byte) b;
+                } else if (b == '>') {
+                    break;
+                }
+            }
+
+            nameStart = length > 1 && markup[1] == '/' ? 2 : 1;
+            nameEnd = nameStart;
+            localStart = nameStart;
+            while (nameEnd < length) {
+                byte c = markup[nameEnd];
+                if (c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '>' || c == '/') {
+                    break;
+                }
+                if (c == ':') {
+                    localStart = nameEnd + 1;
+                }
+                nameEnd++;
+            }
+        }
+
+        private void append(int b) {
+            if (length == markup.length) {
+                markup = java.util.Arrays.copyOf(markup, length * 2);
+            }
+            markup[length++] = (byte) b;
+        }
+
+        private boolean startsWith(byte[] prefix) {
+            for (int i = 0; i < prefix.length; i++) {
+                if (markup[i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean endsWith(byte[] suffix) {
+            if (length < suffix.length) {
+                return false;
+            }
+            for (int i = 0; i < suffix.length; i++) {
+                if (markup[length - suffix.length + i] != suffix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isSpecial() {
+            return length > 1 && (markup[1] == '!' || markup[1] == '?');
+        }
+
+        boolean isEndTag() {
+            return nameStart == 2;
+        }
+
+        boolean isSelfClosing() {
+            return length > 1 && markup[length - 2] == '/';
+        }
+
+        /**
+         * 比較不含命名空間前綴的標籤名稱 (僅限 ASCII 名稱)
+         */
+        boolean localNameIs(String name) {
+            if (nameEnd - localStart != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (markup[localStart + i] != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 尋找 r 屬性中列號數字的位置，回傳 {起點, 終點}，找不到時回傳 null
+         */
+        private int[] rowNumberRange() {
+            for (int i = nameEnd; i + 1 < length; i++) {
+                byte c = markup[i];
+                if (c == '"' || c == '\'') {
+                    // 略過其他屬性的值
+                    int close = i + 1;
+                    while (close < length && markup[close] != c) {
+                        close++;
+                    }
+                    i = close;
+                    continue;
+                }
+                if (markup[i + 1] != 'r' || !(c == ' ' || c == '\t' || c == '\r' || c == '\n')) {
+                    continue;
+                }
+                int j = i + 2;
+                while (j < length && markup[j] == ' ') {
+                    j++;
+                }
+                if (j >= length || markup[j] != '=') {
+                    continue;
+                }
+                j++;
+                while (j < length && markup[j] == ' ') {
+                    j++;
+                }
+                if (j >= length || (markup[j] != '"' && markup[j] != '\'')) {
+                    continue;
+                }
+                j++;
+                // 儲存格參照的欄位字母
+                while (j < length && ((markup[j] >= 'A' && markup[j] <= 'Z') || (markup[j] >= 'a' && markup[j] <= 'z'))) {
+                    j++;
+                }
+                int start = j;
+                while (j < length && markup[j] >= '0' && markup[j] <= '9') {
+                    j++;
+                }
+                return j > start ? new int[] { start, j } : null;
+            }
+            return null;
+        }
+
+        /**
+         * r 屬性的列號，沒有時回傳 -1
+         */
+        int rowNumber() {
+            int[] range = rowNumberRange();
+            if (range == null) {
+                return -1;
+            }
+            int value = 0;
+            for (int i = range[0]; i < range[1]; i++) {
+                value = value * 10 + (markup[i] - '0');
+            }
+            return value;
+        }
+
+        /**
+         * 將 r 屬性的列號減一 (row 的 r="5" 或 c 的 r="B5")
+         */
+        void decrementRowNumber() {
+            int[] range = rowNumberRange();
+            if (range == null) {
+                return;
+            }
+            int value = rowNumber() - 1;
+            byte[] digits = Integer.toString(value).getBytes(StandardCharsets.US_ASCII);
+            int tail = length - range[1];
+            byte[] updated = new byte[Math.max(markup.length, range[0] + digits.length + tail)];
+            System.arraycopy(markup, 0, updated, 0, range[0]);
+            System.arraycopy(digits, 0, updated, range[0], digits.length);
+            System.arraycopy(markup, range[1], updated, range[0] + digits.length, tail);
+            markup = updated;
+            length = range[0] + digits.length + tail;
+        }
+
+        String qName() {
+            return new String(markup, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8);
+        }
+
+        String text() {
+            return new String(markup, 0, length, StandardCharsets.UTF_8);
+        }
+
+        void writeMarkup(OutputStream out) throws IOException {
+            out.write(markup, 0, length);
+        }
+    }
+
+    private static final byte[] PI_END = "?>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COMMENT_START = "<!--".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COMMENT_END = "-->".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CDATA_START = "<![CDATA[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CDATA_END = "]]>".getBytes(StandardCharsets.US_ASCII);
+}
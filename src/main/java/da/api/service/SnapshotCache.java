@@ -0,0 +1,168 @@
+package da.api.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import da.api.model.ExcelDataset;
+import da.api.util.AtomicFileWriter;
+import da.api.util.LogManager;
+
+/**
+ * 已載入資料集的二進位快照
+ * <p>
+ * 每個活頁簿一個快照檔 (檔名由完整路徑決定)，記錄活頁簿路徑、讀取時的內容指紋與資料集的欄式內容。
+ * 啟動時以記憶體映射讀取，指紋相同才使用，不必重新解析 .xlsx；指紋不同表示活頁簿已改變，
+ * 由呼叫端重新解析後覆寫。版本、路徑、長度或 CRC 不符的快照視為損壞並刪除。
+ * <p>
+ * 格式：MAGIC、VERSION、路徑、指紋 | 資料集內容 | 內容長度、內容 CRC、MAGIC
+ */
+public class SnapshotCache {
+    private static final int MAGIC = 0x44534331; // "DSC1"
+    private static final int VERSION = 1;
+    private static final int TRAILER_SIZE = 8 + 8 + 4;
+    private static final String SUFFIX = ".snapshot";
+
+    private final File directory;
+
+    public SnapshotCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 讀取與 fingerprint 相符的快照，沒有快照、已過期或損壞時回傳 null
+     */
+    public ExcelDataset read(String filePath, FileFingerprint fingerprint) {
+        File file = fileFor(filePath);
+        if (fingerprint == null || !file.isFile()) {
+            return null;
+        }
+        String problem;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 + TRAILER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                problem = "格式或版本不符";
+            } else if (!absolutePath(filePath).equals(readString(buffer))) {
+                problem = "路徑不符";
+            } else if (!fingerprint.equals(FileFingerprint.of(buffer.getLong(), buffer.getLong()))) {
+                // 活頁簿已改變，重新解析後會覆寫
+                return null;
+            } else {
+                problem = verifyContent(buffer);
+                if (problem == null) {
+                    buffer.limit(buffer.limit() - TRAILER_SIZE);
+                    ExcelDataset dataset = ExcelDataset.read(buffer);
+                    if (!buffer.hasRemaining()) {
+                        return dataset;
+                    }
+                    problem = "內容長度不符";
+                }
+            }
+        } catch (IOException | IllegalArgumentException | BufferUnderflowException e) {
+            problem = e.toString();
+        }
+        LogManager.getInstance().warn("捨棄損壞的資料快照 (" + problem + "): " + file.getPath());
+        delete(file);
+        return null;
+    }
+
+    /**
+     * 以原子方式寫入資料集的快照，覆寫同一活頁簿舊的快照
+     *
+     * @return 是否寫入成功
+     */
+    public boolean write(String filePath, FileFingerprint fingerprint, ExcelDataset dataset) {
+        if (fingerprint == null) {
+            return false;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LogManager.getInstance().error("無法建立資料快照目錄: " + directory.getPath());
+            return false;
+        }
+        try {
+            AtomicFileWriter.write(fileFor(filePath).getPath(), stream -> {
+                DataOutputStream out = new DataOutputStream(stream);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                byte[] path = absolutePath(filePath).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(path.length);
+                out.write(path);
+                out.writeLong(fingerprint.dataSize());
+                out.writeLong(fingerprint.hash());
+
+                CRC32 crc = new CRC32();
+                // 緩衝放在 CRC 之前，CRC 以區塊計算而非逐位元組
+                DataOutputStream content = new DataOutputStream(
+                        new BufferedOutputStream(new CheckedOutputStream(stream, crc), 64 * 1024));
+                dataset.write(content);
+                content.flush();
+
+                out.writeLong(content.size());
+                out.writeLong(crc.getValue());
+                out.writeInt(MAGIC);
+                out.flush();
+            });
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            LogManager.getInstance().error("寫入資料快照失敗: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 檢查結尾記錄的長度與 CRC 是否與內容相符，相符時回傳 null
+     */
+    private static String verifyContent(MappedByteBuffer buffer) {
+        int trailer = buffer.limit() - TRAILER_SIZE;
+        long length = buffer.getLong(trailer);
+        long expectedCrc = buffer.getLong(trailer + 8);
+        if (buffer.getInt(trailer + 16) != MAGIC || length != trailer - buffer.position()) {
+            return "內容被截斷";
+        }
+        ByteBuffer content = buffer.duplicate();
+        content.limit(trailer);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue() == expectedCrc ? null : "CRC 不符";
+    }
+
+    File fileFor(String filePath) {
+        String name = UUID.nameUUIDFromBytes(absolutePath(filePath).getBytes(StandardCharsets.UTF_8)).toString();
+        return new File(directory, name + SUFFIX);
+    }
+
+    private static String absolutePath(String filePath) {
+        return new File(filePath).getAbsolutePath();
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("長度錯誤: " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void delete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            // 仍被映射時 (Windows) 無法刪除，下次寫入時會覆寫
+            LogManager.getInstance().warn("無法刪除資料快照: " + file.getPath());
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package da.api.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbookPr;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * 以 XSSF 事件模型 (SAX) 逐列讀取第一個工作表
+ * <p>
+ * 不建立完整的 Workbook 物件，記憶體用量只與共用字串表及目前列有關。
+ * 指定暫存目錄時共用字串表寫入暫存檔 (見 DiskSharedStrings)，heap 中每個字串只佔 8 bytes。
+ * 儲存格型別判斷與 XSSFCell 一致，讓呼叫端能得到與 DOM 讀取相同的結果。
+ */
+public class StreamingSheetReader {
+
+    /**
+     * 單一儲存格的原始內容
+     */
+    public static class SheetCell {
+        private final CellType type;
+        private final String text;
+        private final double numericValue;
+        private final boolean dateFormatted;
+        private final boolean date1904;
+
+        SheetCell(CellType type, String text, double numericValue, boolean dateFormatted, boolean date1904) {
+            this.type = type;
+            this.text = text;
+            this.numericValue = numericValue;
+            this.dateFormatted = dateFormatted;
+            this.date1904 = date1904;
+        }
+
+        public CellType getCellType() {
+            return type;
+        }
+
+        public String getStringValue() {
+            return text;
+        }
+
+        public double getNumericValue() {
+            return numericValue;
+        }
+
+        public boolean getBooleanValue() {
+            return "1".equals(text) || "true".equalsIgnoreCase(text);
+        }
+
+        /**
+         * 對應 DateUtil.isCellDateFormatted(cell)
+         */
+        public boolean isDateFormatted() {
+            return type == CellType.NUMERIC && dateFormatted && DateUtil.isValidExcelDate(numericValue);
+        }
+
+        public Date getDateValue() {
+            return DateUtil.getJavaDate(numericValue, date1904);
+        }
+    }
+
+    /**
+     * 逐列回呼
+     */
+    public interface RowHandler {
+        /**
+         * @param rowIndex 以 0 為起點的列索引
+         * @param cells    依欄位索引排列的儲存格，未出現的儲存格為 null
+         * @return 是否繼續解析
+         */
+        boolean handleRow(int rowIndex, SheetCell[] cells);
+    }
+
+    /**
+     * 由 handler 要求中止時用來跳出 SAX 解析
+     */
+    private static class StopParsingException extends SAXException {
+        StopParsingException() {
+            super("stop");
+        }
+    }
+
+    /**
+     * 取得共用字串
+     */
+    private interface SharedStringLookup {
+        String get(int index) throws IOException;
+    }
+
+    private final String filePath;
+    private final File spillDirectory;
+
+    public StreamingSheetReader(String filePath) {
+        this(filePath, null);
+    }
+
+    /**
+     * @param spillDirectory 共用字串表的暫存目錄，null 時存放在 heap
+     */
+    public StreamingSheetReader(String filePath, File spillDirectory) {
+        this.filePath = filePath;
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * 刪除 directory 中先前異常結束留下的共用字串暫存檔
+     */
+    public static void deleteStaleFiles(File directory) {
+        DiskSharedStrings.deleteStale(directory);
+    }
+
+    /**
+     * 讀取第一個工作表，每解析完一列即呼叫 handler
+     *
+     * @return 是否讀到工作表結尾；handler 要求提前結束時為 false
+     */
+    public boolean read(RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(filePath, PackageAccess.READ)) {
+            if (spillDirectory == null) {
+                ReadOnlySharedStringsTable table = new ReadOnlySharedStringsTable(pkg, false);
+                return read(pkg, index -> table.getItemAt(index).getString(), handler);
+            }
+            try (DiskSharedStrings table = DiskSharedStrings.read(pkg, spillDirectory)) {
+                return read(pkg, table::get, handler);
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("串流讀取工作表失敗: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean read(OPCPackage pkg, SharedStringLookup sharedStrings, RowHandler handler) throws Exception {
+        XSSFReader reader = new XSSFReader(pkg);
+        StylesTable styles = reader.getStylesTable();
+        boolean date1904 = isDate1904(reader);
+
+        Iterator<InputStream> sheets = reader.getSheetsData();
+        if (!sheets.hasNext()) {
+            return true;
+        }
+
+        try (InputStream sheet = sheets.next()) {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new SheetHandler(sharedStrings, styles, date1904, handler));
+            try {
+                parser.parse(new InputSource(sheet));
+            } catch (StopParsingException e) {
+                // handler 要求提前結束
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 活頁簿是否使用 1904 日期系統
+     */
+    static boolean isDate1904(XSSFReader reader) {
+        try (InputStream is = reader.getWorkbookData()) {
+            CTWorkbookPr pr = WorkbookDocument.Factory.parse(is).getWorkbook().getWorkbookPr();
+            return pr != null && pr.isSetDate1904() && pr.getDate1904();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 工作表 XML 的 SAX 處理器
+     */
+    private static class SheetHandler extends DefaultHandler {
+        private final SharedStringLookup sharedStrings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final RowHandler rowHandler;
+
+        // 樣式索引 -> 是否為日期格式 (避免每格重複判斷格式字串)
+        private final Map<Integer, Boolean> dateStyleCache = new HashMap<>();
+
+        private final List<SheetCell> rowCells = new ArrayList<>();
+        private final List<Integer> rowColumns = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+
+        private int currentRow = -1;
+        private int currentColumn = -1;
+        private String cellType;
+        private int styleIndex;
+        private boolean hasFormula;
+        private boolean hasValue;
+        private boolean inValue;
+        private boolean inInlineText;
+
+        SheetHandler(SharedStringLookup sharedStrings, StylesTable styles, boolean date1904,
+                RowHandler rowHandler) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.rowHandler = rowHandler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String r = attributes.getValue("r");
+                    currentRow = (r != null) ? Integer.parseInt(r) - 1 : currentRow + 1;
+                    currentColumn = -1;
+                    rowCells.clear();
+                    rowColumns.clear();
+                    break;
+                case "c":
+                    String ref = attributes.getValue("r");
+                    currentColumn = (ref != null) ? new CellReference(ref).getCol() : currentColumn + 1;
+                    cellType = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    styleIndex = (s != null) ? Integer.parseInt(s) : 0;
+                    hasFormula = false;
+                    hasValue = false;
+                    text.setLength(0);
+                    break;
+                case "f":
+                    hasFormula = true;
+                    break;
+                case "v":
+                    inValue = true;
+                    hasValue = true;
+                    break;
+                case "t":
+                    // 行內字串 <is><t>..</t></is>，含 rich text 的 <r><t> 片段
+                    if ("inlineStr".equals(cellType)) {
+                        inInlineText = true;
+                        hasValue = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue || inInlineText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                    inValue = false;
+                    break;
+                case "t":
+                    inInlineText = false;
+                    break;
+                case "c":
+                    rowColumns.add(currentColumn);
+                    rowCells.add(buildCell());
+                    break;
+                case "row":
+                    if (!rowHandler.handleRow(currentRow, toArray())) {
+                        throw new StopParsingException();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private SheetCell[] toArray() {
+            int width = 0;
+            for (Integer col : rowColumns) {
+                width = Math.max(width, col + 1);
+            }
+            SheetCell[] cells = new SheetCell[width];
+            for (int i = 0; i < rowCells.size(); i++) {
+                cells[rowColumns.get(i)] = rowCells.get(i);
+            }
+            return cells;
+        }
+
+        /**
+         * 依 XSSFCell.getCellType() 的規則判斷儲存格型別
+         */
+        private SheetCell buildCell() throws SAXException {
+            String value = text.toString();
+            if (hasFormula) {
+                return new SheetCell(CellType.FORMULA, value, 0, false, date1904);
+            }
+            if (cellType == null || "n".equals(cellType)) {
+                if (!hasValue || value.isEmpty()) {
+                    return new SheetCell(CellType.BLANK, "", 0, false, date1904);
+                }
+                double number = Double.parseDouble(value);
+                return new SheetCell(CellType.NUMERIC, value, number, isDateStyle(styleIndex), date1904);
+            }
+            switch (cellType) {
+                case "s":
+                    String shared = "";
+                    if (!value.isEmpty()) {
+                        try {
+                            shared = sharedStrings.get(Integer.parseInt(value));
+                        } catch (IOException e) {
+                            throw new SAXException("讀取共用字串失敗", e);
+                        }
+                    }
+                    return new SheetCell(CellType.STRING, shared, 0, false, date1904);
+                case "inlineStr":
+                case "str":
+                    return new SheetCell(CellType.STRING, value, 0, false, date1904);
+                case "b":
+                    return new SheetCell(CellType.BOOLEAN, value, 0, false, date1904);
+                case "e":
+                    return new SheetCell(CellType.ERROR, value, 0, false, date1904);
+                default:
+                    return new SheetCell(CellType.BLANK, "", 0, false, date1904);
+            }
+        }
+
+        private boolean isDateStyle(int index) {
+            Boolean cached = dateStyleCache.get(index);
+            if (cached != null) {
+                return cached;
+            }
+            boolean isDate = false;
+            if (styles != null && index < styles.getNumCellStyles()) {
+                XSSFCellStyle style = styles.getStyleAt(index);
+                if (style != null) {
+                    isDate = DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+                }
+            }
+            dateStyleCache.put(index, isDate);
+            return isDate;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package da.api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 下拉選單建議項目的子字串索引
+ * <p>
+ * 建立時將每個項目轉為小寫一次，並記錄每個字元與相鄰兩字元出現在哪些項目中。
+ * 查詢時取查詢字串中出現次數最少的字元組作為候選，再逐一確認是否包含整個查詢字串，
+ * 不必每次輸入都走訪並轉換所有項目。查詢只是延長上一次的輸入時，直接從上一次的結果中篩選。
+ * <p>
+ * 結果依項目原本的順序排列，比對方式與 String.contains 相同 (不分大小寫)。只在單一執行緒上使用。
+ * searchSimilar 另外附上容許打錯字的相近項目，所需的 FuzzyIndex 在第一次使用時才建立。
+ */
+public class SuggestionIndex {
+
+    private final String[] items;
+    private final String[] keys;
+    // 字元 (或相鄰兩字元) -> 含有它的項目索引，由小到大
+    private final Map<Long, int[]> grams = new HashMap<>();
+
+    // 相近項目的索引，未使用模糊比對時不建立
+    private FuzzyIndex fuzzy;
+
+    // 上一次查詢的全部結果
+    private String lastKey;
+    private int[] lastMatches;
+
+    public SuggestionIndex(List<String> items) {
+        this.items = items.toArray(new String[0]);
+        this.keys = new String[this.items.length];
+        Map<Long, Postings> postings = new HashMap<>();
+        for (int i = 0; i < this.items.length; i++) {
+            String key = this.items[i].toLowerCase();
+            keys[i] = key;
+            for (int c = 0; c < key.length(); c++) {
+                postings.computeIfAbsent(gram(key, c, 1), g -> new Postings()).add(i);
+                if (c + 1 < key.length()) {
+                    postings.computeIfAbsent(gram(key, c, 2), g -> new Postings()).add(i);
+                }
+            }
+        }
+        for (Map.Entry<Long, Postings> entry : postings.entrySet()) {
+            grams.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * 包含 query (不分大小寫) 的前 limit 個項目；query 為空時回傳前 limit 個項目
+     */
+    public List<String> search(String query, int limit) {
+        String key = query != null ? query.toLowerCase() : "";
+        List<String> result = new ArrayList<>(Math.min(limit, items.length));
+        if (key.isEmpty()) {
+            for (int i = 0; i < items.length && result.size() < limit; i++) {
+                result.add(items[i]);
+            }
+            return result;
+        }
+        int[] matches = matches(key);
+        for (int i = 0; i < matches.length && result.size() < limit; i++) {
+            result.add(items[matches[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * 包含 query 的項目在前 (依項目順序)，之後是與 query 相近但不包含它的項目 (依編輯距離)，最多 limit 個
+     */
+    public List<String> searchSimilar(String query, int limit) {
+        List<String> result = search(query, limit);
+        if (result.size() >= limit || query == null || FuzzyIndex.maxDistance(query) == 0) {
+            return result;
+        }
+        if (fuzzy == null) {
+            fuzzy = new FuzzyIndex(Arrays.asList(items));
+        }
+        HashSet<String> included = new HashSet<>(result);
+        for (String item : fuzzy.search(query, limit)) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (included.add(item)) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 包含 key 的全部項目索引
+     */
+    private int[] matches(String key) {
+        if (key.equals(lastKey)) {
+            return lastMatches;
+        }
+        int[] candidates;
+        boolean exact;
+        if (lastKey != null && key.contains(lastKey)) {
+            // 延長上一次的輸入，結果必定在上一次的結果中
+            candidates = lastMatches;
+            exact = false;
+        } else if (key.length() == 1) {
+            candidates = grams.getOrDefault(gram(key, 0, 1), new int[0]);
+            exact = true;
+        } else {
+            candidates = rarestPair(key);
+            exact = key.length() == 2;
+        }
+
+        int[] matches = candidates;
+        if (!exact) {
+            matches = new int[candidates.length];
+            int count = 0;
+            for (int item : candidates) {
+                if (keys[item].contains(key)) {
+                    matches[count++] = item;
+                }
+            }
+            matches = Arrays.copyOf(matches, count);
+        }
+        lastKey = key;
+        lastMatches = matches;
+        return matches;
+    }
+
+    /**
+     * 查詢字串中出現次數最少的相鄰兩字元所對應的項目
+     */
+    private int[] rarestPair(String key) {
+        int[] rarest = null;
+        for (int c = 0; c + 1 < key.length(); c++) {
+            int[] items = grams.get(gram(key, c, 2));
+            if (items == null) {
+                return new int[0];
+            }
+            if (rarest == null || items.length < rarest.length) {
+                rarest = items;
+            }
+        }
+        return rarest;
+    }
+
+    /**
+     * 單一字元為 0 ~ 0xFFFF，兩字元組合則一律大於 0xFFFF，兩者不會重複
+     */
+    private static long gram(String key, int start, int length) {
+        char first = key.charAt(start);
+        return length == 1 ? first : ((first + 1L) << 16) | key.charAt(start + 1);
+    }
+
+    private static final class Postings {
+        private int[] items = new int[4];
+        private int size;
+
+        void add(int item) {
+            // 同一項目依序加入，只需與最後一筆比較即可去除重複
+            if (size > 0 && items[size - 1] == item) {
+                return;
+            }
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = item;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(items, size);
+        }
+    }
+}
@@ -159,6 +159,51 @@ public class AppSettings {
         saveSettings();
     }
 
+    /**
+     * 取得即時篩選 (輸入時自動查詢) 設定
+     */
+    public boolean isLiveSearch() {
+        return Boolean.parseBoolean(properties.getProperty("global.liveSearch", "false"));
+    }
+
+    /**
+     * 設定即時篩選
+     */
+    public void setLiveSearch(boolean liveSearch) {
+        properties.setProperty("global.liveSearch", String.valueOf(liveSearch));
+        saveSettings();
+    }
+
+    /**
+     * 取得模糊比對 (容許打錯字) 設定
+     */
+    public boolean isFuzzySearch() {
+        return Boolean.parseBoolean(properties.getProperty("global.fuzzySearch", "false"));
+    }
+
+    /**
+     * 設定模糊比對
+     */
+    public void setFuzzySearch(boolean fuzzySearch) {
+        properties.setProperty("global.fuzzySearch", String.valueOf(fuzzySearch));
+        saveSettings();
+    }
+
+    /**
+     * 取得磁碟暫存 (大型資料的列資料存於記憶體映射暫存檔) 設定
+     */
+    public boolean isOffHeapStorage() {
+        return Boolean.parseBoolean(properties.getProperty("global.offHeapStorage", "false"));
+    }
+
+    /**
+     * 設定磁碟暫存
+     */
+    public void setOffHeapStorage(boolean offHeapStorage) {
+        properties.setProperty("global.offHeapStorage", String.valueOf(offHeapStorage));
+        saveSettings();
+    }
+
     /**
      * 取得指定檔案的最小化到系統匣設定（若未設定則使用全域設定）
      */
@@ -261,7 +306,9 @@ public class AppSettings {
             // 由於 ColumnConfig 通常需要 allHeaders 來驗證或顯示，但嚴格來說對於提示，我們可能只需要載入偏好設定。
             // 實際上，我們將此設定傳遞給 ExcelService/Panel。
             // 我們應該只填入我們擁有的。ExcelService 無論如何都會從檔案讀取標題。
-            return new da.api.model.ColumnConfig(expiryCol, filters, new java.util.ArrayList<>());
+            String keyCol = properties.getProperty("config." + keyHash + ".key", "");
+            return new da.api.model.ColumnConfig(expiryCol, filters, new java.util.ArrayList<>(),
+                    keyCol.isEmpty() ? null : keyCol);
         }
         return null;
     }
@@ -276,6 +323,9 @@ public class AppSettings {
         String filterStr = (filters != null) ? String.join(";", filters) : "";
         properties.setProperty("config." + keyHash + ".filters", filterStr);
 
+        String key = config.getKeyColumn();
+        properties.setProperty("config." + keyHash + ".key", key != null ? key : "");
+
         saveSettings();
     }
 
@@ -286,6 +336,7 @@ public class AppSettings {
         String keyHash = String.valueOf(filePath.hashCode());
         properties.remove("config." + keyHash + ".expiry");
         properties.remove("config." + keyHash + ".filters");
+        properties.remove("config." + keyHash + ".key");
         properties.remove("config." + keyHash + ".autoStart");
         properties.remove("config." + keyHash + ".minimizeToTray");
         properties.remove("config." + keyHash + ".expiryReminderDays");
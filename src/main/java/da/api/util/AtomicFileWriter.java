@@ -0,0 +1,84 @@
+package da.api.util;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 以「暫存檔 → fsync → 原子更名」的方式寫入檔案
+ * <p>
+ * 寫入過程中目標檔案維持原本內容，程式當機或斷電時不會留下寫到一半的檔案，
+ * 監控檔案的執行緒也只會看到完整的舊檔或新檔。
+ */
+public class AtomicFileWriter {
+    // 暫存檔命名: .<原檔名>.<亂數>.saving
+    private static final String TEMP_PREFIX = ".";
+    private static final String TEMP_SUFFIX = ".saving";
+
+    /**
+     * 寫入內容的回呼
+     */
+    public interface StreamWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * 將 writer 產生的內容寫入暫存檔，同步到磁碟後取代目標檔案
+     */
+    public static void write(String filePath, StreamWriter writer) throws IOException {
+        Path target = Paths.get(filePath).toAbsolutePath();
+        Path dir = target.getParent();
+        Path temp = Files.createTempFile(dir, TEMP_PREFIX + target.getFileName() + ".", TEMP_SUFFIX);
+        try {
+            try (FileOutputStream fos = new FileOutputStream(temp.toFile());
+                    BufferedOutputStream out = new BufferedOutputStream(fos, 64 * 1024)) {
+                writer.write(out);
+                out.flush();
+                // 確保資料真正寫入磁碟後才更名
+                fos.getChannel().force(true);
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory(dir);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 是否為本類別產生的暫存檔 (供檔案監控忽略)
+     */
+    public static boolean isTempFile(Path path) {
+        if (path == null || path.getFileName() == null) {
+            return false;
+        }
+        String name = path.getFileName().toString();
+        return name.startsWith(TEMP_PREFIX) && name.endsWith(TEMP_SUFFIX);
+    }
+
+    /**
+     * 同步目錄項目，讓更名結果也寫入磁碟 (Windows 不支援開啟目錄，略過)
+     */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // 不支援目錄同步的平台
+        }
+    }
+}
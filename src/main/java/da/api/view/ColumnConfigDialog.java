@@ -27,15 +27,19 @@ public class ColumnConfigDialog extends JDialog {
     private List<String> headers;
     private ColumnConfig config;
     private JComboBox<String> expiryDateComboBox;
+    private JComboBox<String> keyColumnComboBox;
     private List<JCheckBox> searchFilterCheckBoxes;
     private boolean confirmed = false;
 
+    // 未指定鍵值欄位時的選項
+    private static final String NO_KEY_COLUMN = "（整列比對）";
+
     public ColumnConfigDialog(List<String> headers, ColumnConfig existingConfig) {
         this.headers = headers;
         this.config = existingConfig;
         setModal(true);
         setTitle("欄位設定");
-        setSize(480, 600);
+        setSize(480, 700);
         setLocationRelativeTo(null);
 
         // 隱藏圖示
@@ -89,6 +93,42 @@ public class ColumnConfigDialog extends JDialog {
         expiryContent.add(expiryDateComboBox);
         expirySection.add(expiryContent, BorderLayout.CENTER);
 
+        // ============ 資料鍵值欄位區域 ============
+        JPanel keySection = createSection("設定資料鍵值欄位（重新載入時辨識同一筆資料）", new Color(250, 245, 255));
+
+        JPanel keyContent = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+        keyContent.setBackground(Color.WHITE);
+        keyContent.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+
+        JLabel keyLabel = new JLabel("選擇欄位：");
+        keyLabel.setFont(new Font("微軟正黑體", Font.PLAIN, 14));
+        keyLabel.setForeground(new Color(55, 65, 81));
+
+        keyColumnComboBox = new JComboBox<>();
+        keyColumnComboBox.addItem(NO_KEY_COLUMN);
+        for (String header : headers) {
+            keyColumnComboBox.addItem(header);
+        }
+        keyColumnComboBox.setFont(new Font("微軟正黑體", Font.PLAIN, 14));
+        keyColumnComboBox.setPreferredSize(new Dimension(250, 36));
+        keyColumnComboBox.setBackground(Color.WHITE);
+        keyColumnComboBox.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(209, 213, 219), 1, true),
+                BorderFactory.createEmptyBorder(5, 10, 5, 10)));
+
+        if (existingConfig != null && existingConfig.getKeyColumn() != null) {
+            keyColumnComboBox.setSelectedItem(existingConfig.getKeyColumn());
+        }
+
+        keyContent.add(keyLabel);
+        keyContent.add(keyColumnComboBox);
+        keySection.add(keyContent, BorderLayout.CENTER);
+
+        JPanel topSections = new JPanel(new BorderLayout(0, 15));
+        topSections.setBackground(new Color(248, 249, 250));
+        topSections.add(expirySection, BorderLayout.NORTH);
+        topSections.add(keySection, BorderLayout.SOUTH);
+
         // ============ 搜尋過濾欄位區域 ============
         JPanel filterSection = createSection("設定搜尋過濾欄位（多選）", new Color(240, 253, 244));
 
@@ -153,7 +193,7 @@ public class ColumnConfigDialog extends JDialog {
         buttonPanel.add(cancelButton);
 
         // 組合面板
-        mainContainer.add(expirySection, BorderLayout.NORTH);
+        mainContainer.add(topSections, BorderLayout.NORTH);
         mainContainer.add(filterSection, BorderLayout.CENTER);
         mainContainer.add(buttonPanel, BorderLayout.SOUTH);
 
@@ -231,7 +271,12 @@ public class ColumnConfigDialog extends JDialog {
             return;
         }
 
-        config = new ColumnConfig(selectedExpiry, selectedFilters, headers);
+        String selectedKey = (String) keyColumnComboBox.getSelectedItem();
+        if (NO_KEY_COLUMN.equals(selectedKey)) {
+            selectedKey = null;
+        }
+
+        config = new ColumnConfig(selectedExpiry, selectedFilters, headers, selectedKey);
         confirmed = true;
         dispose();
     }
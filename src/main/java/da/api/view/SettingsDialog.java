@@ -25,6 +25,7 @@ import da.api.util.AutoStartManager;
 public class SettingsDialog extends JDialog {
     private JCheckBox autoStartCheckBox;
     private JCheckBox minimizeToTrayCheckBox;
+    private JCheckBox offHeapStorageCheckBox;
     private AppSettings appSettings;
     private String filePath;
 
@@ -36,7 +37,7 @@ public class SettingsDialog extends JDialog {
         initComponents();
         loadSettings();
 
-        setSize(520, 420);
+        setSize(520, 500);
         setLocationRelativeTo(parent);
         setResizable(false);
     }
@@ -91,9 +92,23 @@ public class SettingsDialog extends JDialog {
         trayDesc.setBorder(BorderFactory.createEmptyBorder(0, 30, 0, 0));
         trayPanel.add(trayDesc);
 
+        // 磁碟暫存 (全域設定)
+        JPanel offHeapPanel = createSettingItem();
+        offHeapStorageCheckBox = new JCheckBox("大型資料使用磁碟暫存");
+        styleCheckBox(offHeapStorageCheckBox);
+        offHeapPanel.add(offHeapStorageCheckBox);
+
+        JLabel offHeapDesc = new JLabel("列資料存於暫存檔，可開啟數百萬列的檔案 (重新開啟檔案後生效)");
+        offHeapDesc.setFont(new Font("微軟正黑體", Font.PLAIN, 12));
+        offHeapDesc.setForeground(new Color(107, 114, 128));
+        offHeapDesc.setBorder(BorderFactory.createEmptyBorder(0, 30, 0, 0));
+        offHeapPanel.add(offHeapDesc);
+
         settingsPanel.add(autoStartPanel);
         settingsPanel.add(javax.swing.Box.createVerticalStrut(15));
         settingsPanel.add(trayPanel);
+        settingsPanel.add(javax.swing.Box.createVerticalStrut(15));
+        settingsPanel.add(offHeapPanel);
 
         // ============ 按鈕區域 ============
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 15));
@@ -198,6 +213,7 @@ public class SettingsDialog extends JDialog {
             autoStartCheckBox.setSelected(appSettings.isGlobalAutoStart());
             minimizeToTrayCheckBox.setSelected(appSettings.isGlobalMinimizeToTray());
         }
+        offHeapStorageCheckBox.setSelected(appSettings.isOffHeapStorage());
     }
 
     private void saveSettings() {
@@ -214,10 +230,13 @@ public class SettingsDialog extends JDialog {
             appSettings.setGlobalAutoStart(autoStart);
             appSettings.setGlobalMinimizeToTray(minimizeToTray);
         }
+        boolean offHeapStorage = offHeapStorageCheckBox.isSelected();
+        appSettings.setOffHeapStorage(offHeapStorage);
 
         // 記錄設定變更
         da.api.util.LogManager.getInstance().info(
-                String.format("使用者儲存偏好設定: [開機自動啟動: %b, 最小化到托盤: %b]", autoStart, minimizeToTray));
+                String.format("使用者儲存偏好設定: [開機自動啟動: %b, 最小化到托盤: %b, 磁碟暫存: %b]", autoStart,
+                        minimizeToTray, offHeapStorage));
 
         // 設定開機自動啟動
         if (AutoStartManager.setAutoStart(autoStart)) {
@@ -0,0 +1,135 @@
+package da.api.view.element;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import da.api.model.ExcelData;
+import da.api.model.ExcelDataset;
+import da.api.service.RowDiffEngine;
+
+/**
+ * 直接以資料集為來源的表格模型
+ * <p>
+ * 不複製任何儲存格：表格繪製時才依列位置與欄位位置從欄式資料讀值，也不建立列的檢視物件。
+ * 重新篩選只需更換資料集 (查詢結果只是另一份列編號陣列)，新增 / 修改 / 刪除則發出對應的單列事件，
+ * JTable 會保留選取與捲動位置。第一欄為序號 (依列位置計算)。
+ */
+public class ExcelTableModel extends AbstractTableModel {
+    private static final String INDEX_COLUMN = "序號";
+
+    private final List<String> headers;
+    private ExcelDataset rows;
+    // 各標題在資料集中的欄位位置，更換資料集時重新查詢
+    private int[] columns;
+
+    public ExcelTableModel(List<String> headers, ExcelDataset rows) {
+        this.headers = new ArrayList<>(headers);
+        this.rows = rows;
+        this.columns = resolveColumns(rows);
+    }
+
+    /**
+     * 是否與指定標題相同 (相同時可沿用此模型)
+     */
+    public boolean hasHeaders(List<String> other) {
+        return headers.equals(other);
+    }
+
+    /**
+     * 更換整份資料 (例如重新篩選)
+     */
+    public void setRows(ExcelDataset rows) {
+        this.rows = rows;
+        this.columns = resolveColumns(rows);
+        fireTableDataChanged();
+    }
+
+    public ExcelData getRow(int row) {
+        return rows.get(row);
+    }
+
+    /**
+     * 在 index 插入一列並通知表格
+     */
+    public void insertRow(int index, ExcelData data) {
+        rows.add(index, data);
+        fireTableRowsInserted(index, index);
+    }
+
+    /**
+     * 取代 index 的列並通知表格
+     */
+    public void updateRow(int index, ExcelData data) {
+        rows.set(index, data);
+        fireTableRowsUpdated(index, index);
+    }
+
+    /**
+     * 刪除 index 的列並通知表格；之後各列的序號隨之改變
+     */
+    public void removeRow(int index) {
+        rows.remove(index);
+        fireTableRowsDeleted(index, index);
+    }
+
+    /**
+     * 依序套用差異到資料集並通知表格
+     */
+    public void applyChanges(List<RowDiffEngine.RowChange> changes) {
+        for (RowDiffEngine.RowChange change : changes) {
+            int index = change.getIndex();
+            switch (change.getType()) {
+                case INSERT:
+                    insertRow(index, change.getRow());
+                    break;
+                case UPDATE:
+                    updateRow(index, change.getRow());
+                    break;
+                case DELETE:
+                    removeRow(index);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return headers.size() + 1;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return column == 0 ? INDEX_COLUMN : headers.get(column - 1);
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        if (columnIndex == 0) {
+            return rowIndex + 1;
+        }
+        String value = rows.getValue(rowIndex, columns[columnIndex - 1]);
+        return value != null ? value : "";
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // 表格不可直接編輯
+    }
+
+    private int[] resolveColumns(ExcelDataset dataset) {
+        int[] resolved = new int[headers.size()];
+        for (int i = 0; i < resolved.length; i++) {
+            resolved[i] = dataset.columnOf(headers.get(i));
+        }
+        return resolved;
+    }
+}
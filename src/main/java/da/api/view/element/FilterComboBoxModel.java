@@ -0,0 +1,114 @@
+package da.api.view.element;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+/**
+ * 篩選下拉選單的模型
+ * <p>
+ * 直接讀取欄位排序好的不重複值 (第一項固定為 ALL)，不複製成陣列；
+ * 下拉清單只會向模型取出畫面上看得到的項目。值為排序過的清單，判斷某個值是否存在只需二分搜尋。
+ * 輸入文字時可改為只顯示建議項目，清除文字後再回到完整清單。
+ */
+public class FilterComboBoxModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+    public static final String ALL = "ALL";
+
+    // 排序過的不重複值，不含 ALL
+    private List<String> values;
+    // 輸入文字時顯示的建議項目，null 表示顯示完整清單
+    private List<String> suggestions;
+    private Object selectedItem = ALL;
+
+    public FilterComboBoxModel(List<String> values) {
+        this.values = values;
+    }
+
+    /**
+     * 更換資料來源或來源內容已變更 (例如新增或編輯一列)，並回到完整清單
+     */
+    public void setValues(List<String> values) {
+        this.values = values;
+        this.suggestions = null;
+        fireItemsChanged();
+    }
+
+    /**
+     * 只顯示建議項目
+     */
+    public void showSuggestions(List<String> suggestions) {
+        this.suggestions = suggestions;
+        fireItemsChanged();
+    }
+
+    /**
+     * 顯示完整清單
+     */
+    public void showAll() {
+        if (suggestions != null) {
+            suggestions = null;
+            fireItemsChanged();
+        }
+    }
+
+    /**
+     * 完整清單 (含 ALL)，供建立建議索引使用
+     */
+    public List<String> getAllItems() {
+        return new AllItems();
+    }
+
+    /**
+     * ALL 或欄位中存在的值
+     */
+    public boolean contains(String value) {
+        return ALL.equals(value) || (value != null && Collections.binarySearch(values, value) >= 0);
+    }
+
+    @Override
+    public int getSize() {
+        return suggestions != null ? suggestions.size() : values.size() + 1;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        if (suggestions != null) {
+            return suggestions.get(index);
+        }
+        return index == 0 ? ALL : values.get(index - 1);
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        if (!Objects.equals(selectedItem, item)) {
+            selectedItem = item;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selectedItem;
+    }
+
+    private void fireItemsChanged() {
+        fireContentsChanged(this, 0, Math.max(0, getSize() - 1));
+    }
+
+    private final class AllItems extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            return index == 0 ? ALL : values.get(index - 1);
+        }
+
+        @Override
+        public int size() {
+            return values.size() + 1;
+        }
+    }
+}
@@ -29,11 +29,13 @@ public class Panel {
 
     private MainFrameView frameElement;
     private JTable dataTable;
+    private ExcelTableModel tableModel;
     private ExcelService excelService;
-    private List<ExcelData> currentData;
+    private da.api.model.ExcelDataset currentData;
     // 本地按鈕元件
 
-    private List<ExcelData> allData;
+    // 欄式資料集；currentData 與儲存快照都共用它的列資料，只複製列編號
+    private da.api.model.ExcelDataset allData;
 
     private da.api.model.ColumnConfig columnConfig;
     private JPanel filtersPanel;
@@ -41,12 +43,59 @@ public class Panel {
     private java.util.Map<String, javax.swing.JComboBox<String>> dynamicComboBoxes = new java.util.HashMap<>();
 
     // 檔案監控
-    private java.util.concurrent.ScheduledExecutorService fileMonitorExecutor;
-    private long lastModifiedTime = 0;
-    private boolean isInternalChange = false;
+    private da.api.service.FileChangeMonitor fileMonitor;
+    // 目前 allData 對應的檔案內容指紋
+    private volatile da.api.service.FileFingerprint syncedFingerprint;
+    // 本地編輯次數 (新增、編輯、刪除與回滾時遞增)；外部變更讀取期間若有變動，讀到的內容可能不含這些編輯
+    private final java.util.concurrent.atomic.AtomicLong localEdits = new java.util.concurrent.atomic.AtomicLong();
+
+    // 背景寫入佇列
+    private da.api.service.ExcelSaveQueue saveQueue;
+    // 最近一次查詢編譯出的篩選條件，表格目前顯示的就是符合此條件的資料
+    private da.api.service.FilterQuery currentFilter = da.api.service.FilterQuery.all();
+    // 背景查詢，新查詢會取消仍在執行的舊查詢
+    private da.api.service.SearchRunner searchRunner;
+    // 查詢超過 SEARCH_PROGRESS_DELAY_MS 仍未完成時顯示
+    private javax.swing.JProgressBar searchProgress;
+    private static final long SEARCH_PROGRESS_DELAY_MS = 200;
+    // 即時篩選：停止輸入超過此時間才查詢
+    private static final int LIVE_SEARCH_DELAY_MS = 250;
+    private javax.swing.Timer liveSearchTimer;
+    private javax.swing.JCheckBox liveSearchCheckBox;
+    // 模糊比對開關：下拉選單建議與關鍵字搜尋容許打錯字
+    private javax.swing.JCheckBox fuzzySearchCheckBox;
+    private final da.api.service.LiveFilter liveFilter = new da.api.service.LiveFilter();
+    // 查詢結果筆數
+    private javax.swing.JLabel searchStatusLabel;
+    // 全文搜尋 (任一欄位包含) 輸入框，及目前結果中要標示的文字 (小寫，無時為 null)
+    private javax.swing.JTextField fullTextField;
+    private String highlightText;
 
     // 到期提醒天數顯示標籤
     private javax.swing.JLabel expiryReminderLabel;
+    // 每天午夜重新計算到期狀態
+    private javax.swing.Timer midnightTimer;
+
+    // 背景載入資料的執行緒，沒有進行中的載入時為 null
+    private Thread loadThread;
+    // 建立全文索引的執行緒，同時只保留最新的一個
+    private Thread fullTextIndexer;
+    // 資料尚未完整載入 (載入中或載入被取消)，此時不可編輯或查詢，避免以部分資料寫回檔案
+    private boolean loadIncomplete;
+    // 載入前的完整資料，取消載入時恢復；原本沒有資料時為 null
+    private da.api.model.ExcelDataset dataBeforeLoad;
+    // 每讀取此列數就在表格先顯示已讀的資料
+    private static final int LOAD_PROGRESS_ROWS = 20_000;
+    private JPanel loadPanel;
+    private javax.swing.JProgressBar loadProgress;
+    private JButton loadButton;
+
+    // 表格列的到期與搜尋標示顏色，繪製每個儲存格時共用
+    private static final java.awt.Color EXPIRED_BACKGROUND = new java.awt.Color(255, 205, 210); // 淺紅色
+    private static final java.awt.Color EXPIRED_FOREGROUND = new java.awt.Color(198, 40, 40); // 深紅色文字
+    private static final java.awt.Color EXPIRING_BACKGROUND = new java.awt.Color(255, 243, 205); // 淺黃色
+    private static final java.awt.Color EXPIRING_FOREGROUND = new java.awt.Color(133, 100, 4); // 深黃/褐色文字
+    private static final java.awt.Color HIGHLIGHT_BACKGROUND = new java.awt.Color(187, 222, 251); // 淺藍色
 
     // 主面板
     private JPanel jPanelMain;
@@ -62,6 +111,21 @@ public class Panel {
         this.columnConfig = columnConfig;
         this.appSettings = appSettings;
 
+        searchRunner = new da.api.service.SearchRunner(javax.swing.SwingUtilities::invokeLater,
+                SEARCH_PROGRESS_DELAY_MS, visible -> searchProgress.setVisible(visible));
+        liveSearchTimer = new javax.swing.Timer(LIVE_SEARCH_DELAY_MS, e -> performLiveSearch());
+        liveSearchTimer.setRepeats(false);
+        midnightTimer = new javax.swing.Timer(millisUntilMidnight(), e -> {
+            refreshExpiryStatus();
+            midnightTimer.setInitialDelay(millisUntilMidnight());
+            midnightTimer.restart();
+        });
+        midnightTimer.setRepeats(false);
+        midnightTimer.start();
+        if (excelService != null) {
+            initSaveQueue();
+        }
+
         jPanelMain = new JPanel();
         jPanelMain.setLayout(new BoxLayout(jPanelMain, BoxLayout.Y_AXIS));
         jPanelMain.setBackground(new java.awt.Color(245, 247, 250)); // 淺灰色背景增加對比度
@@ -86,6 +150,28 @@ public class Panel {
         }
     }
 
+    /**
+     * 建立背景寫入佇列
+     */
+    private void initSaveQueue() {
+        saveQueue = new da.api.service.ExcelSaveQueue(excelService, javax.swing.SwingUtilities::invokeLater);
+
+        // 視窗關閉時寫完尚未完成的變更
+        frameElement.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                stopFileMonitoring();
+                liveSearchTimer.stop();
+                midnightTimer.stop();
+                cancelLoad();
+                stopFullTextIndexer();
+                searchRunner.close();
+                // 在背景寫完，不阻塞 UI 執行緒 (寫入執行緒結束前程式不會退出)
+                saveQueue.closeAsync(null);
+            }
+        });
+    }
+
     private void startFileMonitoring(String filePath) {
         stopFileMonitoring();
 
@@ -93,43 +179,88 @@ public class Panel {
         if (!file.exists())
             return;
 
-        lastModifiedTime = file.lastModified();
+        // 目錄事件通知，檔案系統不支援時自動改為輪詢
+        fileMonitor = new da.api.service.FileChangeMonitor(file.toPath(), () -> checkExternalChange(filePath));
+        fileMonitor.start();
+    }
 
-        fileMonitorExecutor = java.util.concurrent.Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "FileMonitor");
-            t.setDaemon(true);
-            return t;
-        });
+    /**
+     * 收到檔案變更通知時，比對內容指紋判斷資料是否真的改變
+     */
+    private void checkExternalChange(String filePath) {
+        // 寫入進行中時會等到寫完並記錄指紋後才回傳
+        da.api.service.FileFingerprint current = excelService.currentFingerprint();
+        if (current == null || current.equals(syncedFingerprint)) {
+            return;
+        }
+        // 內容與自己最後寫入的相同，記憶體中的資料已是最新
+        if (current.equals(excelService.getLastWrittenFingerprint())) {
+            syncedFingerprint = current;
+            return;
+        }
 
-        fileMonitorExecutor.scheduleWithFixedDelay(() -> {
-            java.io.File monitoredFile = new java.io.File(filePath);
-            if (monitoredFile.exists()) {
-                long currentModified = monitoredFile.lastModified();
-                if (currentModified > lastModifiedTime) {
-                    lastModifiedTime = currentModified;
+        da.api.service.FileFingerprint previous = syncedFingerprint;
+        syncedFingerprint = current;
+        // 外部變更：在監控執行緒上讀取，UI 執行緒只套用差異
+        long edits = localEdits.get();
+        saveQueue.flush();
+        da.api.model.ExcelDataset newRows;
+        try {
+            newRows = excelService.readAllData();
+        } catch (java.util.concurrent.CancellationException e) {
+            // 監控已停止 (中斷) 時只讀到一部分，捨棄結果，下次檢查再重新讀取
+            syncedFingerprint = previous;
+            return;
+        }
+        javax.swing.SwingUtilities.invokeLater(() -> applyExternalChange(newRows, edits));
+    }
 
-                    // 如果是內部變更，跳過重新整理 (僅更新時間戳記)
-                    // 透過 isInternalChange 標記來判斷是否為內部變更
+    /**
+     * 比對重新讀取的資料與目前資料，只把有變更的列套用到表格
+     */
+    private void applyExternalChange(da.api.model.ExcelDataset newRows, long edits) {
+        if (loadThread != null || localEdits.get() != edits) {
+            // 載入中的資料可能是變更前的內容；讀取期間有本地編輯時，讀到的內容可能不含這些編輯，
+            // 與目前資料比對會覆蓋掉它們。兩者都改為重新載入 (會先寫完排入的編輯)
+            refreshData();
+            return;
+        }
+        long start = System.nanoTime();
+        // 進行中的查詢是針對舊資料，結果已不適用
+        discardPendingSearch();
+        String keyColumn = (columnConfig != null) ? columnConfig.getKeyColumn() : null;
+
+        da.api.model.ExcelDataset visibleRows = currentFilter.apply(newRows);
+        List<da.api.service.RowDiffEngine.RowChange> changes = da.api.service.RowDiffEngine.diff(currentData,
+                visibleRows, keyColumn);
+        // 差異只涵蓋目前顯示的列；篩選隱藏了部分列時無法得知隱藏列是否變更，視為已變更
+        boolean allChanged = !changes.isEmpty() || visibleRows.size() != newRows.size();
+        allData = newRows;
+        buildFullTextIndex(allData);
+        refreshExpiryStatus();
+
+        if (dataTable.getModel() == tableModel) {
+            // 模型與 currentData 共用同一個列表，套用時一併更新
+            tableModel.applyChanges(changes);
+            updateSearchStatus();
+        } else {
+            currentData = visibleRows;
+            updateTable();
+        }
+        // 篩選選項只在資料真的改變時重建
+        if (allChanged && columnConfig != null) {
+            updateSearchOptions();
+        }
 
-                    if (isInternalChange) {
-                        isInternalChange = false;
-                    } else {
-                        // 外部變更
-                        javax.swing.SwingUtilities.invokeLater(() -> {
-                            refreshData();
-                            da.api.util.LogManager.getInstance().info("偵測到外部檔案變更，已重新載入");
-                        });
-                    }
-                }
-            }
-        }, 2, 2, java.util.concurrent.TimeUnit.SECONDS);
+        da.api.util.LogManager.getInstance().info("偵測到外部檔案變更，已套用 " + changes.size() + " 筆差異 ("
+                + java.util.concurrent.TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)");
     }
 
     private void stopFileMonitoring() {
-        if (fileMonitorExecutor != null && !fileMonitorExecutor.isShutdown()) {
-            fileMonitorExecutor.shutdownNow();
+        if (fileMonitor != null) {
+            fileMonitor.close();
         }
-        fileMonitorExecutor = null;
+        fileMonitor = null;
     }
 
     // ... rest of the class ...
@@ -185,9 +316,61 @@ public class Panel {
         searchButton.setPreferredSize(new java.awt.Dimension(100, 45));
         searchButton.setFont(new java.awt.Font("微軟正黑體", java.awt.Font.BOLD, 16));
 
-        actionPanel.add(searchButton);
+        // 查詢較久時才顯示的進度條
+        searchProgress = new javax.swing.JProgressBar();
+        searchProgress.setIndeterminate(true);
+        searchProgress.setPreferredSize(new java.awt.Dimension(100, 6));
+        searchProgress.setVisible(false);
+
+        // 即時篩選開關，開啟時輸入篩選文字後自動查詢
+        liveSearchCheckBox = new javax.swing.JCheckBox("即時篩選");
+        liveSearchCheckBox.setFont(new java.awt.Font("微軟正黑體", java.awt.Font.PLAIN, 13));
+        liveSearchCheckBox.setBackground(java.awt.Color.WHITE);
+        liveSearchCheckBox.setFocusPainted(false);
+        liveSearchCheckBox.setSelected(appSettings != null && appSettings.isLiveSearch());
+        liveSearchCheckBox.addActionListener(e -> {
+            if (appSettings != null) {
+                appSettings.setLiveSearch(liveSearchCheckBox.isSelected());
+            }
+            scheduleLiveSearch();
+        });
+
+        fuzzySearchCheckBox = new javax.swing.JCheckBox("模糊比對");
+        fuzzySearchCheckBox.setFont(new java.awt.Font("微軟正黑體", java.awt.Font.PLAIN, 13));
+        fuzzySearchCheckBox.setBackground(java.awt.Color.WHITE);
+        fuzzySearchCheckBox.setFocusPainted(false);
+        fuzzySearchCheckBox.setToolTipText("下拉選單建議與關鍵字搜尋容許少數打錯的字元");
+        fuzzySearchCheckBox.setSelected(appSettings != null && appSettings.isFuzzySearch());
+        fuzzySearchCheckBox.addActionListener(e -> {
+            if (appSettings != null) {
+                appSettings.setFuzzySearch(fuzzySearchCheckBox.isSelected());
+            }
+            // 比對方式改變，不能沿用上次的即時篩選結果
+            liveFilter.reset();
+            scheduleLiveSearch();
+        });
+
+        searchStatusLabel = new javax.swing.JLabel(" ");
+        searchStatusLabel.setFont(new java.awt.Font("微軟正黑體", java.awt.Font.PLAIN, 13));
+        searchStatusLabel.setForeground(new java.awt.Color(100, 100, 100));
+
+        java.awt.GridBagConstraints gbc = new java.awt.GridBagConstraints();
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        actionPanel.add(searchButton, gbc);
+        gbc.gridy = 1;
+        gbc.insets = new java.awt.Insets(6, 0, 0, 0);
+        actionPanel.add(searchProgress, gbc);
+        gbc.gridy = 2;
+        gbc.insets = new java.awt.Insets(2, 0, 0, 0);
+        actionPanel.add(liveSearchCheckBox, gbc);
+        gbc.gridy = 3;
+        actionPanel.add(fuzzySearchCheckBox, gbc);
+        gbc.gridy = 4;
+        actionPanel.add(searchStatusLabel, gbc);
 
         // 將面板加入內容面板
+        contentPanel.add(panelFullTextSearch(), java.awt.BorderLayout.NORTH);
         contentPanel.add(filtersPanel, java.awt.BorderLayout.CENTER);
         contentPanel.add(actionPanel, java.awt.BorderLayout.EAST);
 
@@ -222,6 +405,45 @@ public class Panel {
         return mainPanel;
     }
 
+    /**
+     * 全文搜尋列：在所有欄位中尋找包含輸入文字的資料
+     */
+    private JPanel panelFullTextSearch() {
+        JPanel panel = new JPanel(new java.awt.BorderLayout(10, 0));
+        panel.setBackground(java.awt.Color.WHITE);
+        panel.setBorder(javax.swing.BorderFactory.createEmptyBorder(0, 10, 5, 15));
+
+        javax.swing.JLabel label = new javax.swing.JLabel("關鍵字：");
+        label.setFont(new java.awt.Font("微軟正黑體", java.awt.Font.BOLD, 14));
+        label.setForeground(new java.awt.Color(60, 60, 60));
+
+        fullTextField = new javax.swing.JTextField();
+        fullTextField.setFont(new java.awt.Font("微軟正黑體", java.awt.Font.PLAIN, 14));
+        fullTextField.setPreferredSize(new java.awt.Dimension(300, 32));
+        fullTextField.setToolTipText("在所有欄位中搜尋包含此文字的資料 (不分大小寫)");
+        // 按 Enter 查詢；即時篩選開啟時輸入後自動查詢
+        fullTextField.addActionListener(e -> performSearch());
+        fullTextField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                scheduleLiveSearch();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                scheduleLiveSearch();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+            }
+        });
+
+        panel.add(label, java.awt.BorderLayout.WEST);
+        panel.add(fullTextField, java.awt.BorderLayout.CENTER);
+        return panel;
+    }
+
     private void rebuildFiltersPanel() {
         filtersPanel.removeAll();
         dynamicComboBoxes.clear(); // 清除舊參考
@@ -303,27 +525,37 @@ public class Panel {
 
         if (dialog.isConfirmed()) {
             da.api.model.ColumnConfig newConfig = dialog.getConfig();
-            this.columnConfig = newConfig;
-            this.excelService.setColumnConfig(newConfig);
-
-            // 儲存至設定
-            appSettings.saveColumnConfig(excelService.getFilePath(), newConfig);
-
-            rebuildFiltersPanel();
-            refreshData();
-            String filters = (newConfig.getSearchFilterColumns() != null)
-                    ? String.join(", ", newConfig.getSearchFilterColumns())
-                    : "無";
-            String expiryCol = (newConfig.getExpiryDateColumn() != null) ? newConfig.getExpiryDateColumn() : "無";
-
-            da.api.util.LogManager.getInstance().info(
-                    String.format("使用者更新欄位設定。到期日欄位: [%s], 過濾欄位: [%s]", expiryCol, filters));
-            JOptionPane.showMessageDialog(frameElement, "設定已更新!");
+            // 排隊中的變更須以舊設定寫入：在寫入執行緒上接在其後切換，UI 不等待
+            saveQueue.execute(() -> {
+                this.excelService.setColumnConfig(newConfig);
+                javax.swing.SwingUtilities.invokeLater(() -> applyColumnConfig(newConfig));
+            });
         } else {
             da.api.util.LogManager.getInstance().info("使用者取消欄位設定更新");
         }
     }
 
+    /**
+     * 寫入執行緒已切換欄位設定後，更新畫面並重新載入
+     */
+    private void applyColumnConfig(da.api.model.ColumnConfig newConfig) {
+        this.columnConfig = newConfig;
+
+        // 儲存至設定
+        appSettings.saveColumnConfig(excelService.getFilePath(), newConfig);
+
+        rebuildFiltersPanel();
+        refreshData();
+        String filters = (newConfig.getSearchFilterColumns() != null)
+                ? String.join(", ", newConfig.getSearchFilterColumns())
+                : "無";
+        String expiryCol = (newConfig.getExpiryDateColumn() != null) ? newConfig.getExpiryDateColumn() : "無";
+
+        da.api.util.LogManager.getInstance().info(
+                String.format("使用者更新欄位設定。到期日欄位: [%s], 過濾欄位: [%s]", expiryCol, filters));
+        JOptionPane.showMessageDialog(frameElement, "設定已更新!");
+    }
+
     private JPanel panelDataManagement() {
         // 主容器
         JPanel container = new JPanel(new java.awt.BorderLayout());
@@ -487,10 +719,43 @@ public class Panel {
         scrollPane.getViewport().setBackground(java.awt.Color.WHITE);
 
         tablePanel.add(scrollPane, BorderLayout.CENTER);
+        tablePanel.add(panelLoadProgress(), BorderLayout.NORTH);
 
         return tablePanel;
     }
 
+    /**
+     * 載入進度列：顯示已讀取的列數與取消按鈕，只在載入中或載入被取消後顯示
+     */
+    private JPanel panelLoadProgress() {
+        loadPanel = new JPanel(new BorderLayout(10, 0));
+        loadPanel.setBackground(java.awt.Color.WHITE);
+        loadPanel.setBorder(javax.swing.BorderFactory.createEmptyBorder(6, 8, 6, 8));
+
+        loadProgress = new javax.swing.JProgressBar();
+        loadProgress.setIndeterminate(true);
+        loadProgress.setStringPainted(true);
+        loadProgress.setFont(new java.awt.Font("微軟正黑體", java.awt.Font.PLAIN, 12));
+
+        loadButton = new JButton("取消載入");
+        loadButton.setFont(new java.awt.Font("微軟正黑體", java.awt.Font.PLAIN, 12));
+        loadButton.setFocusPainted(false);
+        loadButton.addActionListener(e -> {
+            if (loadThread != null) {
+                cancelLoad();
+                restoreAfterCancel();
+                da.api.util.LogManager.getInstance().info("使用者取消載入資料");
+            } else {
+                refreshData();
+            }
+        });
+
+        loadPanel.add(loadProgress, BorderLayout.CENTER);
+        loadPanel.add(loadButton, BorderLayout.EAST);
+        loadPanel.setVisible(false);
+        return loadPanel;
+    }
+
     /**
      * 美化表格樣式
      */
@@ -632,13 +897,140 @@ public class Panel {
         });
     }
 
+    /**
+     * 在背景重新讀取檔案：讀取期間表格先顯示已讀的列，全部讀完後才建立篩選選項與索引並開放編輯
+     */
     private void refreshData() {
-        allData = excelService.readAllData();
-        currentData = new ArrayList<>(allData);
+        cancelLoad();
+        discardPendingSearch();
+        if (!loadIncomplete) {
+            dataBeforeLoad = allData;
+        }
+        loadIncomplete = true;
+        showLoadProgress("正在讀取資料...", "取消載入");
+
+        long start = System.nanoTime();
+        loadThread = new Thread(() -> {
+            Thread self = Thread.currentThread();
+            try {
+                // 先寫完排隊中的變更，避免讀到舊資料 (在載入執行緒上等待，不阻塞 UI)
+                if (saveQueue != null) {
+                    saveQueue.flush();
+                }
+                // 讀取前先取指紋，讀取期間若檔案又變更，下次檢查仍會發現差異
+                da.api.service.FileFingerprint fingerprint = excelService.currentFingerprint();
+                da.api.model.ExcelDataset dataset = excelService.loadAllData(LOAD_PROGRESS_ROWS,
+                        partial -> javax.swing.SwingUtilities.invokeLater(() -> showPartialData(self, partial)));
+                javax.swing.SwingUtilities.invokeLater(() -> finishLoad(self, dataset, fingerprint, start));
+            } catch (java.util.concurrent.CancellationException e) {
+                // 已取消：畫面已恢復，已讀的列不再被參照，隨執行緒結束釋放
+            } catch (Exception e) {
+                e.printStackTrace();
+                da.api.util.LogManager.getInstance().error("載入資料時發生錯誤: " + e.getMessage());
+                javax.swing.SwingUtilities.invokeLater(() -> {
+                    if (loadThread == self) {
+                        loadThread = null;
+                        restoreAfterCancel();
+                    }
+                });
+            }
+        }, "DataLoader");
+        loadThread.setDaemon(true);
+        loadThread.start();
+    }
+
+    /**
+     * 載入途中先顯示已讀取的列；已被取消或取代的載入不再更新畫面
+     */
+    private void showPartialData(Thread loader, da.api.model.ExcelDataset partial) {
+        if (loadThread != loader) {
+            return;
+        }
+        allData = partial;
+        currentFilter = da.api.service.FilterQuery.all();
+        highlightText = null;
+        currentData = partial;
+        refreshExpiryStatus();
+        updateTable();
+        loadProgress.setString("已讀取 " + String.format("%,d", partial.size()) + " 列...");
+    }
+
+    private void finishLoad(Thread loader, da.api.model.ExcelDataset dataset,
+            da.api.service.FileFingerprint fingerprint, long start) {
+        if (loadThread != loader) {
+            return;
+        }
+        loadThread = null;
+        loadIncomplete = false;
+        dataBeforeLoad = null;
+        loadPanel.setVisible(false);
+        allData = dataset;
+        buildFullTextIndex(allData);
+        refreshExpiryStatus();
+        syncedFingerprint = fingerprint;
+        currentFilter = da.api.service.FilterQuery.all();
+        highlightText = null;
+        currentData = allData.copy();
         if (columnConfig != null) {
             updateSearchOptions();
         }
         updateTable();
+        da.api.util.LogManager.getInstance().info("載入資料完成: " + allData.size() + " 筆資料 ("
+                + java.util.concurrent.TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)");
+    }
+
+    /**
+     * 停止進行中的載入，之後送達的部分資料與結果都會被忽略
+     */
+    private void cancelLoad() {
+        if (loadThread != null) {
+            loadThread.interrupt();
+            loadThread = null;
+        }
+    }
+
+    /**
+     * 載入被取消：捨棄已讀取的部分資料，回到載入前的資料；原本沒有資料時維持未載入狀態並可重新載入
+     */
+    private void restoreAfterCancel() {
+        da.api.model.ExcelDataset previous = dataBeforeLoad;
+        dataBeforeLoad = null;
+        discardPendingSearch();
+        currentFilter = da.api.service.FilterQuery.all();
+        highlightText = null;
+        if (previous != null) {
+            loadIncomplete = false;
+            loadPanel.setVisible(false);
+            allData = previous;
+            currentData = previous.copy();
+        } else {
+            allData = new da.api.model.ExcelDataset(
+                    columnConfig != null ? columnConfig.getAllHeaders() : new ArrayList<>(),
+                    columnConfig != null ? columnConfig.getExpiryDateColumn() : null);
+            currentData = allData.copy();
+            showLoadProgress("已取消載入，資料尚未讀取", "重新載入");
+            loadProgress.setIndeterminate(false);
+        }
+        updateTable();
+    }
+
+    private void showLoadProgress(String text, String buttonText) {
+        loadProgress.setIndeterminate(true);
+        loadProgress.setString(text);
+        loadButton.setText(buttonText);
+        loadPanel.setVisible(true);
+    }
+
+    /**
+     * 資料尚未完整載入時提示使用者，回傳是否可以操作
+     */
+    private boolean checkDataLoaded() {
+        if (!loadIncomplete) {
+            return true;
+        }
+        da.api.util.StyledDialogs.showMessageDialog(frameElement,
+                "資料尚未完整載入，請稍候或重新載入。", "提示", JOptionPane.WARNING_MESSAGE);
+        return false;
     }
 
     private void updateSearchOptions() {
@@ -647,27 +1039,22 @@ public class Panel {
             Object selectedObj = comboBox.getSelectedItem();
             String selected = (selectedObj != null) ? selectedObj.toString() : null;
 
-            // 提取唯一值
-            java.util.Set<String> values = new java.util.TreeSet<>();
-            for (ExcelData data : allData) {
-                String val = data.getAttribute(colName);
-                if (val != null && !val.trim().isEmpty()) {
-                    values.add(val.trim());
-                }
+            // 直接讀取篩選欄位索引中排序好的不重複值，增刪列時索引已逐筆維護，不必重新收集
+            List<String> values = allData.distinctValues(colName);
+            FilterComboBoxModel model;
+            if (comboBox.getModel() instanceof FilterComboBoxModel) {
+                model = (FilterComboBoxModel) comboBox.getModel();
+                model.setValues(values);
+            } else {
+                model = new FilterComboBoxModel(values);
+                comboBox.setModel(model);
             }
 
-            List<String> fullList = new ArrayList<>();
-            fullList.add("ALL");
-            fullList.addAll(values);
-
-            // 初始時使用完整列表重設模型
-            comboBox.setModel(new javax.swing.DefaultComboBoxModel<>(fullList.toArray(new String[0])));
-
-            // 修正尺寸穩定性
+            // 修正尺寸穩定性；固定的參考寬度也讓下拉清單不必逐項計算大小
             comboBox.setPrototypeDisplayValue("XXXXXXXXXXXXXXXXXXXX"); // 穩定的寬度參考
 
             // 啟用搜尋功能
-            setupSearchableComboBox(comboBox, fullList);
+            setupSearchableComboBox(comboBox, model.getAllItems());
 
             // 重新啟用 WidePopupMenuListener 以修正長項目被截斷的問題
             // 先移除現有的監聽器以避免重複 (雖然在此處重建時不太可能發生)
@@ -677,13 +1064,8 @@ public class Panel {
             }
             comboBox.addPopupMenuListener(new WidePopupMenuListener());
 
-            // 盡可能恢復選取項目
-            if (selected != null) {
-                // 檢查選取項目是否存在 (因剛從資料載入，無需模糊檢查)
-                if ("ALL".equals(selected) || values.contains(selected)) {
-                    comboBox.setSelectedItem(selected);
-                }
-            }
+            // 盡可能恢復選取項目 (二分搜尋確認是否存在)，不存在時回到 ALL
+            comboBox.setSelectedItem(selected != null && model.contains(selected) ? selected : FilterComboBoxModel.ALL);
         }
     }
 
@@ -699,6 +1081,23 @@ public class Panel {
             listener = new SearchableKeyAdapter(comboBox, items);
             editor.addKeyListener(listener);
             comboBox.putClientProperty("SearchableKeyAdapter", listener);
+            // 即時篩選：輸入或選取後延遲查詢
+            editor.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+                @Override
+                public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                    scheduleLiveSearch();
+                }
+
+                @Override
+                public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                    scheduleLiveSearch();
+                }
+
+                @Override
+                public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                }
+            });
+            comboBox.addActionListener(e -> scheduleLiveSearch());
         } else {
             // 更新項目
             listener.setItems(items);
@@ -706,16 +1105,22 @@ public class Panel {
     }
 
     private class SearchableKeyAdapter extends java.awt.event.KeyAdapter {
+        // 下拉選單最多顯示的建議數量，值很多的欄位不必全部放進選單
+        private static final int MAX_SUGGESTIONS = 500;
+
         private final javax.swing.JComboBox<String> comboBox;
         private java.util.List<String> items;
+        // 項目的小寫與子字串索引，項目變更後到下一次輸入時才重建
+        private da.api.service.SuggestionIndex suggestions;
 
         public SearchableKeyAdapter(javax.swing.JComboBox<String> comboBox, java.util.List<String> items) {
             this.comboBox = comboBox;
-            this.items = new ArrayList<>(items);
+            this.items = items;
         }
 
         public void setItems(java.util.List<String> items) {
-            this.items = new ArrayList<>(items);
+            this.items = items;
+            this.suggestions = null;
         }
 
         @Override
@@ -733,18 +1138,25 @@ public class Panel {
                 int caretPosition = textField.getCaretPosition();
 
                 // 過濾項目
-                List<String> filtered = new ArrayList<>();
-                for (String item : items) {
-                    if (item.toLowerCase().contains(text.toLowerCase())) {
-                        filtered.add(item);
+                if (suggestions == null) {
+                    suggestions = new da.api.service.SuggestionIndex(items);
+                }
+                List<String> filtered = fuzzySearchCheckBox.isSelected()
+                        ? suggestions.searchSimilar(text, MAX_SUGGESTIONS)
+                        : suggestions.search(text, MAX_SUGGESTIONS);
+
+                // 更新模型，沿用原本的模型只替換顯示的項目；清除文字時回到完整清單
+                if (comboBox.getModel() instanceof FilterComboBoxModel) {
+                    FilterComboBoxModel model = (FilterComboBoxModel) comboBox.getModel();
+                    if (text.isEmpty()) {
+                        model.showAll();
+                    } else {
+                        model.showSuggestions(filtered);
                     }
+                } else {
+                    comboBox.setModel(new javax.swing.DefaultComboBoxModel<>(filtered.toArray(new String[0])));
                 }
 
-                // 更新模型
-                javax.swing.DefaultComboBoxModel<String> model = new javax.swing.DefaultComboBoxModel<>(
-                        filtered.toArray(new String[0]));
-                comboBox.setModel(model);
-
                 // 恢復文字和游標位置
                 textField.setText(text);
                 try {
@@ -769,6 +1181,9 @@ public class Panel {
     }
 
     private void performSearch() {
+        if (!checkDataLoaded()) {
+            return;
+        }
         StringBuilder sb = new StringBuilder();
 
         if (columnConfig != null) {
@@ -789,106 +1204,240 @@ public class Panel {
                 sb.append(col).append(": ").append(selected).append(", ");
             }
 
-            currentData = new ArrayList<>();
-            for (ExcelData data : allData) {
-                boolean match = true;
-                for (String col : searchColumns) {
-                    javax.swing.JComboBox<String> cb = dynamicComboBoxes.get(col);
-                    Object selectedObj = cb.getSelectedItem();
-                    // 若選擇為 null 但文字存在，是否退回使用文字編輯器內容?
-                    // 通常 getSelectedItem() 會反映可編輯 CB 中的文字。
-
-                    String selected = (selectedObj != null) ? selectedObj.toString() : "ALL";
-
-                    if (selected != null && !"ALL".equals(selected) && !selected.trim().isEmpty()) {
-                        String val = data.getAttribute(col);
-                        // 完全符合或包含? 過濾值通常使用完全符合。
-                        if (val == null || !val.trim().equals(selected.trim())) {
-                            match = false;
-                            break;
-                        }
-                    }
-                }
-                if (match)
-                    currentData.add(data);
-            }
+        }
+
+        // 若無設定，不做任何篩選或顯示全部
+        da.api.service.FilterQuery query = (columnConfig != null)
+                ? da.api.service.FilterQuery.allOf(currentFilterConditions())
+                : da.api.service.FilterQuery.all();
+        // 全文搜尋與篩選條件同時成立
+        String text = fullTextField.getText().trim();
+        if (!text.isEmpty()) {
+            query = da.api.service.FilterQuery.and(query, textQuery(text));
+            sb.append("關鍵字: ").append(text).append(", ");
+        }
+        String filterConditions = sb.length() > 0 ? sb.toString() : "無過濾條件";
+        da.api.service.FilterQuery compiled = query;
+
+        // 篩選欄位有索引，多個條件以點陣圖交集求得；在背景對快照查詢，查詢期間表格仍可操作
+        da.api.model.ExcelDataset snapshot = allData.snapshot();
+        liveSearchTimer.stop();
+        searchRunner.submit(() -> compiled.apply(snapshot), result -> {
+            // 完全相符的結果不能作為即時篩選 (包含比對) 的基礎
+            liveFilter.reset();
+            currentFilter = compiled;
+            currentData = result;
+            highlightText = text.isEmpty() ? null : text.toLowerCase();
+            // 結果筆數顯示在查詢按鈕下方，不再以對話框打斷操作
+            updateTable();
+            // 記錄搜尋
+            da.api.util.LogManager.getInstance()
+                    .info("使用者執行搜尋查詢 [" + filterConditions + "] 找到 " + currentData.size() + " 筆資料");
+        });
+    }
+
+    /**
+     * 即時篩選開啟時，重新開始延遲計時；連續輸入只在停下後查詢一次
+     */
+    private void scheduleLiveSearch() {
+        if (liveSearchTimer != null && liveSearchCheckBox != null && liveSearchCheckBox.isSelected()) {
+            liveSearchTimer.restart();
+        }
+    }
+
+    /**
+     * 以篩選下拉選單目前的文字查詢 (包含比對)
+     * <p>
+     * 條件比上次更嚴格時只在上次結果中篩選，不必重新掃描整份資料
+     */
+    private void performLiveSearch() {
+        if (allData == null || loadIncomplete || !liveSearchCheckBox.isSelected()) {
+            return;
+        }
+        java.util.Map<String, String> conditions = currentFilterConditions();
+        String text = fullTextField.getText().trim();
+        da.api.service.FilterQuery query;
+        da.api.model.ExcelDataset scope;
+        boolean fuzzy = fuzzySearchCheckBox.isSelected();
+        if (fuzzy) {
+            // 與關鍵字相近的值不會隨輸入變長而只減不增，每次都查詢完整資料
+            query = da.api.service.FilterQuery.and(da.api.service.LiveFilter.query(conditions), textQuery(text));
+            scope = allData.snapshot();
         } else {
-            // 若無設定，不做任何篩選或顯示全部
-            currentData = new ArrayList<>(allData);
+            conditions.put(da.api.service.LiveFilter.ANY_COLUMN, text);
+            if (liveFilter.isCurrent(conditions)) {
+                return;
+            }
+            query = da.api.service.LiveFilter.query(conditions);
+            scope = liveFilter.scope(conditions, allData).snapshot();
         }
+        searchRunner.submit(() -> query.apply(scope), result -> {
+            if (fuzzy) {
+                liveFilter.reset();
+            } else {
+                liveFilter.accept(conditions, result);
+            }
+            currentFilter = query;
+            currentData = result;
+            highlightText = text.isEmpty() ? null : text.toLowerCase();
+            updateTable();
+        });
+    }
 
-        updateTable();
-        // 記錄搜尋
-        String filterConditions = (columnConfig != null && sb.length() > 0) ? sb.toString() : "無過濾條件";
-        da.api.util.LogManager.getInstance()
-                .info("使用者執行搜尋查詢 [" + filterConditions + "] 找到 " + currentData.size() + " 筆資料");
+    /**
+     * 關鍵字的查詢條件；開啟模糊比對時，篩選欄位中與關鍵字相近的值也算符合
+     */
+    private da.api.service.FilterQuery textQuery(String text) {
+        if (fuzzySearchCheckBox.isSelected() && columnConfig != null) {
+            return da.api.service.FilterQuery.fuzzyText(text, columnConfig.getSearchFilterColumns());
+        }
+        return da.api.service.FilterQuery.containsText(text);
+    }
 
-        // 使用美化的對話框顯示查詢結果
-        da.api.util.StyledDialogs.showMessageDialog(frameElement,
-                "找到 " + currentData.size() + " 筆資料",
-                "查詢結果",
-                JOptionPane.INFORMATION_MESSAGE);
+    /**
+     * 在背景建立全文搜尋索引；建立完成前全文搜尋改為逐欄比對，之後的編輯在查詢時才補進索引。
+     * 磁碟暫存模式的資料不建立 (索引會隨列數佔用大量 heap)，一律逐欄比對
+     */
+    private void buildFullTextIndex(da.api.model.ExcelDataset dataset) {
+        // 舊資料的索引已用不到，中斷尚未完成的建立 (中斷後不會套用到資料集)
+        stopFullTextIndexer();
+        if (dataset.isOffHeap()) {
+            return;
+        }
+        Thread indexer = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                dataset.buildFullTextIndex();
+                da.api.util.LogManager.getInstance().info("全文搜尋索引建立完成: " + dataset.size() + " 筆資料 ("
+                        + java.util.concurrent.TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)");
+            } catch (java.util.concurrent.CancellationException e) {
+                // 已有更新的資料，改由新的執行緒建立
+            } catch (Exception e) {
+                e.printStackTrace();
+                da.api.util.LogManager.getInstance().error("建立全文搜尋索引時發生錯誤: " + e.getMessage());
+            }
+        }, "FullTextIndexer");
+        indexer.setDaemon(true);
+        indexer.setPriority(Thread.MIN_PRIORITY);
+        fullTextIndexer = indexer;
+        indexer.start();
+    }
+
+    private void stopFullTextIndexer() {
+        if (fullTextIndexer != null) {
+            fullTextIndexer.interrupt();
+            fullTextIndexer = null;
+        }
     }
 
     /**
-     * 檢查資料是否符合當前的篩選條件
+     * 編輯留下的舊版本列多於目前的列數時重建列資料，表格顯示的篩選結果一併改用新的列資料；
+     * 全文索引與到期狀態屬於原本的列資料，需重新建立
      */
-    private boolean matchesCurrentFilter(ExcelData data) {
-        if (columnConfig == null) {
-            return true; // 無篩選條件，全部符合
+    private void compactDataIfNeeded() {
+        if (allData == null || !allData.needsCompaction()) {
+            return;
         }
+        long start = System.nanoTime();
+        allData.compact(currentData);
+        buildFullTextIndex(allData);
+        refreshExpiryStatus();
+        da.api.util.LogManager.getInstance().info("已重建列資料，釋放編輯留下的舊版本: " + allData.size() + " 筆資料 ("
+                + java.util.concurrent.TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)");
+    }
 
-        List<String> searchColumns = columnConfig.getSearchFilterColumns();
-        if (searchColumns == null || searchColumns.isEmpty()) {
-            return true; // 無篩選條件，全部符合
+    /**
+     * 以今天與目前的提醒天數重新計算每列的到期狀態並重繪表格；基準未改變時不重新計算，
+     * 之後新增或修改的列在繪製時以相同基準計算
+     */
+    private void refreshExpiryStatus() {
+        if (allData == null || excelService == null || appSettings == null) {
+            return;
         }
+        java.time.LocalDate today = java.time.LocalDate.now();
+        int reminderDays = appSettings.getExpiryReminderDays(excelService.getFilePath());
+        allData.classifyExpiry(today, reminderDays);
+        if (currentData != null) {
+            // 套用外部變更的差異後，表格的列可能仍在變更前的列資料中 (共用時不會重新計算)
+            currentData.classifyExpiry(today, reminderDays);
+        }
+        dataTable.repaint();
+    }
 
-        // 檢查每個篩選條件
-        for (String col : searchColumns) {
-            javax.swing.JComboBox<String> cb = dynamicComboBoxes.get(col);
-            if (cb != null) {
-                Object selectedObj = cb.getSelectedItem();
-                String selected = (selectedObj != null) ? selectedObj.toString() : "ALL";
+    /**
+     * 距離下一個本地午夜的毫秒數 (多留一秒，確保觸發時已是新的一天)
+     */
+    private static int millisUntilMidnight() {
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        java.time.LocalDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay();
+        return (int) java.time.Duration.between(now, midnight).toMillis() + 1000;
+    }
 
-                if (selected != null && !"ALL".equals(selected) && !selected.trim().isEmpty()) {
-                    String val = data.getAttribute(col);
-                    if (val == null || !val.trim().equals(selected.trim())) {
-                        return false; // 不符合此篩選條件
-                    }
-                }
+    /**
+     * 資料即將變更：取消進行中的查詢，即時篩選也不再沿用上次結果
+     */
+    private void discardPendingSearch() {
+        searchRunner.cancel();
+        liveFilter.reset();
+    }
+
+    /**
+     * 在查詢按鈕下方顯示目前表格筆數
+     */
+    private void updateSearchStatus() {
+        if (searchStatusLabel == null || currentData == null) {
+            return;
+        }
+        int total = allData != null ? allData.size() : 0;
+        searchStatusLabel.setText(currentData.size() == total
+                ? "共 " + total + " 筆資料"
+                : "找到 " + currentData.size() + " / " + total + " 筆");
+    }
+
+    /**
+     * 目前篩選下拉選單的條件 (欄位 -> 選取值)，未選取或選 ALL 的欄位不列入
+     */
+    private java.util.Map<String, String> currentFilterConditions() {
+        java.util.Map<String, String> conditions = new java.util.LinkedHashMap<>();
+        if (columnConfig == null || columnConfig.getSearchFilterColumns() == null) {
+            return conditions;
+        }
+        for (String col : columnConfig.getSearchFilterColumns()) {
+            javax.swing.JComboBox<String> cb = dynamicComboBoxes.get(col);
+            if (cb == null) {
+                continue;
+            }
+            Object selectedObj = cb.getSelectedItem();
+            String selected = (selectedObj != null) ? selectedObj.toString() : "ALL";
+            if (!"ALL".equals(selected) && !selected.trim().isEmpty()) {
+                conditions.put(col, selected.trim());
             }
         }
+        return conditions;
+    }
 
-        return true; // 全部篩選條件都符合
+    /**
+     * 檢查資料是否符合當前的篩選條件
+     */
+    private boolean matchesCurrentFilter(ExcelData data) {
+        // 與查詢時編譯的條件相同，不再逐列讀取下拉選單
+        return currentFilter.matches(data);
     }
 
     private void updateTable() {
-        String[] columnNames;
-        Object[][] data;
-
-        if (columnConfig != null) {
-            List<String> headers = columnConfig.getAllHeaders();
-            List<String> tableHeaders = new ArrayList<>();
-            tableHeaders.add("序號");
-            tableHeaders.addAll(headers);
-            columnNames = tableHeaders.toArray(new String[0]);
-
-            data = new Object[currentData.size()][columnNames.length];
-            for (int i = 0; i < currentData.size(); i++) {
-                data[i] = currentData.get(i).toArray(headers, i + 1);
-            }
-        } else {
-            // 預設 / 檔案空白時的狀態
-            columnNames = new String[] { "序號" };
-            data = new Object[0][1];
+        updateSearchStatus();
+        List<String> headers = (columnConfig != null && columnConfig.getAllHeaders() != null)
+                ? columnConfig.getAllHeaders()
+                : new ArrayList<>(); // 預設 / 檔案空白時的狀態
+
+        // 欄位相同時只更換資料，保留欄寬與欄位順序
+        if (tableModel != null && tableModel.hasHeaders(headers) && dataTable.getModel() == tableModel) {
+            tableModel.setRows(currentData);
+            return;
         }
 
-        dataTable.setModel(new javax.swing.table.DefaultTableModel(data, columnNames) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // 表格不可直接編輯
-            }
-        });
+        tableModel = new ExcelTableModel(headers, currentData);
+        dataTable.setModel(tableModel);
 
         // 到期列高亮顯示
         RowExpiryRenderer renderer = new RowExpiryRenderer();
@@ -938,19 +1487,33 @@ public class Panel {
 
             // 停止舊的監控服務
             stopFileMonitoring();
+            stopFullTextIndexer();
+            searchRunner.close();
             if (reminderService != null) {
                 reminderService.stopPeriodicCheck();
             }
 
             da.api.util.LogManager.getInstance().info("使用者載入新檔案：" + selectedPath);
 
-            // 關閉當前視窗
+            Runnable openSelected = () -> {
+                // 關閉當前視窗
+                if (frameElement != null) {
+                    frameElement.dispose();
+                }
+
+                // 啟動新實例
+                da.api.App.launch(selectedPath);
+            };
+            if (saveQueue == null) {
+                openSelected.run();
+                return;
+            }
+            // 寫完目前檔案的變更後再開啟新檔；等待期間在背景寫入，視窗顯示忙碌並停止操作
             if (frameElement != null) {
-                frameElement.dispose();
+                frameElement.setCursor(java.awt.Cursor.getPredefinedCursor(java.awt.Cursor.WAIT_CURSOR));
+                frameElement.setEnabled(false);
             }
-
-            // 啟動新實例
-            da.api.App.launch(selectedPath);
+            saveQueue.closeAsync(openSelected);
         }
     }
 
@@ -1047,27 +1610,28 @@ public class Panel {
                 c.setForeground(java.awt.Color.BLACK);
 
                 if (currentData != null && row >= 0 && row < currentData.size()) {
-                    try {
-                        da.api.model.ExcelData data = currentData.get(row);
-                        if (data.getExpiryDate() != null) {
-                            long days = java.time.temporal.ChronoUnit.DAYS.between(java.time.LocalDate.now(),
-                                    data.getExpiryDate());
-
-                            if (days < 0) {
-                                // 已經過期：紅底警告
-                                c.setBackground(new java.awt.Color(255, 205, 210)); // 淺紅色
-                                c.setForeground(new java.awt.Color(198, 40, 40)); // 深紅色文字
-                            } else if (days >= 0
-                                    && days <= appSettings.getExpiryReminderDays(excelService.getFilePath())) {
-                                // 即將到期：黃底警告
-                                c.setBackground(new java.awt.Color(255, 243, 205)); // 淺黃色
-                                c.setForeground(new java.awt.Color(133, 100, 4)); // 深黃/褐色文字
-                            }
-                        }
-                    } catch (Exception e) {
-                        // 忽略模型錯誤
+                    // 到期狀態已預先計算，這裡只查表
+                    switch (currentData.getExpiryStatus(row)) {
+                        case da.api.model.ExpiryStatus.EXPIRED:
+                            // 已經過期：紅底警告
+                            c.setBackground(EXPIRED_BACKGROUND);
+                            c.setForeground(EXPIRED_FOREGROUND);
+                            break;
+                        case da.api.model.ExpiryStatus.EXPIRING:
+                            // 即將到期：黃底警告
+                            c.setBackground(EXPIRING_BACKGROUND);
+                            c.setForeground(EXPIRING_FOREGROUND);
+                            break;
+                        default:
+                            break;
                     }
                 }
+
+                // 標示包含全文搜尋文字的儲存格 (序號欄除外)
+                if (highlightText != null && value != null && table.convertColumnIndexToModel(column) > 0
+                        && value.toString().toLowerCase().contains(highlightText)) {
+                    c.setBackground(HIGHLIGHT_BACKGROUND);
+                }
             } else {
                 // 保持選取顏色
                 c.setBackground(table.getSelectionBackground());
@@ -1078,6 +1642,9 @@ public class Panel {
     }
 
     private void addData() {
+        if (!checkDataLoaded()) {
+            return;
+        }
         // 檢查設定/標題是否為空
         if (columnConfig == null || columnConfig.getAllHeaders() == null || columnConfig.getAllHeaders().isEmpty()) {
             // 進一步檢查服務，以防配置遺失但檔案有標題?
@@ -1129,44 +1696,56 @@ public class Panel {
 
         if (dialog.isConfirmed()) {
             ExcelData newData = dialog.getResult();
+            // 進行中的查詢不含這次變更，結果已不適用
+            discardPendingSearch();
+            localEdits.incrementAndGet();
             // 加入到完整資料集
             allData.add(newData);
             // 如果符合當前篩選條件，也加入到篩選結果
             if (matchesCurrentFilter(newData)) {
-                currentData.add(newData);
+                // 加入資料集中已存放的列，不再複製一次內容；表格只收到新增一列的通知
+                tableModel.insertRow(currentData.size(), allData.get(allData.size() - 1));
             }
-            // 保存完整資料集
-            if (excelService.saveAllData(allData)) {
-                // 更新時間戳記以避免重複讀取
-                java.io.File file = new java.io.File(excelService.getFilePath());
-                if (file.exists()) {
-                    isInternalChange = true;
-                    lastModifiedTime = file.lastModified();
-                }
-                updateTable(); // 只更新表格顯示，不重新載入檔案
-                updateSearchOptions(); // 更新過濾器選項
-
-                // 構建資料內容字串
-                StringBuilder sb = new StringBuilder();
-                if (columnConfig != null && columnConfig.getAllHeaders() != null) {
-                    for (String header : columnConfig.getAllHeaders()) {
-                        sb.append(header).append(": ").append(newData.getAttribute(header)).append(", ");
+            updateSearchStatus(); // 只更新表格顯示，不重新載入檔案
+            updateSearchOptions(); // 更新過濾器選項
+            compactDataIfNeeded();
+
+            // 交由背景寫入，只在檔案尾端寫入新的一列
+            List<ExcelData> snapshot = allData.copy();
+            saveQueue.submit(snapshot, service -> service.appendRow(snapshot, newData), success -> {
+                if (success) {
+                    // 構建資料內容字串
+                    StringBuilder sb = new StringBuilder();
+                    if (columnConfig != null && columnConfig.getAllHeaders() != null) {
+                        for (String header : columnConfig.getAllHeaders()) {
+                            sb.append(header).append(": ").append(newData.getAttribute(header)).append(", ");
+                        }
+                    }
+                    da.api.util.LogManager.getInstance().info("使用者新增資料成功。內容: {" + sb.toString() + "}");
+                    JOptionPane.showMessageDialog(frameElement, "新增成功!");
+                } else {
+                    // 保存失敗，回滾
+                    discardPendingSearch();
+                    localEdits.incrementAndGet();
+                    allData.remove(newData);
+                    int currentIndex = currentData.indexOf(newData);
+                    if (currentIndex != -1) {
+                        tableModel.removeRow(currentIndex);
                     }
+                    updateSearchStatus();
+                    updateSearchOptions();
+                    da.api.util.LogManager.getInstance().error("使用者新增資料失敗");
+                    JOptionPane.showMessageDialog(frameElement,
+                            "新增失敗!", "錯誤", JOptionPane.ERROR_MESSAGE);
                 }
-                da.api.util.LogManager.getInstance().info("使用者新增資料成功。內容: {" + sb.toString() + "}");
-                JOptionPane.showMessageDialog(frameElement, "新增成功!");
-            } else {
-                // 保存失敗，回滾
-                allData.remove(newData);
-                currentData.remove(newData);
-                da.api.util.LogManager.getInstance().error("使用者新增資料失敗");
-                JOptionPane.showMessageDialog(frameElement,
-                        "新增失敗!", "錯誤", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
     private void editData() {
+        if (!checkDataLoaded()) {
+            return;
+        }
         int selectedRow = dataTable.getSelectedRow();
         if (selectedRow == -1) {
             JOptionPane.showMessageDialog(frameElement,
@@ -1180,56 +1759,66 @@ public class Panel {
 
         if (dialog.isConfirmed()) {
             ExcelData editedData = dialog.getResult();
+            discardPendingSearch();
+            localEdits.incrementAndGet();
             // 在完整資料集中找到並更新
             int allDataIndex = allData.indexOf(selectedData);
             if (allDataIndex != -1) {
                 allData.set(allDataIndex, editedData);
             }
-            // 更新篩選結果
-            currentData.set(selectedRow, editedData);
-
-            // 保存完整資料集
-            if (excelService.saveAllData(allData)) {
-                // Update timestamp to avoid re-reading
-                java.io.File file = new java.io.File(excelService.getFilePath());
-                if (file.exists()) {
-                    isInternalChange = true;
-                    lastModifiedTime = file.lastModified();
-                }
-                updateTable(); // 只更新表格顯示，不重新載入檔案
-                updateSearchOptions(); // 更新過濾器選項
-
-                // 構建差異字串
-                StringBuilder diff = new StringBuilder();
-                if (columnConfig != null && columnConfig.getAllHeaders() != null) {
-                    for (String header : columnConfig.getAllHeaders()) {
-                        String oldVal = selectedData.getAttribute(header);
-                        String newVal = editedData.getAttribute(header);
-                        oldVal = (oldVal == null) ? "" : oldVal.trim();
-                        newVal = (newVal == null) ? "" : newVal.trim();
-                        if (!oldVal.equals(newVal)) {
-                            diff.append(header).append(": \"").append(oldVal).append("\" -> \"").append(newVal)
-                                    .append("\", ");
+            // 更新篩選結果，表格只重繪這一列
+            tableModel.updateRow(selectedRow, allDataIndex != -1 ? allData.get(allDataIndex) : editedData);
+            updateSearchOptions(); // 更新過濾器選項
+            compactDataIfNeeded();
+
+            // 交由背景寫入，只改寫被編輯的那一列，找不到對應列時完整儲存
+            List<ExcelData> snapshot = allData.copy();
+            saveQueue.submit(snapshot, service -> allDataIndex != -1
+                    ? service.updateRow(snapshot, allDataIndex, editedData)
+                    : service.saveAllData(snapshot), success -> {
+                        if (success) {
+                            // 構建差異字串
+                            StringBuilder diff = new StringBuilder();
+                            if (columnConfig != null && columnConfig.getAllHeaders() != null) {
+                                for (String header : columnConfig.getAllHeaders()) {
+                                    String oldVal = selectedData.getAttribute(header);
+                                    String newVal = editedData.getAttribute(header);
+                                    oldVal = (oldVal == null) ? "" : oldVal.trim();
+                                    newVal = (newVal == null) ? "" : newVal.trim();
+                                    if (!oldVal.equals(newVal)) {
+                                        diff.append(header).append(": \"").append(oldVal).append("\" -> \"")
+                                                .append(newVal).append("\", ");
+                                    }
+                                }
+                            }
+                            da.api.util.LogManager.getInstance()
+                                    .info("使用者編輯資料成功 (Row: " + selectedRow + ")。變更: [" + diff.toString() + "]");
+                            JOptionPane.showMessageDialog(frameElement, "編輯成功!");
+                        } else {
+                            // 保存失敗，回滾 (期間可能有其他變更，依物件重新定位)
+                            discardPendingSearch();
+                            localEdits.incrementAndGet();
+                            int allIndex = allData.indexOf(editedData);
+                            if (allIndex != -1) {
+                                allData.set(allIndex, selectedData);
+                            }
+                            int currentIndex = currentData.indexOf(editedData);
+                            if (currentIndex != -1) {
+                                tableModel.updateRow(currentIndex, selectedData);
+                            }
+                            updateSearchOptions();
+                            da.api.util.LogManager.getInstance().error("使用者編輯資料失敗 (Row: " + selectedRow + ")");
+                            JOptionPane.showMessageDialog(frameElement,
+                                    "編輯失敗!", "錯誤", JOptionPane.ERROR_MESSAGE);
                         }
-                    }
-                }
-                da.api.util.LogManager.getInstance()
-                        .info("使用者編輯資料成功 (Row: " + selectedRow + ")。變更: [" + diff.toString() + "]");
-                JOptionPane.showMessageDialog(frameElement, "編輯成功!");
-            } else {
-                // 保存失敗，回滾
-                if (allDataIndex != -1) {
-                    allData.set(allDataIndex, selectedData);
-                }
-                currentData.set(selectedRow, selectedData);
-                da.api.util.LogManager.getInstance().error("使用者編輯資料失敗 (Row: " + selectedRow + ")");
-                JOptionPane.showMessageDialog(frameElement,
-                        "編輯失敗!", "錯誤", JOptionPane.ERROR_MESSAGE);
-            }
+                    });
         }
     }
 
     private void deleteData() {
+        if (!checkDataLoaded()) {
+            return;
+        }
         int selectedRow = dataTable.getSelectedRow();
         if (selectedRow == -1) {
             da.api.util.StyledDialogs.showMessageDialog(frameElement,
@@ -1242,41 +1831,52 @@ public class Panel {
 
         if (confirm) {
             ExcelData dataToDelete = currentData.get(selectedRow);
+            discardPendingSearch();
+            localEdits.incrementAndGet();
             // 從完整資料集中刪除
-            allData.remove(dataToDelete);
-            // 從篩選結果中刪除
-            currentData.remove(selectedRow);
-
-            // 保存完整資料集
-            if (excelService.saveAllData(allData)) {
-                // 更新時間戳記以避免重複讀取
-                java.io.File file = new java.io.File(excelService.getFilePath());
-                if (file.exists()) {
-                    isInternalChange = true;
-                    lastModifiedTime = file.lastModified();
-                }
-                updateTable(); // 只更新表格顯示，不重新載入檔案
-                updateSearchOptions(); // 更新過濾器選項
-
-                // 構建刪除資料內容字串
-                StringBuilder sb = new StringBuilder();
-                if (columnConfig != null && columnConfig.getAllHeaders() != null) {
-                    for (String header : columnConfig.getAllHeaders()) {
-                        sb.append(header).append(": ").append(dataToDelete.getAttribute(header)).append(", ");
-                    }
-                }
-                da.api.util.LogManager.getInstance()
-                        .info("使用者刪除資料成功 (Row: " + selectedRow + ")。已刪除內容: {" + sb.toString() + "}");
-                da.api.util.StyledDialogs.showMessageDialog(frameElement, "刪除成功!", "成功",
-                        JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                // 保存失敗，回滾
-                allData.add(dataToDelete);
-                currentData.add(selectedRow, dataToDelete);
-                da.api.util.LogManager.getInstance().error("使用者刪除資料失敗 (Row: " + selectedRow + ")");
-                da.api.util.StyledDialogs.showMessageDialog(frameElement,
-                        "刪除失敗!", "錯誤", JOptionPane.ERROR_MESSAGE);
+            int allDataIndex = allData.indexOf(dataToDelete);
+            if (allDataIndex != -1) {
+                allData.remove(allDataIndex);
             }
+            // 從篩選結果中刪除，表格只移除這一列
+            tableModel.removeRow(selectedRow);
+            updateSearchStatus();
+            updateSearchOptions(); // 更新過濾器選項
+            compactDataIfNeeded();
+
+            // 交由背景寫入，只刪除檔案中對應的一列
+            List<ExcelData> snapshot = allData.copy();
+            saveQueue.submit(snapshot, service -> allDataIndex != -1
+                    ? service.deleteRow(snapshot, allDataIndex)
+                    : service.saveAllData(snapshot), success -> {
+                        if (success) {
+                            // 構建刪除資料內容字串
+                            StringBuilder sb = new StringBuilder();
+                            if (columnConfig != null && columnConfig.getAllHeaders() != null) {
+                                for (String header : columnConfig.getAllHeaders()) {
+                                    sb.append(header).append(": ").append(dataToDelete.getAttribute(header))
+                                            .append(", ");
+                                }
+                            }
+                            da.api.util.LogManager.getInstance().info(
+                                    "使用者刪除資料成功 (Row: " + selectedRow + ")。已刪除內容: {" + sb.toString() + "}");
+                            da.api.util.StyledDialogs.showMessageDialog(frameElement, "刪除成功!", "成功",
+                                    JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            // 保存失敗，回滾
+                            discardPendingSearch();
+                            localEdits.incrementAndGet();
+                            if (allDataIndex != -1) {
+                                allData.add(Math.min(allDataIndex, allData.size()), dataToDelete);
+                            }
+                            tableModel.insertRow(Math.min(selectedRow, currentData.size()), dataToDelete);
+                            updateSearchStatus();
+                            updateSearchOptions();
+                            da.api.util.LogManager.getInstance().error("使用者刪除資料失敗 (Row: " + selectedRow + ")");
+                            da.api.util.StyledDialogs.showMessageDialog(frameElement,
+                                    "刪除失敗!", "錯誤", JOptionPane.ERROR_MESSAGE);
+                        }
+                    });
         }
     }
 
@@ -1284,6 +1884,9 @@ public class Panel {
      * 新增欄位
      */
     private void addColumn() {
+        if (!checkDataLoaded()) {
+            return;
+        }
         // 檢查設定是否存在
         if (columnConfig == null) {
             da.api.util.StyledDialogs.showMessageDialog(frameElement,
@@ -1323,43 +1926,60 @@ public class Panel {
             return;
         }
 
-        try {
-            // 更新 ColumnConfig
-            List<String> headers = new ArrayList<>(columnConfig.getAllHeaders());
-            headers.add(columnName);
-            columnConfig.setAllHeaders(headers);
-
-            // 保存新的欄位配置
-            appSettings.saveColumnConfig(excelService.getFilePath(), columnConfig);
-
-            // 更新 Excel 檔案（添加新欄位到標題列）
-            if (excelService.addColumnToExcel(columnName)) {
-                // 重新載入資料
-                refreshData();
-                da.api.util.LogManager.getInstance().info("使用者新增欄位：" + columnName);
-                da.api.util.StyledDialogs.showMessageDialog(frameElement,
-                        "欄位「" + columnName + "」新增成功！", "成功", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                // 回滾配置
-                headers.remove(columnName);
-                columnConfig.setAllHeaders(headers);
-                appSettings.saveColumnConfig(excelService.getFilePath(), columnConfig);
-
-                da.api.util.LogManager.getInstance().error("使用者新增欄位失敗：" + columnName);
-                da.api.util.StyledDialogs.showMessageDialog(frameElement,
-                        "新增欄位失敗！", "錯誤", JOptionPane.ERROR_MESSAGE);
+        // 新配置先以副本建立，Excel 寫入成功後才在 UI 執行緒套用，失敗時目前配置不受影響
+        String newColumn = columnName;
+        List<String> newHeaders = new ArrayList<>(columnConfig.getAllHeaders());
+        newHeaders.add(newColumn);
+        da.api.model.ColumnConfig updated = new da.api.model.ColumnConfig(columnConfig.getExpiryDateColumn(),
+                columnConfig.getSearchFilterColumns(), newHeaders, columnConfig.getKeyColumn());
+
+        // 排隊中的變更須以目前欄位寫入：接在寫入執行緒上依序執行，UI 不等待
+        saveQueue.execute(() -> {
+            boolean success = false;
+            String error = null;
+            try {
+                // 更新 Excel 檔案（添加新欄位到標題列）
+                success = excelService.addColumnToExcel(newColumn);
+                if (success) {
+                    // 之後排入的寫入以新欄位為準
+                    excelService.setColumnConfig(updated);
+                }
+            } catch (Exception e) {
+                error = e.getMessage();
             }
-        } catch (Exception e) {
-            da.api.util.LogManager.getInstance().error("新增欄位時發生錯誤：" + e.getMessage());
-            da.api.util.StyledDialogs.showMessageDialog(frameElement,
-                    "新增欄位時發生錯誤：" + e.getMessage(), "錯誤", JOptionPane.ERROR_MESSAGE);
-        }
+
+            boolean added = success;
+            String message = error;
+            javax.swing.SwingUtilities.invokeLater(() -> {
+                if (message != null) {
+                    da.api.util.LogManager.getInstance().error("新增欄位時發生錯誤：" + message);
+                    da.api.util.StyledDialogs.showMessageDialog(frameElement,
+                            "新增欄位時發生錯誤：" + message, "錯誤", JOptionPane.ERROR_MESSAGE);
+                } else if (added) {
+                    // 套用並保存新的欄位配置
+                    columnConfig = updated;
+                    appSettings.saveColumnConfig(excelService.getFilePath(), updated);
+                    // 重新載入資料
+                    refreshData();
+                    da.api.util.LogManager.getInstance().info("使用者新增欄位：" + newColumn);
+                    da.api.util.StyledDialogs.showMessageDialog(frameElement,
+                            "欄位「" + newColumn + "」新增成功！", "成功", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    da.api.util.LogManager.getInstance().error("使用者新增欄位失敗：" + newColumn);
+                    da.api.util.StyledDialogs.showMessageDialog(frameElement,
+                            "新增欄位失敗！", "錯誤", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+        });
     }
 
     /**
      * 刪除欄位
      */
     private void deleteColumn() {
+        if (!checkDataLoaded()) {
+            return;
+        }
         // 檢查設定是否存在
         if (columnConfig == null || columnConfig.getAllHeaders() == null || columnConfig.getAllHeaders().isEmpty()) {
             da.api.util.StyledDialogs.showMessageDialog(frameElement,
@@ -1410,58 +2030,69 @@ public class Panel {
             return;
         }
 
-        try {
-            // 找到欄位索引
-            int columnIndex = headers.indexOf(selectedColumn);
-            if (columnIndex < 0) {
-                da.api.util.StyledDialogs.showMessageDialog(frameElement,
-                        "找不到欄位！", "錯誤", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+        // 找到欄位索引
+        int columnIndex = headers.indexOf(selectedColumn);
+        if (columnIndex < 0) {
+            da.api.util.StyledDialogs.showMessageDialog(frameElement,
+                    "找不到欄位！", "錯誤", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
-            // 備份原始配置
-            List<String> originalHeaders = new ArrayList<>(headers);
+        // 新配置先以副本建立，Excel 寫入成功後才在 UI 執行緒套用，失敗時目前配置不受影響
+        List<String> newHeaders = new ArrayList<>(headers);
+        newHeaders.remove(selectedColumn);
 
-            // 更新 ColumnConfig
-            List<String> newHeaders = new ArrayList<>(headers);
-            newHeaders.remove(selectedColumn);
-            columnConfig.setAllHeaders(newHeaders);
+        // 從搜尋過濾欄位中移除（如果存在）
+        List<String> searchFilterColumns = columnConfig.getSearchFilterColumns();
+        if (searchFilterColumns != null && searchFilterColumns.contains(selectedColumn)) {
+            searchFilterColumns = new ArrayList<>(searchFilterColumns);
+            searchFilterColumns.remove(selectedColumn);
+        }
 
-            // 從搜尋過濾欄位中移除（如果存在）
-            List<String> searchFilterColumns = columnConfig.getSearchFilterColumns();
-            if (searchFilterColumns != null && searchFilterColumns.contains(selectedColumn)) {
-                List<String> newSearchFilters = new ArrayList<>(searchFilterColumns);
-                newSearchFilters.remove(selectedColumn);
-                columnConfig.setSearchFilterColumns(newSearchFilters);
+        // 刪除的是鍵值欄位時改回整列比對
+        String keyColumn = selectedColumn.equals(columnConfig.getKeyColumn()) ? null : columnConfig.getKeyColumn();
+
+        da.api.model.ColumnConfig updated = new da.api.model.ColumnConfig(expiryColumn,
+                searchFilterColumns, newHeaders, keyColumn);
+
+        // 排隊中的變更須以目前欄位寫入：接在寫入執行緒上依序執行，UI 不等待
+        saveQueue.execute(() -> {
+            boolean success = false;
+            String error = null;
+            try {
+                // 從 Excel 檔案中刪除欄位
+                success = excelService.removeColumnFromExcel(columnIndex);
+                if (success) {
+                    // 之後排入的寫入以新欄位為準
+                    excelService.setColumnConfig(updated);
+                }
+            } catch (Exception e) {
+                error = e.getMessage();
             }
 
-            // 保存新的欄位配置
-            appSettings.saveColumnConfig(excelService.getFilePath(), columnConfig);
-
-            // 從 Excel 檔案中刪除欄位
-            if (excelService.removeColumnFromExcel(columnIndex)) {
-                // 重新載入資料
-                refreshData();
-                da.api.util.LogManager.getInstance().info("使用者刪除欄位：" + selectedColumn);
-                da.api.util.StyledDialogs.showMessageDialog(frameElement,
-                        "欄位「" + selectedColumn + "」刪除成功！", "成功", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                // 回滾配置
-                columnConfig.setAllHeaders(originalHeaders);
-                if (searchFilterColumns != null && !searchFilterColumns.contains(selectedColumn)) {
-                    columnConfig.setSearchFilterColumns(searchFilterColumns);
+            boolean removed = success;
+            String message = error;
+            javax.swing.SwingUtilities.invokeLater(() -> {
+                if (message != null) {
+                    da.api.util.LogManager.getInstance().error("刪除欄位時發生錯誤：" + message);
+                    da.api.util.StyledDialogs.showMessageDialog(frameElement,
+                            "刪除欄位時發生錯誤：" + message, "錯誤", JOptionPane.ERROR_MESSAGE);
+                } else if (removed) {
+                    // 套用並保存新的欄位配置
+                    columnConfig = updated;
+                    appSettings.saveColumnConfig(excelService.getFilePath(), updated);
+                    // 重新載入資料
+                    refreshData();
+                    da.api.util.LogManager.getInstance().info("使用者刪除欄位：" + selectedColumn);
+                    da.api.util.StyledDialogs.showMessageDialog(frameElement,
+                            "欄位「" + selectedColumn + "」刪除成功！", "成功", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    da.api.util.LogManager.getInstance().error("使用者刪除欄位失敗：" + selectedColumn);
+                    da.api.util.StyledDialogs.showMessageDialog(frameElement,
+                            "刪除欄位失敗！", "錯誤", JOptionPane.ERROR_MESSAGE);
                 }
-                appSettings.saveColumnConfig(excelService.getFilePath(), columnConfig);
-
-                da.api.util.LogManager.getInstance().error("使用者刪除欄位失敗：" + selectedColumn);
-                da.api.util.StyledDialogs.showMessageDialog(frameElement,
-                        "刪除欄位失敗！", "錯誤", JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (Exception e) {
-            da.api.util.LogManager.getInstance().error("刪除欄位時發生錯誤：" + e.getMessage());
-            da.api.util.StyledDialogs.showMessageDialog(frameElement,
-                    "刪除欄位時發生錯誤：" + e.getMessage(), "錯誤", JOptionPane.ERROR_MESSAGE);
-        }
+            });
+        });
     }
 
     /**
@@ -1580,7 +2211,7 @@ public class Panel {
             da.api.util.LogManager.getInstance().info("使用者設定到期提醒天數：" + days + " 天");
             dialog.dispose();
             JOptionPane.showMessageDialog(frameElement, "設定已更新！到期提醒天數設為 " + days + " 天");
-            dataTable.repaint();
+            refreshExpiryStatus();
         });
 
         // 取消按鈕
@@ -1626,6 +2257,9 @@ public class Panel {
      * 監聽器：強制彈出選單水平擴展以適應內容寬度
      */
     private class WidePopupMenuListener implements javax.swing.event.PopupMenuListener {
+        // 估算下拉清單寬度時最多取樣的項目數
+        private static final int POPUP_WIDTH_SAMPLE = 1000;
+
         @Override
         public void popupMenuWillBecomeVisible(javax.swing.event.PopupMenuEvent e) {
             javax.swing.JComboBox<?> box = (javax.swing.JComboBox<?>) e.getSource();
@@ -1644,12 +2278,14 @@ public class Panel {
                     // 從 0 開始避免累加增長
                     int contentWidth = 0;
 
-                    // 遍歷項目找出最大寬度
+                    // 遍歷項目找出最大寬度；值很多的欄位只取前面的項目估算，不必逐一產生全部項目
                     javax.swing.ListCellRenderer renderer = box.getRenderer();
                     // 使用原始型別避免在此處的泛型問題
-                    for (int i = 0; i < box.getItemCount(); i++) {
+                    javax.swing.JList list = new javax.swing.JList();
+                    int measured = Math.min(box.getItemCount(), POPUP_WIDTH_SAMPLE);
+                    for (int i = 0; i < measured; i++) {
                         Object value = box.getItemAt(i);
-                        java.awt.Component c = renderer.getListCellRendererComponent(new javax.swing.JList(), value, i,
+                        java.awt.Component c = renderer.getListCellRendererComponent(list, value, i,
                                 false, false);
                         contentWidth = Math.max(contentWidth, c.getPreferredSize().width);
                     }
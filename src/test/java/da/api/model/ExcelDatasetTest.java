@@ -0,0 +1,372 @@
+package da.api.model;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * ExcelDataset 欄式資料集測試
+ */
+public class ExcelDatasetTest extends TestCase {
+    private static final int ROWS = 100_000;
+    private static final int COLUMNS = 15;
+    private static final String EXPIRY = "到期日";
+
+    public void testViewsBehaveLikeStandaloneRows() {
+        List<String> headers = Arrays.asList("名稱", "API KEY", EXPIRY);
+        ExcelDataset dataset = new ExcelDataset(headers, EXPIRY);
+        ExcelData standalone = new ExcelData();
+        standalone.setAttribute("名稱", "廠商");
+        standalone.setAttribute("API KEY", "key-1");
+        standalone.setAttribute(EXPIRY, "2026-03-01");
+        standalone.setExpiryDate(LocalDate.of(2026, 3, 1));
+        dataset.add(standalone);
+
+        ExcelData view = dataset.get(0);
+        assertEquals(standalone, view);
+        assertEquals(view, standalone);
+        assertEquals(standalone.hashCode(), view.hashCode());
+        assertEquals("2026-03-01", view.getAttribute(EXPIRY));
+        assertEquals(0, dataset.indexOf(view));
+        // 依欄位位置讀值與依標題讀值相同，不存在的欄位為 null
+        assertEquals("key-1", dataset.getValue(0, dataset.columnOf("API KEY")));
+        assertEquals("2026-03-01", dataset.getValue(0, dataset.columnOf(EXPIRY)));
+        assertEquals(-1, dataset.columnOf("不存在"));
+        assertNull(dataset.getValue(0, dataset.columnOf("不存在")));
+
+        // 修改檢視不影響資料集
+        view.setAttribute("名稱", "其他");
+        assertEquals("其他", view.getAttribute("名稱"));
+        assertEquals("廠商", dataset.get(0).getAttribute("名稱"));
+
+        // 複本共用列資料但各自增刪
+        ExcelDataset copy = dataset.copy();
+        copy.remove(0);
+        assertEquals(1, dataset.size());
+        assertEquals(0, copy.size());
+
+        // 快照不受之後的增刪影響
+        dataset.indexColumns(Arrays.asList("名稱"));
+        ExcelDataset snapshot = dataset.snapshot();
+        dataset.remove(0);
+        assertEquals(0, dataset.size());
+        assertEquals(1, snapshot.size());
+        assertEquals(1, snapshot.rowsWithValue("名稱", "廠商").cardinality());
+        assertTrue(dataset.rowsWithValue("名稱", "廠商").isEmpty());
+    }
+
+    public void testRepeatedValuesAreSharedAndFilterable() {
+        List<String> headers = Arrays.asList("API KEY", "環境", "廠商");
+        ExcelDataset dataset = new ExcelDataset(headers, null);
+        Random random = new Random(7);
+        for (int r = 0; r < 5_000; r++) {
+            // 每列各自產生新的字串，與讀取檔案時相同
+            String env = new String(random.nextBoolean() ? "PROD" : " UAT ");
+            String vendor = random.nextInt(10) == 0 ? null : new String("廠商" + random.nextInt(30));
+            dataset.addRow(new String[] { "key-" + r, env, vendor }, null);
+        }
+        dataset.trimToSize();
+
+        // 低重複度欄位只保存一份相同的值
+        int first = -1;
+        for (int i = 0; i < dataset.size() && first < 0; i++) {
+            if ("PROD".equals(dataset.getValue(i, "環境"))) {
+                first = i;
+            }
+        }
+        for (int i = first + 1; i < dataset.size(); i++) {
+            if ("PROD".equals(dataset.getValue(i, "環境"))) {
+                assertSame(dataset.getValue(first, "環境"), dataset.getValue(i, "環境"));
+            }
+        }
+
+        // 代碼比對與逐列比對字串的結果一致
+        String[][] conditions = { { "環境", "UAT" }, { "廠商", "廠商3" }, { "API KEY", "key-42" }, { "廠商", "不存在" } };
+        for (String[] condition : conditions) {
+            ExcelDataset filtered = dataset.filter(dataset.valueEquals(condition[0], condition[1]));
+            int expected = 0;
+            for (ExcelData data : dataset) {
+                String value = data.getAttribute(condition[0]);
+                if (value != null && value.trim().equals(condition[1])) {
+                    expected++;
+                    assertEquals(data, filtered.get(expected - 1));
+                }
+            }
+            assertEquals(expected, filtered.size());
+        }
+    }
+
+    public void testIndexedSelectMatchesScan() {
+        List<String> headers = Arrays.asList("API KEY", "環境", "廠商", "負責人");
+        List<String> filterColumns = Arrays.asList("環境", "廠商", "負責人");
+        ExcelDataset dataset = new ExcelDataset(headers, null);
+        Random random = new Random(11);
+        for (int r = 0; r < 50_000; r++) {
+            dataset.addRow(randomRow(random, "key-" + r), null);
+        }
+        dataset.trimToSize();
+        dataset.indexColumns(filterColumns);
+
+        // 建立索引後的新增、修改與刪除
+        for (int i = 0; i < 200; i++) {
+            int position = random.nextInt(dataset.size());
+            ExcelDataset other = new ExcelDataset(headers, null);
+            other.addRow(randomRow(random, "changed-" + i), null);
+            switch (i % 3) {
+                case 0:
+                    dataset.add(position, other.get(0));
+                    break;
+                case 1:
+                    dataset.set(position, other.get(0));
+                    break;
+                default:
+                    dataset.remove(position);
+                    break;
+            }
+        }
+
+        ExcelDataset selected = dataset.select(dataset.rowsWithValue("環境", "PROD")
+                .and(dataset.rowsWithValue("廠商", " 廠商7 ")).and(dataset.rowsWithValue("負責人", "王")));
+        ExcelDataset scanned = dataset.filter(dataset.valueEquals("環境", "PROD")
+                .and(dataset.valueEquals("廠商", "廠商7")).and(dataset.valueEquals("負責人", "王")));
+        assertTrue(selected.size() > 0);
+        assertEquals(scanned, selected);
+    }
+
+    public void testDistinctValuesFollowEdits() {
+        List<String> headers = Arrays.asList("API KEY", "環境", "廠商", "負責人");
+        ExcelDataset dataset = new ExcelDataset(headers, null);
+        Random random = new Random(13);
+        for (int r = 0; r < 20_000; r++) {
+            dataset.addRow(randomRow(random, "key-" + r), null);
+        }
+        dataset.indexColumns(Arrays.asList("廠商", "API KEY"));
+        List<String> vendors = dataset.distinctValues("廠商");
+        assertEquals(40, vendors.size());
+
+        for (int i = 0; i < 300; i++) {
+            int position = random.nextInt(dataset.size());
+            ExcelDataset other = new ExcelDataset(headers, null);
+            String[] row = randomRow(random, "changed-" + i);
+            // 偶爾出現新的值或空值
+            row[2] = i % 7 == 0 ? "新廠商" + i : (i % 11 == 0 ? " " : row[2]);
+            other.addRow(row, null);
+            if (i % 3 == 0) {
+                dataset.add(position, other.get(0));
+            } else if (i % 3 == 1) {
+                dataset.set(position, other.get(0));
+            } else {
+                dataset.remove(position);
+            }
+            if (i == 150) {
+                // 快照之後的編輯不影響快照
+                ExcelDataset snapshot = dataset.snapshot();
+                List<String> before = new ArrayList<>(snapshot.distinctValues("廠商"));
+                dataset.remove(0);
+                dataset.add(0, other.get(0));
+                assertEquals(before, snapshot.distinctValues("廠商"));
+            }
+        }
+
+        // 與逐列收集的結果一致 (copy 沒有索引)
+        assertEquals(dataset.copy().distinctValues("廠商"), vendors);
+        assertEquals(dataset.copy().distinctValues("API KEY"), dataset.distinctValues("API KEY"));
+        assertEquals(dataset.copy().distinctValues("負責人"), dataset.distinctValues("負責人"));
+    }
+
+    public void testCompactKeepsContentAndViews() {
+        List<String> headers = Arrays.asList("API KEY", "環境", "廠商", "備註", EXPIRY);
+        ExcelDataset dataset = new ExcelDataset(headers, EXPIRY);
+        fillRows(dataset, new Random(3), 0, 5_000);
+        dataset.indexColumns(Arrays.asList("環境", "廠商"));
+        assertFalse(dataset.needsCompaction());
+
+        // 每次修改都附加新版本，舊版本留在列資料中
+        ExcelDataset edits = new ExcelDataset(headers, EXPIRY);
+        fillRows(edits, new Random(4), 0, 6_000);
+        Random random = new Random(5);
+        for (int i = 0; i < edits.size(); i++) {
+            dataset.set(random.nextInt(dataset.size()), edits.get(i));
+        }
+        dataset.remove(10);
+        ExcelDataset view = dataset.filter(dataset.valueEquals("環境", "PROD"));
+        // 篩選結果中不在完整資料集的列
+        view.add(0, edits.get(0));
+        assertTrue(dataset.needsCompaction());
+
+        ExcelDataset expected = dataset.copy();
+        ExcelDataset expectedView = view.copy();
+        ExcelDataset snapshot = dataset.snapshot();
+        dataset.compact(view);
+
+        assertFalse(dataset.needsCompaction());
+        assertSameContent(expected, dataset);
+        assertSameContent(expectedView, view);
+        assertSameContent(expected, snapshot);
+        // 篩選索引改用新的列資料
+        assertEquals(dataset.filter(dataset.valueEquals("廠商", "廠商7")),
+                dataset.select(dataset.rowsWithValue("廠商", "廠商7")));
+        // 篩選結果與完整資料集使用同一份新的列資料
+        ExcelDataset shared = view.copy();
+        shared.remove(0);
+        assertEquals(shared.filter(shared.valueEquals("廠商", "廠商7")),
+                shared.select(dataset.rowsWithValue("廠商", "廠商7")));
+
+        // 重建後照常編輯
+        dataset.set(0, edits.get(1));
+        assertEquals(edits.get(1), dataset.get(0));
+        assertEquals(1, dataset.select(dataset.rowsWithValue("API KEY", edits.get(1).getAttribute("API KEY"))).size());
+    }
+
+    public void testExpiryStatusIsPrecomputed() {
+        List<String> headers = Arrays.asList("API KEY", EXPIRY);
+        ExcelDataset dataset = new ExcelDataset(headers, EXPIRY);
+        LocalDate today = LocalDate.of(2026, 6, 15);
+        int[] offsets = { -30, -1, 0, 7, 8, 365 };
+        for (int offset : offsets) {
+            LocalDate expiry = today.plusDays(offset);
+            dataset.addRow(new String[] { "key" + offset, expiry.toString() }, expiry);
+        }
+        dataset.addRow(new String[] { "no-date", null }, null);
+        // 尚未計算前一律為 NONE
+        assertEquals(ExpiryStatus.NONE, dataset.getExpiryStatus(0));
+
+        dataset.classifyExpiry(today, 7);
+        byte[] expected = { ExpiryStatus.EXPIRED, ExpiryStatus.EXPIRED, ExpiryStatus.EXPIRING,
+                ExpiryStatus.EXPIRING, ExpiryStatus.VALID, ExpiryStatus.VALID, ExpiryStatus.NONE };
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(dataset.getValue(i, "API KEY"), expected[i], dataset.getExpiryStatus(i));
+        }
+
+        // 計算之後新增的列與篩選結果使用相同的基準
+        dataset.addRow(new String[] { "added", null }, today.plusDays(3));
+        assertEquals(ExpiryStatus.EXPIRING, dataset.getExpiryStatus(dataset.size() - 1));
+        ExcelDataset selected = dataset.select(dataset.rowsWithValue("API KEY", "key8"));
+        assertEquals(ExpiryStatus.VALID, selected.getExpiryStatus(0));
+
+        // 跨過午夜後重新計算
+        dataset.classifyExpiry(today.plusDays(1), 7);
+        assertEquals(ExpiryStatus.EXPIRED, dataset.getExpiryStatus(2));
+        assertEquals(ExpiryStatus.EXPIRING, selected.getExpiryStatus(0));
+    }
+
+    public void testOffHeapStorageMatchesHeap() throws Exception {
+        List<String> headers = Arrays.asList("API KEY", "環境", "廠商", "備註", EXPIRY);
+        File directory = java.nio.file.Files.createTempDirectory("offheap-test").toFile();
+        int rowCount = 300_000;
+        try {
+            ExcelDataset offHeap = new ExcelDataset(headers, EXPIRY, directory);
+            fillRows(offHeap, new Random(5), 0, rowCount);
+            offHeap.trimToSize();
+            ExcelDataset heap = new ExcelDataset(headers, EXPIRY);
+            fillRows(heap, new Random(5), 0, rowCount);
+            heap.trimToSize();
+
+            assertTrue(offHeap.isOffHeap());
+            assertFalse(heap.isOffHeap());
+            assertNull(offHeap.getOffHeapFailure());
+            assertEquals(1, directory.listFiles().length);
+            // 只有最後一個未滿的區塊留在 heap 中
+            assertEquals(rowCount, heap.heapRowCount());
+            assertEquals(rowCount % ExcelDataset.RowStore.CHUNK_ROWS, offHeap.heapRowCount());
+            assertSameContent(heap, offHeap);
+
+            // 封存之後的編輯與新增 (再封存一個區塊)
+            for (ExcelDataset dataset : Arrays.asList(heap, offHeap)) {
+                ExcelData edited = dataset.get(10);
+                edited.setAttribute("備註", "已修改");
+                dataset.set(10, edited);
+                dataset.remove(20);
+                fillRows(dataset, new Random(9), rowCount, 70_000);
+            }
+            assertSameContent(heap, offHeap);
+            assertEquals("已修改", offHeap.getValue(10, "備註"));
+
+            // 篩選與查詢的結果一致
+            List<String> filterColumns = Arrays.asList("環境", "廠商");
+            heap.indexColumns(filterColumns);
+            offHeap.indexColumns(filterColumns);
+            RowBitmap vendor = offHeap.rowsWithValue("廠商", "廠商7");
+            RowBitmap notes = offHeap.rowsMatching("備註", value -> value != null && value.contains("99"));
+            RowBitmap text = offHeap.rowsContainingText("KEY-12345");
+            assertTrue(vendor.cardinality() > 0 && notes.cardinality() > 0 && text.cardinality() > 0);
+            assertEquals(heap.select(heap.rowsWithValue("廠商", "廠商7")), offHeap.select(vendor));
+            assertEquals(heap.select(heap.rowsMatching("備註", value -> value != null && value.contains("99"))),
+                    offHeap.select(notes));
+            assertEquals(heap.select(heap.rowsContainingText("KEY-12345")), offHeap.select(text));
+            assertEquals(heap.select(heap.rowsWithValue(EXPIRY, "2026-01-05")),
+                    offHeap.select(offHeap.rowsWithValue(EXPIRY, "2026-01-05")));
+            assertEquals(heap.distinctValues("廠商"), offHeap.distinctValues("廠商"));
+
+            offHeap.classifyExpiry(LocalDate.of(2026, 1, 1), 7);
+            heap.classifyExpiry(LocalDate.of(2026, 1, 1), 7);
+            for (int i = 0; i < heap.size(); i += 97) {
+                assertEquals(heap.getExpiryStatus(i), offHeap.getExpiryStatus(i));
+            }
+        } finally {
+            ExcelDataset.deleteStaleOffHeapFiles(directory);
+            directory.delete();
+        }
+    }
+
+    private void fillRows(ExcelDataset dataset, Random random, int first, int count) {
+        for (int r = first; r < first + count; r++) {
+            LocalDate expiry = r % 11 == 0 ? null : LocalDate.of(2026, 1, 1).plusDays(r % 400);
+            String expiryText = expiry != null ? expiry.toString() : (r % 2 == 0 ? "無" : null);
+            String note = r % 7 == 0 ? null : r % 13 == 0 ? "" : "備註 " + random.nextInt(1_000_000) + " ✓";
+            String vendor = random.nextInt(10) == 0 ? null : "廠商" + random.nextInt(30);
+            dataset.addRow(new String[] { "key-" + r, random.nextBoolean() ? "PROD" : "UAT", vendor, note, expiryText },
+                    expiry);
+        }
+    }
+
+    private void assertSameContent(ExcelDataset expected, ExcelDataset actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            for (String header : expected.getHeaders()) {
+                assertEquals(expected.getValue(i, header), actual.getValue(i, header));
+            }
+            assertEquals(expected.getExpiryDate(i), actual.getExpiryDate(i));
+        }
+        assertEquals(expected, actual);
+    }
+
+    private String[] randomRow(Random random, String key) {
+        String[] owners = { "王", "李", "陳", "林" };
+        return new String[] { key, random.nextBoolean() ? "PROD" : "UAT", "廠商" + random.nextInt(40),
+                owners[random.nextInt(owners.length)] };
+    }
+
+    public void testRepeatedColumnsAreEncoded() {
+        List<String> headers = new ArrayList<>();
+        for (int c = 0; c < COLUMNS - 1; c++) {
+            headers.add("欄位" + c);
+        }
+        headers.add(EXPIRY);
+        ExcelDataset dataset = new ExcelDataset(headers, EXPIRY);
+        for (int r = 0; r < ROWS; r++) {
+            String[] row = new String[COLUMNS];
+            for (int c = 0; c < COLUMNS - 1; c++) {
+                row[c] = c == 0 ? "key-" + r : "值" + (r % 50);
+            }
+            LocalDate expiry = LocalDate.of(2026, 1, 1).plusDays(r % 365);
+            row[COLUMNS - 1] = expiry.toString();
+            dataset.addRow(row, expiry);
+        }
+        dataset.trimToSize();
+
+        assertEquals(ROWS, dataset.size());
+        assertEquals("key-" + (ROWS - 1), dataset.getValue(ROWS - 1, "欄位0"));
+        // 每列不同的鍵值欄位不編碼，重複的欄位 (含日期文字) 以字典共用字串
+        assertFalse(dataset.isEncoded("欄位0"));
+        for (int c = 1; c < COLUMNS; c++) {
+            assertTrue(headers.get(c), dataset.isEncoded(headers.get(c)));
+        }
+        assertSame(dataset.getValue(0, "欄位1"), dataset.getValue(50, "欄位1"));
+    }
+}
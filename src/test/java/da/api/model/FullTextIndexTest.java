@@ -0,0 +1,96 @@
+package da.api.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * FullTextIndex 全文搜尋索引測試
+ */
+public class FullTextIndexTest extends TestCase {
+    private static final List<String> HEADERS = Arrays.asList("API KEY", "說明", "環境", "廠商");
+
+    public void testIndexedSearchMatchesScan() {
+        ExcelDataset dataset = createDataset(20_000);
+        String[] queries = { "key-1234", "KEY-99", "付款", "查詢 API", "prod", "廠商3", "無此內容", "ab", "7" };
+        RowBitmap[] scanned = new RowBitmap[queries.length];
+        for (int q = 0; q < queries.length; q++) {
+            scanned[q] = dataset.rowsContainingText(queries[q]);
+        }
+
+        dataset.buildFullTextIndex();
+        for (int q = 0; q < queries.length; q++) {
+            assertEquals(queries[q], toList(scanned[q]), toList(dataset.rowsContainingText(queries[q])));
+        }
+    }
+
+    public void testEditsAfterBuildAreSearchable() {
+        ExcelDataset dataset = createDataset(5_000);
+        dataset.buildFullTextIndex();
+
+        // 建立索引之後新增與修改的列
+        dataset.addRow(new String[] { "key-new", "全新的說明文字", "PROD", "新廠商" }, null);
+        ExcelDataset other = new ExcelDataset(HEADERS, null);
+        other.addRow(new String[] { "key-edited", "修改後的說明", "UAT", "廠商1" }, null);
+        String replaced = dataset.getValue(4_999, "API KEY");
+        dataset.set(4_999, other.get(0));
+
+        assertEquals(1, dataset.rowsContainingText("全新的說明").cardinality());
+        assertEquals(1, dataset.rowsContainingText("KEY-EDITED").cardinality());
+        // 被取代的列不再出現在結果中
+        assertTrue(dataset.rowsContainingText(replaced).isEmpty());
+        // 共用同一份列資料的查詢結果也使用索引
+        ExcelDataset subset = dataset.select(dataset.rowsWithValue("環境", "PROD"));
+        assertEquals(1, subset.rowsContainingText("全新的說明").cardinality());
+        assertTrue(subset.rowsContainingText("修改後").isEmpty());
+    }
+
+    public void testInterruptedBuildIsNotPublished() throws Exception {
+        ExcelDataset dataset = createDataset(100_000);
+        Throwable[] failure = new Throwable[1];
+        Thread indexer = new Thread(() -> {
+            // 新的資料已取代這一份，建立到一半被中斷
+            Thread.currentThread().interrupt();
+            try {
+                dataset.buildFullTextIndex();
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        });
+        indexer.start();
+        indexer.join();
+
+        assertTrue(failure[0] instanceof java.util.concurrent.CancellationException);
+        assertFalse(dataset.hasFullTextIndex());
+        // 沒有索引時逐欄比對，結果不受影響
+        assertEquals(1, dataset.rowsContainingText("key-99999").cardinality());
+
+        dataset.buildFullTextIndex();
+        assertTrue(dataset.hasFullTextIndex());
+    }
+
+    private ExcelDataset createDataset(int rowCount) {
+        ExcelDataset dataset = new ExcelDataset(HEADERS, null);
+        Random random = new Random(17);
+        String[] words = { "付款", "查詢", "API", "帳務", "通知", "同步", "訂單", "會員", "報表", "測試" };
+        for (int r = 0; r < rowCount; r++) {
+            StringBuilder description = new StringBuilder();
+            for (int w = 0; w < 4; w++) {
+                description.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            dataset.addRow(new String[] { "key-" + r, description.toString().trim(),
+                    random.nextBoolean() ? "PROD" : "UAT", "廠商" + random.nextInt(50) }, null);
+        }
+        dataset.trimToSize();
+        dataset.indexColumns(Arrays.asList("環境", "廠商"));
+        return dataset;
+    }
+
+    private static List<Integer> toList(RowBitmap bitmap) {
+        List<Integer> rows = new java.util.ArrayList<>();
+        bitmap.forEach(rows::add);
+        return rows;
+    }
+}
@@ -0,0 +1,67 @@
+package da.api.model;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * RowBitmap 壓縮點陣圖測試 (以 java.util.BitSet 為對照)
+ */
+public class RowBitmapTest extends TestCase {
+
+    public void testOperationsMatchBitSet() {
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            // 密度不同，涵蓋陣列區塊與點陣圖區塊之間的轉換
+            int range = 1 + random.nextInt(300_000);
+            BitSet expectedA = new BitSet();
+            BitSet expectedB = new BitSet();
+            RowBitmap a = new RowBitmap();
+            RowBitmap b = new RowBitmap();
+            fill(random, range, random.nextInt(range / 2 + 1), a, expectedA);
+            fill(random, range, random.nextInt(range / 2 + 1), b, expectedB);
+
+            // 移除部分列
+            for (int i = 0; i < range / 10; i++) {
+                int row = random.nextInt(range);
+                a.remove(row);
+                expectedA.clear(row);
+            }
+
+            assertSame(expectedA, a);
+            BitSet and = (BitSet) expectedA.clone();
+            and.and(expectedB);
+            assertSame(and, a.and(b));
+            BitSet or = (BitSet) expectedA.clone();
+            or.or(expectedB);
+            assertSame(or, a.or(b));
+            BitSet andNot = (BitSet) expectedA.clone();
+            andNot.andNot(expectedB);
+            assertSame(andNot, a.andNot(b));
+        }
+    }
+
+    private void fill(Random random, int range, int count, RowBitmap bitmap, BitSet expected) {
+        for (int i = 0; i < count; i++) {
+            int row = random.nextInt(range);
+            bitmap.add(row);
+            expected.set(row);
+        }
+    }
+
+    private void assertSame(BitSet expected, RowBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        BitSet collected = new BitSet();
+        int[] previous = { -1 };
+        actual.forEach(row -> {
+            assertTrue("依序走訪", row > previous[0]);
+            previous[0] = row;
+            collected.set(row);
+        });
+        assertEquals(expected, collected);
+        for (int row = expected.nextSetBit(0); row >= 0; row = expected.nextSetBit(row + 1)) {
+            assertTrue(actual.contains(row));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package da.api.service;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import junit.framework.TestCase;
+
+/**
+ * ColumnWidthEstimator 欄寬估算測試
+ */
+public class ColumnWidthEstimatorTest extends TestCase {
+
+    public void testWideCharactersCountDouble() {
+        assertEquals(7, ColumnWidthEstimator.displayWidth("API KEY"));
+        assertEquals(4, ColumnWidthEstimator.displayWidth("名稱"));
+        assertEquals(9, ColumnWidthEstimator.displayWidth("廠商-ABCD"));
+        // 全形英數與擴充 B 的字 (代理對) 也是兩個字元寬
+        assertEquals(4, ColumnWidthEstimator.displayWidth("ＡＢ"));
+        assertEquals(2, ColumnWidthEstimator.displayWidth(new String(Character.toChars(0x20000))));
+        assertEquals(0, ColumnWidthEstimator.displayWidth(""));
+    }
+
+    public void testTracksWidestValuePerColumn() {
+        ColumnWidthEstimator estimator = new ColumnWidthEstimator(2);
+        estimator.track(0, "key-1");
+        estimator.track(0, "到期日欄位");
+        estimator.track(0, "short");
+        estimator.track(1, null);
+        // 超出範圍的欄位忽略
+        estimator.track(5, "ignored");
+
+        assertEquals(10, estimator.getDisplayWidth(0));
+        assertEquals(0, estimator.getDisplayWidth(1));
+    }
+
+    public void testApplyAddsPaddingAndClampsToMaximum() throws Exception {
+        ColumnWidthEstimator estimator = new ColumnWidthEstimator(3);
+        estimator.track(0, "abc");
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            longText.append("說明");
+        }
+        estimator.track(1, longText.toString());
+
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet();
+            estimator.apply(sheet);
+            assertEquals((3 + 2) * 256, sheet.getColumnWidth(0));
+            // Excel 欄寬上限 255 個字元
+            assertEquals(255 * 256, sheet.getColumnWidth(1));
+            assertEquals(2 * 256, sheet.getColumnWidth(2));
+        }
+    }
+}
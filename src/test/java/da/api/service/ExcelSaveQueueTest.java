@@ -0,0 +1,120 @@
+package da.api.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import da.api.model.ExcelData;
+import junit.framework.TestCase;
+
+/**
+ * ExcelSaveQueue 合併寫入與失敗回報測試
+ */
+public class ExcelSaveQueueTest extends TestCase {
+
+    /** 記錄完整儲存呼叫，不實際寫檔 */
+    private static class RecordingService extends ExcelService {
+        final List<List<ExcelData>> saved = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean saveResult = true;
+
+        RecordingService() {
+            super("unused.xlsx");
+        }
+
+        @Override
+        public boolean saveAllData(List<ExcelData> dataList) {
+            saved.add(dataList);
+            return saveResult;
+        }
+    }
+
+    private RecordingService service;
+    private ExcelSaveQueue queue;
+    private List<Boolean> results;
+
+    @Override
+    protected void setUp() {
+        service = new RecordingService();
+        // 回呼直接在寫入執行緒上執行
+        queue = new ExcelSaveQueue(service, Runnable::run);
+        results = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Override
+    protected void tearDown() {
+        queue.close();
+    }
+
+    public void testPendingRequestsCoalesceIntoLastSnapshot() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 第一筆寫入進行中，後續請求累積在佇列
+        queue.submit(snapshot(1), s -> {
+            writing.countDown();
+            return await(release);
+        }, results::add);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // 個別寫入會回報 false，合併儲存才會成功
+        List<ExcelData> last = snapshot(4);
+        queue.submit(snapshot(2), s -> false, results::add);
+        queue.submit(snapshot(3), s -> false, results::add);
+        queue.submit(last, s -> false, results::add);
+        release.countDown();
+        queue.flush();
+
+        assertEquals(1, service.saved.size());
+        assertSame(last, service.saved.get(0));
+        assertEquals(Collections.nCopies(4, true), results);
+    }
+
+    public void testFailedBatchReportsFalseToEveryCallback() throws Exception {
+        service.saveResult = false;
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.submit(snapshot(1), s -> {
+            writing.countDown();
+            return await(release);
+        }, results::add);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        queue.submit(snapshot(2), s -> true, results::add);
+        queue.submit(snapshot(3), s -> true, results::add);
+        release.countDown();
+        queue.flush();
+
+        // 第一筆成功；合併儲存失敗，兩筆請求都收到 false 以便回滾
+        assertEquals(List.of(true, false, false), results);
+    }
+
+    public void testWriteExceptionReportsFalse() {
+        queue.submit(snapshot(1), s -> {
+            throw new IllegalStateException("磁碟已滿");
+        }, results::add);
+        queue.flush();
+
+        assertEquals(List.of(false), results);
+        assertTrue(service.saved.isEmpty());
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static List<ExcelData> snapshot(int size) {
+        List<ExcelData> rows = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ExcelData data = new ExcelData();
+            data.setAttribute("名稱", "廠商" + i);
+            rows.add(data);
+        }
+        return rows;
+    }
+}
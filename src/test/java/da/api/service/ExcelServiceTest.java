@@ -0,0 +1,263 @@
+package da.api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import da.api.model.ColumnConfig;
+import da.api.model.ExcelData;
+import da.api.model.ExcelDataset;
+import junit.framework.TestCase;
+
+/**
+ * ExcelService 讀寫測試
+ */
+public class ExcelServiceTest extends TestCase {
+
+    private static final List<String> HEADERS = Arrays.asList("名稱", "環境", "到期日", "API KEY");
+
+    private File file;
+    private ExcelService service;
+
+    @Override
+    protected void setUp() throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        file = File.createTempFile("excel-service-test", ".xlsx");
+        service = new ExcelService(file.getAbsolutePath(),
+                new ColumnConfig("到期日", Arrays.asList("名稱", "環境"), HEADERS));
+    }
+
+    @Override
+    protected void tearDown() {
+        file.delete();
+    }
+
+    public void testDatedRowsShareOneStyle() throws Exception {
+        assertTrue(service.saveAllData(TestRows.create(10)));
+        int smallStyles = countCellStyles();
+
+        assertTrue(service.saveAllData(TestRows.create(100_000)));
+        assertEquals(smallStyles, countCellStyles());
+
+        List<ExcelData> rows = service.readAllData();
+        assertEquals(100_000, rows.size());
+        assertEquals(LocalDate.of(2026, 1, 2), rows.get(1).getExpiryDate());
+    }
+
+    public void testRoundTripKeepsData() {
+        List<ExcelData> rows = TestRows.create(50);
+        assertTrue(service.saveAllData(rows));
+
+        assertEquals(HEADERS, service.readHeaders());
+        assertEquals(rows, service.readAllData());
+
+        service.setStreamingRead(false);
+        assertEquals(rows, service.readAllData());
+    }
+
+    public void testMissingHeaderRowLeavesColumnsEmpty() throws Exception {
+        // 工作表沒有第 1 列 (標題列)，資料從第 2 列開始
+        try (XSSFWorkbook wb = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet();
+            for (int r = 1; r <= 2; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue("廠商" + r);
+                row.createCell(1).setCellValue("PROD");
+            }
+            wb.write(out);
+        }
+
+        List<ExcelData> streamed = service.readAllData();
+        assertEquals(2, streamed.size());
+        // 未對應到標題的欄位不可都讀成第一欄的值
+        assertFalse("廠商1".equals(streamed.get(0).getAttribute("名稱")));
+        assertFalse("廠商1".equals(streamed.get(0).getAttribute("API KEY")));
+
+        service.setStreamingRead(false);
+        assertEquals(streamed, service.readAllData());
+    }
+
+    public void testDiskSharedStringsMatchHeap() throws Exception {
+        // XSSFWorkbook 以共用字串表存放文字 (SXSSF 的完整儲存使用行內字串)
+        try (XSSFWorkbook wb = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet();
+            Row header = sheet.createRow(0);
+            for (int c = 0; c < HEADERS.size(); c++) {
+                header.createCell(c).setCellValue(HEADERS.get(c));
+            }
+            for (int r = 1; r <= 200; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue("廠商" + (r % 7));
+                row.createCell(1).setCellValue(r % 2 == 0 ? "PROD" : "換行\r\n" + r);
+                row.createCell(3).setCellValue("key-" + r);
+            }
+            wb.write(out);
+        }
+        List<ExcelData> heap = service.readAllData();
+        assertEquals(200, heap.size());
+
+        File directory = java.nio.file.Files.createTempDirectory("sst-test").toFile();
+        try {
+            service.setOffHeapDirectory(directory);
+            assertEquals(heap, service.readAllData());
+            assertEquals(HEADERS, service.readHeaders());
+            // 暫存檔在讀取結束後刪除
+            assertEquals(0, directory.listFiles().length);
+        } finally {
+            ExcelDataset.deleteStaleOffHeapFiles(directory);
+            StreamingSheetReader.deleteStaleFiles(directory);
+            directory.delete();
+        }
+    }
+
+    public void testRowLevelSaveKeepsData() {
+        List<ExcelData> rows = TestRows.create(50);
+        assertTrue(service.saveAllData(rows));
+
+        ExcelData added = TestRows.create(1).get(0);
+        added.setAttribute("名稱", " <新增> & \"引號\" ");
+        rows.add(added);
+        assertTrue(service.appendRow(rows, added));
+
+        ExcelData edited = new ExcelData();
+        edited.setAttribute("名稱", "已編輯");
+        edited.setAttribute("環境", "");
+        edited.setAttribute("API KEY", "key-edited");
+        edited.setAttribute("到期日", "");
+        rows.set(10, edited);
+        assertTrue(service.updateRow(rows, 10, edited));
+
+        rows.remove(0);
+        assertTrue(service.deleteRow(rows, 0));
+
+        assertEquals(rows, service.readAllData());
+        service.setStreamingRead(false);
+        assertEquals(rows, service.readAllData());
+    }
+
+    public void testDeleteRefusesSheetsWithReferences() throws Exception {
+        String sheet = "<worksheet><sheetData>"
+                + "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>名稱</t></is></c></row>"
+                + "<row r=\"2\"><c r=\"A2\"><f>A4</f><v>3</v></c></row>"
+                + "<row r=\"3\"><c r=\"A3\"><v>2</v></c></row>"
+                + "<row r=\"4\"><c r=\"A4\"><v>3</v></c></row>"
+                + "</sheetData></worksheet>";
+        // 被刪除列之前的公式參照之後的列，不可只位移列號
+        assertFalse(patch(sheet, SheetRowPatcher.Operation.DELETE, 1));
+        // 修改單列不影響其他列的參照
+        assertTrue(patch(sheet, SheetRowPatcher.Operation.UPDATE, 1));
+        String merged = sheet.replace("</worksheet>", "<mergeCells><mergeCell ref=\"A1:B1\"/></mergeCells></worksheet>")
+                .replace("<f>A4</f>", "");
+        assertFalse(patch(merged, SheetRowPatcher.Operation.DELETE, 2));
+        assertTrue(patch(sheet.replace("<f>A4</f>", ""), SheetRowPatcher.Operation.DELETE, 1));
+    }
+
+    public void testRowShiftsRefuseSheetsWithRanges() throws Exception {
+        String sheet = "<worksheet><sheetData>"
+                + "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>名稱</t></is></c></row>"
+                + "<row r=\"2\"><c r=\"A2\"><v>1</v></c></row>"
+                + "</sheetData>%s</worksheet>";
+        String filtered = String.format(sheet, "<autoFilter ref=\"A1:A2\"/>");
+        String table = String.format(sheet, "<tableParts count=\"1\"><tablePart r:id=\"rId1\"/></tableParts>");
+        // 範圍涵蓋資料列，新增或刪除列須完整重寫
+        assertFalse(patch(filtered, SheetRowPatcher.Operation.APPEND, 0));
+        assertFalse(patch(filtered, SheetRowPatcher.Operation.DELETE, 0));
+        assertFalse(patch(table, SheetRowPatcher.Operation.APPEND, 0));
+        assertFalse(patch(table, SheetRowPatcher.Operation.DELETE, 0));
+        // 修改單列不影響範圍
+        assertTrue(patch(filtered, SheetRowPatcher.Operation.UPDATE, 0));
+        assertTrue(patch(table, SheetRowPatcher.Operation.UPDATE, 0));
+    }
+
+    private boolean patch(String sheet, SheetRowPatcher.Operation operation, int index) throws Exception {
+        SheetRowPatcher patcher = new SheetRowPatcher(operation, index,
+                (prefix, rowNumber) -> "<" + prefix + "row r=\"" + rowNumber + "\"/>");
+        return patcher.patch(new ByteArrayInputStream(sheet.getBytes(StandardCharsets.UTF_8)),
+                new ByteArrayOutputStream());
+    }
+
+    public void testFingerprintFollowsContent() throws Exception {
+        List<ExcelData> rows = TestRows.create(20);
+        assertTrue(service.saveAllData(rows));
+        FileFingerprint saved = service.currentFingerprint();
+        assertEquals(saved, service.getLastWrittenFingerprint());
+
+        // 只更新修改時間或以相同內容重新儲存，指紋不變
+        assertTrue(file.setLastModified(file.lastModified() + 60_000));
+        assertEquals(saved, service.currentFingerprint());
+        assertTrue(service.saveAllData(rows));
+        assertEquals(saved, service.currentFingerprint());
+
+        rows.get(3).setAttribute("API KEY", "changed");
+        assertTrue(service.updateRow(rows, 3, rows.get(3)));
+        assertFalse(saved.equals(service.currentFingerprint()));
+    }
+
+    public void testBackgroundLoadReportsProgressAndCancels() throws Exception {
+        List<ExcelData> rows = TestRows.create(5_000);
+        assertTrue(service.saveAllData(rows));
+
+        // 每 1000 列先交出已讀的部分資料
+        List<Integer> progress = new ArrayList<>();
+        ExcelDataset loaded = service.loadAllData(1_000, partial -> progress.add(partial.size()));
+        assertEquals(Arrays.asList(1_000, 2_000, 3_000, 4_000, 5_000), progress);
+        assertEquals(rows, loaded);
+
+        // 讀到一半被取消
+        Throwable[] failure = new Throwable[1];
+        Thread loader = new Thread(() -> {
+            try {
+                service.loadAllData(1_000, partial -> Thread.currentThread().interrupt());
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        });
+        loader.start();
+        loader.join();
+        assertTrue(failure[0] instanceof java.util.concurrent.CancellationException);
+    }
+
+    public void testInterruptedReadIsNotReturnedAsComplete() throws Exception {
+        assertTrue(service.saveAllData(TestRows.create(2_000)));
+        for (boolean streaming : new boolean[] { true, false }) {
+            service.setStreamingRead(streaming);
+            Object[] result = new Object[2];
+            Thread reader = new Thread(() -> {
+                Thread.currentThread().interrupt();
+                try {
+                    result[0] = service.readAllData();
+                } catch (Throwable e) {
+                    result[0] = e;
+                }
+                Thread.currentThread().interrupt();
+                result[1] = service.readAllData(data -> {
+                });
+            });
+            reader.start();
+            reader.join();
+            assertTrue(String.valueOf(result[0]), result[0] instanceof java.util.concurrent.CancellationException);
+            if (streaming) {
+                assertEquals(Boolean.FALSE, result[1]);
+            }
+        }
+    }
+
+    private int countCellStyles() throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file.getAbsolutePath(), PackageAccess.READ)) {
+            return new XSSFReader(pkg).getStylesTable().getNumCellStyles();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package da.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * FileChangeMonitor 變更偵測與事件合併測試
+ */
+public class FileChangeMonitorTest extends TestCase {
+
+    private static final long DEBOUNCE_MILLIS = 100;
+    private static final long POLL_MILLIS = 200;
+
+    private Path dir;
+    private Path file;
+    private FileChangeMonitor monitor;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("file-monitor-test");
+        file = dir.resolve("data.xlsx");
+        Files.write(file, "v0".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (monitor != null) {
+            monitor.close();
+        }
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> p.toFile().delete());
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    public void testDetectsExternalWrite() throws Exception {
+        assertDetectsWrite(false);
+    }
+
+    public void testPollingFallbackDetectsExternalWrite() throws Exception {
+        assertDetectsWrite(true);
+    }
+
+    public void testBurstOfWritesNotifiesOnce() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch second = new CountDownLatch(2);
+        monitor = new FileChangeMonitor(file, () -> {
+            count.incrementAndGet();
+            first.countDown();
+            second.countDown();
+        }, DEBOUNCE_MILLIS, POLL_MILLIS, false);
+        monitor.start();
+        if (monitor.isPolling()) {
+            // 輪詢模式無法合併事件，只驗證通知模式
+            return;
+        }
+
+        // 模擬編輯器分多次寫入 (間隔短於靜止時間)
+        for (int i = 0; i < 5; i++) {
+            Files.write(file, ("burst" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        assertTrue("未偵測到檔案變更", first.await(5, TimeUnit.SECONDS));
+        assertFalse(second.await(DEBOUNCE_MILLIS * 5, TimeUnit.MILLISECONDS));
+        assertEquals(1, count.get());
+    }
+
+    public void testIgnoresTempFilesAndOtherFiles() throws Exception {
+        CountDownLatch changed = new CountDownLatch(1);
+        monitor = new FileChangeMonitor(file, changed::countDown, DEBOUNCE_MILLIS, POLL_MILLIS, false);
+        monitor.start();
+
+        Files.write(dir.resolve(".data.xlsx.123.saving"), "tmp".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("other.xlsx"), "other".getBytes(StandardCharsets.UTF_8));
+        assertFalse(changed.await(Math.max(DEBOUNCE_MILLIS, POLL_MILLIS) * 3, TimeUnit.MILLISECONDS));
+    }
+
+    private void assertDetectsWrite(boolean forcePolling) throws Exception {
+        CountDownLatch changed = new CountDownLatch(1);
+        monitor = new FileChangeMonitor(file, changed::countDown, DEBOUNCE_MILLIS, POLL_MILLIS, forcePolling);
+        monitor.start();
+        if (forcePolling) {
+            assertTrue(monitor.isPolling());
+        }
+
+        // 內容長度與初始檔案不同，輪詢模式不依賴修改時間的精確度
+        Files.write(file, "external change".getBytes(StandardCharsets.UTF_8));
+        assertTrue("未偵測到檔案變更", changed.await(5, TimeUnit.SECONDS));
+    }
+}
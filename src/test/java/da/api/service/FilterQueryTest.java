@@ -0,0 +1,92 @@
+package da.api.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import da.api.model.ExcelData;
+import da.api.model.ExcelDataset;
+import junit.framework.TestCase;
+
+/**
+ * FilterQuery 篩選條件樹測試
+ */
+public class FilterQueryTest extends TestCase {
+    private static final List<String> HEADERS = Arrays.asList("API KEY", "環境", "廠商", "負責人");
+    private static final String[] ENVIRONMENTS = { "PROD", " UAT", "DEV", "", null };
+    private static final String[] OWNERS = { "王", "李", "陳", null };
+
+    public void testBitmapEvaluationMatchesRowByRow() {
+        Random random = new Random(5);
+        ExcelDataset dataset = new ExcelDataset(HEADERS, null);
+        for (int r = 0; r < 20_000; r++) {
+            dataset.addRow(randomRow(random, "key-" + r), null);
+        }
+        dataset.trimToSize();
+        // 負責人不建索引，測試索引與逐列比對混用
+        dataset.indexColumns(Arrays.asList("環境", "廠商"));
+        for (int i = 0; i < 100; i++) {
+            ExcelDataset other = new ExcelDataset(HEADERS, null);
+            other.addRow(randomRow(random, "changed-" + i), null);
+            dataset.set(random.nextInt(dataset.size()), other.get(0));
+        }
+
+        for (int round = 0; round < 200; round++) {
+            FilterQuery query = randomQuery(random, 3);
+            ExcelDataset result = query.apply(dataset);
+            ExcelDataset expected = dataset.filter(i -> query.matches(dataset.get(i)));
+            assertEquals(query.toString(), expected, result);
+        }
+    }
+
+    public void testBlankValueMeansEmpty() {
+        ExcelDataset dataset = new ExcelDataset(HEADERS, null);
+        dataset.addRow(new String[] { "a", null, "x", "王" }, null);
+        dataset.addRow(new String[] { "b", "  ", "x", "王" }, null);
+        dataset.addRow(new String[] { "c", "PROD", "x", "王" }, null);
+        dataset.indexColumns(Arrays.asList("環境"));
+
+        assertEquals(2, FilterQuery.isEmpty("環境").apply(dataset).size());
+        assertEquals(2, FilterQuery.equalTo("環境", " ").apply(dataset).size());
+        assertEquals(1, FilterQuery.not(FilterQuery.isEmpty("環境")).apply(dataset).size());
+
+        ExcelData row = dataset.get(1);
+        assertTrue(FilterQuery.isEmpty("環境").matches(row));
+        assertTrue(FilterQuery.isEmpty("不存在的欄位").matches(row));
+        assertEquals(3, FilterQuery.isEmpty("不存在的欄位").apply(dataset).size());
+    }
+
+    private FilterQuery randomQuery(Random random, int depth) {
+        int type = depth == 0 ? random.nextInt(2) : random.nextInt(5);
+        switch (type) {
+            case 0:
+                String column = HEADERS.get(1 + random.nextInt(3));
+                return FilterQuery.equalTo(column, valueFor(random, column));
+            case 1:
+                return FilterQuery.isEmpty(HEADERS.get(1 + random.nextInt(3)));
+            case 2:
+                return FilterQuery.and(randomQuery(random, depth - 1), randomQuery(random, depth - 1));
+            case 3:
+                return FilterQuery.or(randomQuery(random, depth - 1), randomQuery(random, depth - 1));
+            default:
+                return FilterQuery.not(randomQuery(random, depth - 1));
+        }
+    }
+
+    private String valueFor(Random random, String column) {
+        switch (column) {
+            case "環境":
+                return ENVIRONMENTS[random.nextInt(3)];
+            case "廠商":
+                return "廠商" + random.nextInt(40) + " ";
+            default:
+                return OWNERS[random.nextInt(3)];
+        }
+    }
+
+    private String[] randomRow(Random random, String key) {
+        return new String[] { key, ENVIRONMENTS[random.nextInt(ENVIRONMENTS.length)],
+                random.nextInt(20) == 0 ? null : "廠商" + random.nextInt(40),
+                OWNERS[random.nextInt(OWNERS.length)] };
+    }
+}
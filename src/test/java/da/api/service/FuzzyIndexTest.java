@@ -0,0 +1,118 @@
+package da.api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import da.api.model.ExcelDataset;
+import junit.framework.TestCase;
+
+/**
+ * FuzzyIndex 模糊比對索引測試
+ */
+public class FuzzyIndexTest extends TestCase {
+
+    public void testToleratesTyposCaseAndSpaces() {
+        List<String> items = Arrays.asList("ALL", "Apple", "Microsoft", "microsoft ", "Micron", "Oracle");
+        FuzzyIndex index = new FuzzyIndex(items);
+        assertEquals(Arrays.asList("Microsoft", "microsoft "), index.search("Mircosoft", 10));
+        assertEquals(Arrays.asList("Microsoft", "microsoft "), index.search(" MICROSOFT", 10));
+        assertEquals(Arrays.asList("Oracle"), index.search("Orcle", 10));
+        // 太短的查詢不容許打錯
+        assertTrue(index.search("Apl", 10).isEmpty());
+
+        // 包含查詢字串的項目在前，相近的項目在後
+        SuggestionIndex suggestions = new SuggestionIndex(Arrays.asList("ALL", "Orcl", "Microsoft", "Oracle"));
+        assertEquals(Arrays.asList("Microsoft"), suggestions.searchSimilar("Mircosoft", 10));
+        assertEquals(Arrays.asList("Oracle", "Orcl"), suggestions.searchSimilar("oracl", 10));
+        assertEquals(Arrays.asList("Oracle"), suggestions.search("oracl", 10));
+
+        // 關鍵字搜尋：篩選欄位中相近的值也算符合
+        ExcelDataset dataset = new ExcelDataset(Arrays.asList("API KEY", "廠商"), null);
+        for (int r = 0; r < 100; r++) {
+            dataset.addRow(new String[] { "key-" + r, items.get(1 + r % (items.size() - 1)) }, null);
+        }
+        dataset.indexColumns(Arrays.asList("廠商"));
+        assertEquals(0, FilterQuery.containsText("Mircosoft").apply(dataset).size());
+        ExcelDataset fuzzy = FilterQuery.fuzzyText("Mircosoft", Arrays.asList("廠商")).apply(dataset);
+        assertEquals(40, fuzzy.size());
+        // 逐筆判斷與整份查詢的結果一致
+        FilterQuery query = FilterQuery.fuzzyText("Mircosoft", Arrays.asList("廠商"));
+        int matched = 0;
+        for (da.api.model.ExcelData data : dataset) {
+            if (query.matches(data)) {
+                assertEquals(data, fuzzy.get(matched++));
+            }
+        }
+        assertEquals(fuzzy.size(), matched);
+    }
+
+    public void testMatchesScanOnLargeColumn() {
+        List<String> items = randomNames(new Random(21), 50_000);
+        FuzzyIndex index = new FuzzyIndex(items);
+
+        // 模擬逐字輸入一個打錯的名稱
+        String target = items.get(12_345);
+        String typo = target.substring(0, 2) + target.charAt(3) + target.charAt(2) + target.substring(4);
+        List<String> typed = new ArrayList<>();
+        for (int length = 1; length <= typo.length(); length++) {
+            typed.add(typo.substring(0, length));
+        }
+        for (String query : typed) {
+            assertEquals(query, naive(items, query), index.search(query, Integer.MAX_VALUE));
+        }
+        assertTrue(index.search(typo, 10).contains(target));
+    }
+
+    private List<String> randomNames(Random random, int count) {
+        String[] syllables = { "mi", "cro", "soft", "or", "ac", "le", "ap", "ple", "go", "og", "sun", "tek", "net", "da",
+                "ta", "sys", "in", "fo", "廠", "商", "科", "技" };
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        while (names.size() < count) {
+            StringBuilder sb = new StringBuilder();
+            int parts = 3 + random.nextInt(3);
+            for (int p = 0; p < parts; p++) {
+                sb.append(syllables[random.nextInt(syllables.length)]);
+            }
+            if (random.nextInt(4) == 0) {
+                sb.append(' ').append(random.nextInt(100));
+            }
+            names.add(random.nextBoolean() ? sb.toString() : sb.substring(0, 1).toUpperCase() + sb.substring(1));
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * 逐項計算編輯距離，依距離與項目順序排列
+     */
+    private List<String> naive(List<String> items, String query) {
+        String key = query.trim().toLowerCase();
+        int max = FuzzyIndex.maxDistance(query);
+        List<String> result = new ArrayList<>();
+        for (int d = 0; d <= max; d++) {
+            for (String item : items) {
+                if (levenshtein(key, item.trim().toLowerCase()) == d) {
+                    result.add(item);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] dp = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    dp[i][j] = i + j;
+                } else {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
+                }
+            }
+        }
+        return dp[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,81 @@
+package da.api.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import da.api.model.ExcelData;
+import da.api.model.ExcelDataset;
+import junit.framework.TestCase;
+
+/**
+ * LiveFilter 即時篩選測試
+ */
+public class LiveFilterTest extends TestCase {
+    private static final List<String> HEADERS = Arrays.asList("API KEY", "環境", "廠商");
+
+    public void testNarrowsOnlyWhenEveryConditionIsStricter() {
+        assertTrue(LiveFilter.narrows(conditions(), conditions("廠商", "a")));
+        assertTrue(LiveFilter.narrows(conditions("廠商", "a"), conditions("廠商", "ab", "環境", "p")));
+        assertFalse(LiveFilter.narrows(conditions("廠商", "ab"), conditions("廠商", "a")));
+        assertFalse(LiveFilter.narrows(conditions("廠商", "ab"), conditions("環境", "p")));
+    }
+
+    public void testTypingRefinesPreviousResult() {
+        ExcelDataset dataset = createDataset(50_000);
+        LiveFilter liveFilter = new LiveFilter();
+
+        // 逐字輸入，中間刪除一個字再繼續
+        String[] typed = { "廠", "廠商", "廠商1", "廠商12", "廠商1", "廠商13" };
+        int refinedCount = 0;
+        for (String text : typed) {
+            Map<String, String> conditions = conditions("廠商", text, "環境", "pr");
+            ExcelDataset scope = liveFilter.scope(conditions, dataset);
+            FilterQuery query = LiveFilter.query(conditions);
+            ExcelDataset result = query.apply(scope.snapshot());
+            liveFilter.accept(conditions, result);
+            assertTrue(liveFilter.isCurrent(conditions));
+
+            // 與完整掃描的結果一致
+            int expected = 0;
+            for (int i = 0; i < dataset.size(); i++) {
+                String vendor = dataset.getValue(i, "廠商");
+                if (vendor != null && vendor.toLowerCase().contains(text)
+                        && dataset.getValue(i, "環境").toLowerCase().contains("pr")) {
+                    assertEquals(dataset.get(i), result.get(expected++));
+                }
+            }
+            assertEquals(expected, result.size());
+            for (ExcelData data : result) {
+                assertTrue(query.matches(data));
+            }
+            if (scope != dataset) {
+                refinedCount++;
+            }
+        }
+        // 加長輸入時沿用上次結果，刪除字元時重新完整掃描
+        assertEquals(4, refinedCount);
+    }
+
+    private ExcelDataset createDataset(int rowCount) {
+        ExcelDataset dataset = new ExcelDataset(HEADERS, null);
+        Random random = new Random(5);
+        for (int r = 0; r < rowCount; r++) {
+            String vendor = random.nextInt(20) == 0 ? null : "廠商" + random.nextInt(200);
+            dataset.addRow(new String[] { "key-" + r, random.nextBoolean() ? "PROD" : "UAT", vendor }, null);
+        }
+        dataset.trimToSize();
+        dataset.indexColumns(Arrays.asList("環境", "廠商"));
+        return dataset;
+    }
+
+    private static Map<String, String> conditions(String... pairs) {
+        Map<String, String> conditions = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            conditions.put(pairs[i], pairs[i + 1]);
+        }
+        return conditions;
+    }
+}
@@ -0,0 +1,69 @@
+package da.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import da.api.model.ExcelData;
+import junit.framework.TestCase;
+
+/**
+ * RowDiffEngine 差異比對測試
+ */
+public class RowDiffEngineTest extends TestCase {
+
+    public void testKeyedEditBecomesUpdate() {
+        List<ExcelData> oldRows = TestRows.create(10);
+        List<ExcelData> newRows = copy(oldRows);
+        newRows.set(4, TestRows.row("key-4", "changed"));
+
+        List<RowDiffEngine.RowChange> changes = RowDiffEngine.diff(oldRows, newRows, "API KEY");
+        assertEquals(1, changes.size());
+        assertEquals(RowDiffEngine.ChangeType.UPDATE, changes.get(0).getType());
+        assertEquals(4, changes.get(0).getIndex());
+    }
+
+    public void testRandomEditsReproduceNewList() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            List<ExcelData> oldRows = TestRows.create(random.nextInt(30));
+            List<ExcelData> newRows = copy(oldRows);
+            int edits = random.nextInt(6);
+            for (int e = 0; e < edits; e++) {
+                int op = random.nextInt(3);
+                if (op == 0 || newRows.isEmpty()) {
+                    newRows.add(random.nextInt(newRows.size() + 1), TestRows.row("new-" + round + "-" + e, "x"));
+                } else if (op == 1) {
+                    newRows.remove(random.nextInt(newRows.size()));
+                } else {
+                    int i = random.nextInt(newRows.size());
+                    newRows.set(i, TestRows.row(newRows.get(i).getAttribute("API KEY"), "edited-" + e));
+                }
+            }
+
+            for (String key : new String[] { "API KEY", null }) {
+                List<ExcelData> patched = copy(oldRows);
+                RowDiffEngine.apply(patched, RowDiffEngine.diff(oldRows, newRows, key));
+                assertEquals(newRows, patched);
+            }
+        }
+    }
+
+    public void testFewEditsOnLargeListGiveFewChanges() {
+        List<ExcelData> oldRows = TestRows.create(100_000);
+        List<ExcelData> newRows = copy(oldRows);
+        newRows.set(500, TestRows.row("key-500", "changed"));
+        newRows.remove(50_000);
+        newRows.add(90_000, TestRows.row("inserted", "x"));
+
+        List<RowDiffEngine.RowChange> changes = RowDiffEngine.diff(oldRows, newRows, "API KEY");
+        assertEquals(3, changes.size());
+        List<ExcelData> patched = copy(oldRows);
+        RowDiffEngine.apply(patched, changes);
+        assertEquals(newRows, patched);
+    }
+
+    private List<ExcelData> copy(List<ExcelData> rows) {
+        return new ArrayList<>(rows);
+    }
+}
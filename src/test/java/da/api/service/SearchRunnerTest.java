@@ -0,0 +1,85 @@
+package da.api.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * SearchRunner 背景查詢測試
+ */
+public class SearchRunnerTest extends TestCase {
+    private ExecutorService callbacks;
+
+    @Override
+    protected void setUp() {
+        // 模擬 UI 執行緒：單一執行緒依序執行回呼
+        callbacks = Executors.newSingleThreadExecutor();
+    }
+
+    @Override
+    protected void tearDown() {
+        callbacks.shutdownNow();
+    }
+
+    public void testNewQueryCancelsRunningQuery() throws Exception {
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1);
+
+        try (SearchRunner runner = new SearchRunner(callbacks, 10_000, null)) {
+            runner.submit(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return "舊查詢";
+            }, results::add);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            runner.submit(() -> "新查詢", result -> {
+                results.add(result);
+                delivered.countDown();
+            });
+            assertTrue("舊查詢應被中斷", interrupted.await(5, TimeUnit.SECONDS));
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(Collections.singletonList("新查詢"), results);
+    }
+
+    public void testProgressShownOnlyForSlowQueries() throws Exception {
+        List<Boolean> progress = Collections.synchronizedList(new ArrayList<>());
+        try (SearchRunner runner = new SearchRunner(callbacks, 100, progress::add)) {
+            CountDownLatch fast = new CountDownLatch(1);
+            runner.submit(() -> 1, result -> fast.countDown());
+            assertTrue(fast.await(5, TimeUnit.SECONDS));
+            // 等過進度延遲，確認快速查詢不會顯示進度
+            Thread.sleep(300);
+            flushCallbacks();
+            assertTrue(progress.isEmpty());
+
+            CountDownLatch slow = new CountDownLatch(1);
+            runner.submit(() -> {
+                Thread.sleep(400);
+                return 2;
+            }, result -> slow.countDown());
+            assertTrue(slow.await(5, TimeUnit.SECONDS));
+            flushCallbacks();
+        }
+        assertEquals(java.util.Arrays.asList(true, false), progress);
+    }
+
+    private void flushCallbacks() throws Exception {
+        callbacks.submit(() -> {
+        }).get();
+    }
+}
@@ -0,0 +1,135 @@
+package da.api.service;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import da.api.model.ColumnConfig;
+import da.api.model.ExcelData;
+import da.api.model.ExcelDataset;
+import junit.framework.TestCase;
+
+/**
+ * SnapshotCache 資料快照測試
+ */
+public class SnapshotCacheTest extends TestCase {
+
+    private static final List<String> HEADERS = Arrays.asList("名稱", "環境", "到期日", "API KEY");
+
+    private File file;
+    private File directory;
+    private SnapshotCache cache;
+    private ExcelService service;
+
+    @Override
+    protected void setUp() throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        file = File.createTempFile("snapshot-cache-test", ".xlsx");
+        directory = Files.createTempDirectory("snapshot-cache-test").toFile();
+        cache = new SnapshotCache(directory);
+        service = new ExcelService(file.getAbsolutePath(),
+                new ColumnConfig("到期日", Arrays.asList("名稱", "環境"), HEADERS));
+    }
+
+    @Override
+    protected void tearDown() {
+        file.delete();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    public void testSnapshotReplacesParsingUntilWorkbookChanges() {
+        List<ExcelData> rows = TestRows.create(5_000);
+        assertTrue(service.saveAllData(rows));
+
+        assertEquals(rows, service.readAllData());
+
+        service.setSnapshotCache(cache);
+        ExcelDataset first = service.readAllData();
+        assertEquals(rows, first);
+        File snapshot = cache.fileFor(file.getAbsolutePath());
+        assertTrue(snapshot.isFile());
+
+        ExcelDataset cached = service.loadAllData(1_000, partial -> fail("快照不應回報部分資料"));
+        assertEquals(rows, cached);
+        assertEquals(LocalDate.of(2026, 1, 2), cached.get(1).getExpiryDate());
+        // 篩選索引與到期欄位照常可用
+        assertEquals(250, FilterQuery.equalTo("名稱", "廠商3").apply(cached).size());
+        assertEquals("到期日", cached.getExpiryColumn());
+
+        // 活頁簿改變後指紋不符，不使用快照
+        rows.get(0).setAttribute("API KEY", "changed");
+        assertTrue(service.saveAllData(rows));
+        assertNull(cache.read(file.getAbsolutePath(), service.currentFingerprint()));
+        assertEquals("changed", service.readAllData().get(0).getAttribute("API KEY"));
+        assertNotNull(cache.read(file.getAbsolutePath(), service.currentFingerprint()));
+    }
+
+    public void testCorruptSnapshotIsDiscarded() throws Exception {
+        List<ExcelData> rows = TestRows.create(500);
+        assertTrue(service.saveAllData(rows));
+        service.setSnapshotCache(cache);
+        service.readAllData();
+        FileFingerprint fingerprint = service.currentFingerprint();
+        File snapshot = cache.fileFor(file.getAbsolutePath());
+        assertNotNull(cache.read(file.getAbsolutePath(), fingerprint));
+
+        // 內容中間被改動一個位元組
+        try (RandomAccessFile raf = new RandomAccessFile(snapshot, "rw")) {
+            long middle = raf.length() / 2;
+            raf.seek(middle);
+            int b = raf.read();
+            raf.seek(middle);
+            raf.write(b ^ 0x5a);
+        }
+        assertNull(cache.read(file.getAbsolutePath(), fingerprint));
+        assertFalse(snapshot.exists());
+
+        // 重新解析後再寫入，之後被截斷
+        assertEquals(rows, service.readAllData());
+        assertTrue(snapshot.isFile());
+        try (RandomAccessFile raf = new RandomAccessFile(snapshot, "rw")) {
+            raf.setLength(raf.length() - 7);
+        }
+        assertNull(cache.read(file.getAbsolutePath(), fingerprint));
+        assertFalse(snapshot.exists());
+        assertEquals(rows, service.readAllData());
+
+        // 欄位設定改變時不使用舊快照
+        ExcelService other = new ExcelService(file.getAbsolutePath(),
+                new ColumnConfig("到期日", Arrays.asList("名稱"), Arrays.asList("名稱", "到期日")));
+        other.setSnapshotCache(cache);
+        assertEquals(Arrays.asList("名稱", "到期日"), other.readAllData().getHeaders());
+    }
+
+    public void testInterruptedReadWritesNoSnapshot() throws Exception {
+        List<ExcelData> rows = TestRows.create(2_000);
+        assertTrue(service.saveAllData(rows));
+        service.setSnapshotCache(cache);
+
+        Throwable[] failure = new Throwable[1];
+        Thread reader = new Thread(() -> {
+            try {
+                service.loadAllData(500, partial -> Thread.currentThread().interrupt());
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        });
+        reader.start();
+        reader.join();
+        assertTrue(failure[0] instanceof java.util.concurrent.CancellationException);
+        // 不完整的內容不可以整份檔案的指紋寫入快照
+        assertFalse(cache.fileFor(file.getAbsolutePath()).exists());
+
+        assertEquals(rows, service.readAllData());
+        assertTrue(cache.fileFor(file.getAbsolutePath()).isFile());
+    }
+}
@@ -0,0 +1,57 @@
+package da.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * SuggestionIndex 建議項目索引測試
+ */
+public class SuggestionIndexTest extends TestCase {
+
+    public void testMatchesContainsIgnoringCase() {
+        List<String> items = randomItems(new Random(3), 20_000);
+        SuggestionIndex index = new SuggestionIndex(items);
+        Random random = new Random(4);
+
+        // 模擬逐字輸入、刪除與貼上
+        String[] queries = { "a", "Ab", "ab1", "AB12", "ab1", "廠", "廠商", "商3", "", "x", "zzz", "-7", "K" };
+        for (int round = 0; round < 3; round++) {
+            for (String query : queries) {
+                int limit = 1 + random.nextInt(200);
+                assertEquals(query + " / " + limit, naive(items, query, limit), index.search(query, limit));
+            }
+        }
+        assertEquals(items.size(), index.search("", Integer.MAX_VALUE).size());
+    }
+
+    private List<String> randomItems(Random random, int count) {
+        List<String> items = new ArrayList<>();
+        items.add("ALL");
+        String letters = "abcdeABCDE廠商-0123456789";
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 3 + random.nextInt(10);
+            for (int c = 0; c < length; c++) {
+                sb.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            items.add(sb.toString());
+        }
+        return items;
+    }
+
+    /**
+     * 原本下拉選單的比對方式
+     */
+    private List<String> naive(List<String> items, String query, int limit) {
+        List<String> result = new ArrayList<>();
+        for (String item : items) {
+            if (result.size() < limit && item.toLowerCase().contains(query.toLowerCase())) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+}
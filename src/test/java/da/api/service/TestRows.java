@@ -0,0 +1,42 @@
+package da.api.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import da.api.model.ExcelData;
+
+/**
+ * 測試共用的資料列：名稱、環境、到期日、API KEY 四個欄位
+ */
+final class TestRows {
+
+    private TestRows() {
+    }
+
+    /**
+     * count 筆資料：名稱重複 20 種、環境交替 PROD/UAT、到期日依序遞增，API KEY 為 key-0 起的唯一值
+     */
+    static List<ExcelData> create(int count) {
+        List<ExcelData> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ExcelData data = row("key-" + i, "廠商" + (i % 20));
+            data.setAttribute("環境", i % 2 == 0 ? "PROD" : "UAT");
+            LocalDate expiry = LocalDate.of(2026, 1, 1).plusDays(i % 365);
+            data.setExpiryDate(expiry);
+            data.setAttribute("到期日", expiry.toString());
+            rows.add(data);
+        }
+        return rows;
+    }
+
+    /**
+     * 只有 API KEY 與名稱的資料列
+     */
+    static ExcelData row(String key, String name) {
+        ExcelData data = new ExcelData();
+        data.setAttribute("API KEY", key);
+        data.setAttribute("名稱", name);
+        return data;
+    }
+}
@@ -0,0 +1,68 @@
+package da.api.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import junit.framework.TestCase;
+
+/**
+ * AtomicFileWriter 寫入與失敗還原測試
+ */
+public class AtomicFileWriterTest extends TestCase {
+
+    private File directory;
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("atomic-writer-test").toFile();
+        file = new File(directory, "data.xlsx");
+        Files.write(file.toPath(), "原始內容".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void tearDown() {
+        for (File child : directory.listFiles()) {
+            child.delete();
+        }
+        directory.delete();
+    }
+
+    public void testSuccessfulWriteReplacesFile() throws Exception {
+        AtomicFileWriter.write(file.getPath(), out -> out.write("新內容".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("新內容", read());
+        // 暫存檔已更名為目標檔案，不會留下
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    public void testFailedWriteKeepsOriginal() throws Exception {
+        try {
+            AtomicFileWriter.write(file.getPath(), out -> {
+                out.write("寫到一半".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("磁碟已滿");
+            });
+            fail("寫入失敗應拋出例外");
+        } catch (IOException e) {
+            assertEquals("磁碟已滿", e.getMessage());
+        }
+
+        assertEquals("原始內容", read());
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    public void testTempFileNames() {
+        assertTrue(AtomicFileWriter.isTempFile(Paths.get(".data.xlsx.123.saving")));
+        assertFalse(AtomicFileWriter.isTempFile(Paths.get("data.xlsx")));
+        assertFalse(AtomicFileWriter.isTempFile(Paths.get(".data.xlsx")));
+        assertFalse(AtomicFileWriter.isTempFile((Path) null));
+    }
+
+    private String read() throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
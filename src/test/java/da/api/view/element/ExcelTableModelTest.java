@@ -0,0 +1,60 @@
+package da.api.view.element;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+
+import da.api.model.ExcelData;
+import da.api.model.ExcelDataset;
+import junit.framework.TestCase;
+
+/**
+ * ExcelTableModel 表格模型測試
+ */
+public class ExcelTableModelTest extends TestCase {
+    private static final List<String> HEADERS = Arrays.asList("名稱", "環境", "API KEY");
+
+    public void testReadsValuesFromDataset() {
+        ExcelTableModel model = new ExcelTableModel(HEADERS, createDataset(3));
+
+        assertEquals(3, model.getRowCount());
+        assertEquals(4, model.getColumnCount());
+        assertEquals("序號", model.getColumnName(0));
+        assertEquals("環境", model.getColumnName(2));
+        assertEquals(1, model.getValueAt(0, 0));
+        assertEquals("廠商2", model.getValueAt(2, 1));
+        assertEquals("key-1", model.getValueAt(1, 3));
+        // 空值顯示為空字串
+        assertEquals("", model.getValueAt(1, 2));
+    }
+
+    public void testEditFiresSingleRowUpdate() {
+        ExcelDataset dataset = createDataset(5);
+        ExcelTableModel model = new ExcelTableModel(HEADERS, dataset);
+        List<TableModelEvent> events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+
+        ExcelData edited = dataset.get(3);
+        edited.setAttribute("名稱", "已編輯");
+        model.updateRow(3, edited);
+
+        assertEquals(1, events.size());
+        TableModelEvent event = events.get(0);
+        assertEquals(TableModelEvent.UPDATE, event.getType());
+        assertEquals(3, event.getFirstRow());
+        assertEquals(3, event.getLastRow());
+        assertEquals("已編輯", model.getValueAt(3, 1));
+        assertEquals("已編輯", dataset.getValue(3, "名稱"));
+        assertEquals(5, model.getRowCount());
+    }
+
+    private ExcelDataset createDataset(int rowCount) {
+        ExcelDataset dataset = new ExcelDataset(HEADERS, null);
+        for (int r = 0; r < rowCount; r++) {
+            dataset.addRow(new String[] { "廠商" + r, r % 2 == 0 ? "PROD" : null, "key-" + r }, null);
+        }
+        return dataset;
+    }
+}
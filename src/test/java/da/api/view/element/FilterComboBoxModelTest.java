@@ -0,0 +1,48 @@
+package da.api.view.element;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * FilterComboBoxModel 下拉選單模型測試
+ */
+public class FilterComboBoxModelTest extends TestCase {
+    private static final List<String> VALUES = Arrays.asList("PROD", "SIT", "UAT");
+
+    public void testReadsIndexedValuesAfterAll() {
+        FilterComboBoxModel model = new FilterComboBoxModel(VALUES);
+
+        assertEquals(4, model.getSize());
+        assertEquals(FilterComboBoxModel.ALL, model.getElementAt(0));
+        assertEquals("PROD", model.getElementAt(1));
+        assertEquals("UAT", model.getElementAt(3));
+        assertEquals(FilterComboBoxModel.ALL, model.getSelectedItem());
+        assertEquals(Arrays.asList(FilterComboBoxModel.ALL, "PROD", "SIT", "UAT"), model.getAllItems());
+
+        assertTrue(model.contains(FilterComboBoxModel.ALL));
+        assertTrue(model.contains("SIT"));
+        assertFalse(model.contains("DEV"));
+        assertFalse(model.contains(null));
+    }
+
+    public void testSuggestionsReplaceListUntilShowAll() {
+        FilterComboBoxModel model = new FilterComboBoxModel(VALUES);
+        model.showSuggestions(Arrays.asList("UAT"));
+        assertEquals(1, model.getSize());
+        assertEquals("UAT", model.getElementAt(0));
+        // 判斷值是否存在仍以完整清單為準
+        assertTrue(model.contains("PROD"));
+
+        model.showAll();
+        assertEquals(4, model.getSize());
+
+        // 更換來源時回到完整清單
+        model.showSuggestions(Arrays.asList("PROD"));
+        model.setValues(Arrays.asList("DEV"));
+        assertEquals(2, model.getSize());
+        assertEquals("DEV", model.getElementAt(1));
+        assertFalse(model.contains("PROD"));
+    }
+}